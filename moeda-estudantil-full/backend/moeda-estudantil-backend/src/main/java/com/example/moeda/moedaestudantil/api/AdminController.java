@@ -0,0 +1,168 @@
+package com.example.moeda.moedaestudantil.api;
+
+import com.example.moeda.moedaestudantil.service.BenefitCatalogCache;
+import com.example.moeda.moedaestudantil.service.BenefitCostIndex;
+import com.example.moeda.moedaestudantil.service.BenefitSearchIndex;
+import com.example.moeda.moedaestudantil.service.EmailService;
+import com.example.moeda.moedaestudantil.service.IdempotencyService;
+import com.example.moeda.moedaestudantil.service.LedgerPartitionService;
+import com.example.moeda.moedaestudantil.service.OutboxService;
+import com.example.moeda.moedaestudantil.service.PasswordService;
+import com.example.moeda.moedaestudantil.service.ReconciliationService;
+import com.example.moeda.moedaestudantil.service.RedemptionSweeper;
+import com.example.moeda.moedaestudantil.service.TokenService;
+import com.example.moeda.moedaestudantil.service.WalletBalanceCache;
+import com.example.moeda.moedaestudantil.service.WalletEventHub;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+@CrossOrigin
+public class AdminController {
+
+    private final ReconciliationService reconciliation;
+    private final OutboxService outbox;
+    private final EmailService emailService;
+    private final BenefitCatalogCache benefitCache;
+    private final TokenService tokens;
+    private final PasswordService passwords;
+    private final RedemptionSweeper sweeper;
+    private final LedgerPartitionService ledgerPartitions;
+    private final IdempotencyService idempotency;
+    private final WalletBalanceCache walletCache;
+    private final WalletEventHub walletEvents;
+    private final BenefitSearchIndex benefitSearch;
+    private final BenefitCostIndex benefitCosts;
+
+    public AdminController(ReconciliationService reconciliation,
+                           OutboxService outbox,
+                           EmailService emailService,
+                           BenefitCatalogCache benefitCache,
+                           TokenService tokens,
+                           PasswordService passwords,
+                           RedemptionSweeper sweeper,
+                           LedgerPartitionService ledgerPartitions,
+                           IdempotencyService idempotency,
+                           WalletBalanceCache walletCache,
+                           WalletEventHub walletEvents,
+                           BenefitSearchIndex benefitSearch,
+                           BenefitCostIndex benefitCosts) {
+        this.reconciliation = reconciliation;
+        this.outbox = outbox;
+        this.emailService = emailService;
+        this.benefitCache = benefitCache;
+        this.tokens = tokens;
+        this.passwords = passwords;
+        this.sweeper = sweeper;
+        this.ledgerPartitions = ledgerPartitions;
+        this.idempotency = idempotency;
+        this.walletCache = walletCache;
+        this.walletEvents = walletEvents;
+        this.benefitSearch = benefitSearch;
+        this.benefitCosts = benefitCosts;
+    }
+
+    // Última reconciliação + carteiras cujo saldo não bate com o ledger
+    @GetMapping("/reconciliation")
+    public ResponseEntity<?> report() {
+        Map<String, Object> resp = new HashMap<>();
+        resp.put("lastRun", reconciliation.lastRun().orElse(null));
+        resp.put("drift", reconciliation.drifted());
+        return ResponseEntity.ok(resp);
+    }
+
+    @PostMapping("/reconciliation/run")
+    public ResponseEntity<?> run() {
+        return ResponseEntity.ok(reconciliation.run());
+    }
+
+    // Expira/estorna códigos vencidos e arquiva resgates antigos agora
+    @PostMapping("/redemptions/sweep")
+    public ResponseEntity<?> sweepRedemptions() {
+        return ResponseEntity.ok(sweeper.sweepNow());
+    }
+
+    // Partições mensais do ledger (linhas aproximadas e tamanho em disco)
+    @GetMapping("/ledger/partitions")
+    public ResponseEntity<?> ledgerPartitions() {
+        return ResponseEntity.ok(ledgerPartitions.list());
+    }
+
+    // Exporta para .csv.gz e remove as partições fora do período de retenção
+    @PostMapping("/ledger/archive")
+    public ResponseEntity<?> archiveLedger() {
+        return ResponseEntity.ok(Map.of("archived", ledgerPartitions.archiveOld()));
+    }
+
+    // E-mails que esgotaram as tentativas (dead letter)
+    @GetMapping("/outbox/dead")
+    public ResponseEntity<?> deadLetters() {
+        return ResponseEntity.ok(outbox.dead());
+    }
+
+    @PostMapping("/outbox/{id}/retry")
+    public ResponseEntity<?> retry(@PathVariable("id") Long id) {
+        outbox.retry(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Latência, falhas e estado do circuit breaker do EmailJS
+    @GetMapping("/email/metrics")
+    public ResponseEntity<?> emailMetrics() {
+        return ResponseEntity.ok(emailService.stats());
+    }
+
+    // Hits, misses e evictions do cache do catálogo
+    @GetMapping("/cache/benefits")
+    public ResponseEntity<?> benefitCacheStats() {
+        return ResponseEntity.ok(benefitCache.stats());
+    }
+
+    // Hits, misses e evictions do cache de saldos
+    @GetMapping("/cache/wallets")
+    public ResponseEntity<?> walletCacheStats() {
+        return ResponseEntity.ok(walletCache.stats());
+    }
+
+    // Tokens em cache, verificações HMAC e rejeitados
+    @GetMapping("/auth/tokens")
+    public ResponseEntity<?> tokenStats() {
+        return ResponseEntity.ok(tokens.stats());
+    }
+
+    // Pool do BCrypt: ativos, fila, recusados e rehashes feitos no login
+    @GetMapping("/auth/passwords")
+    public ResponseEntity<?> passwordStats() {
+        return ResponseEntity.ok(passwords.stats());
+    }
+
+    // Execuções e repetições servidas pelo Idempotency-Key
+    @GetMapping("/idempotency")
+    public ResponseEntity<?> idempotencyStats() {
+        return ResponseEntity.ok(idempotency.stats());
+    }
+
+    // Conexões SSE abertas, eventos enviados e clientes lentos desconectados
+    @GetMapping("/events")
+    public ResponseEntity<?> eventStats() {
+        return ResponseEntity.ok(walletEvents.stats());
+    }
+
+    // Documentos, termos e latência média da busca de benefícios; índice por custo
+    @GetMapping("/search")
+    public ResponseEntity<?> searchStats() {
+        return ResponseEntity.ok(Map.of("search", benefitSearch.stats(), "custo", benefitCosts.stats()));
+    }
+
+    // Reconstrói os índices do catálogo a partir do banco (ex.: após carga manual de benefícios)
+    @PostMapping("/search/rebuild")
+    public ResponseEntity<?> rebuildSearch() {
+        benefitSearch.rebuild();
+        benefitCosts.rebuild();
+        return ResponseEntity.ok(Map.of("search", benefitSearch.stats(), "custo", benefitCosts.stats()));
+    }
+}
@@ -1,20 +1,20 @@
 package com.example.moeda.moedaestudantil.api;
 
-import com.example.moeda.moedaestudantil.domain.BenefitRedemption;
-import com.example.moeda.moedaestudantil.domain.LedgerKind;
 import com.example.moeda.moedaestudantil.domain.UserType;
-import com.example.moeda.moedaestudantil.repo.BenefitRedemptionRepository;
-import com.example.moeda.moedaestudantil.repo.LedgerRepository;
 import com.example.moeda.moedaestudantil.service.AlunoService;
-import com.example.moeda.moedaestudantil.service.BenefitService;
-import com.example.moeda.moedaestudantil.service.EmailService;
+import com.example.moeda.moedaestudantil.service.BenefitCostIndex;
+import com.example.moeda.moedaestudantil.service.DashboardService;
+import com.example.moeda.moedaestudantil.service.IdempotencyService;
+import com.example.moeda.moedaestudantil.service.LedgerService;
+import com.example.moeda.moedaestudantil.service.RedemptionService;
+import com.example.moeda.moedaestudantil.service.WalletEventHub;
 import com.example.moeda.moedaestudantil.service.WalletService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.security.SecureRandom;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.Map;
 
 @RestController
@@ -24,29 +24,31 @@ public class AlunoController {
 
     private final AlunoService alunoService;
     private final WalletService walletService;
-    private final LedgerRepository ledgerRepo;
-    private final BenefitService benefitService;
-    private final BenefitRedemptionRepository redemptionRepo;
-    private final EmailService emailService; // <<< agora usamos EmailService (EmailJS)
-
-    // gerador de código
-    private final SecureRandom random = new SecureRandom();
-    private static final String CODE_CHARS = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
+    private final LedgerService ledger;
+    private final RedemptionService redemptionService;
+    private final IdempotencyService idempotency;
+    private final DashboardService dashboard;
+    private final WalletEventHub events;
+    private final BenefitCostIndex costs;
 
     public AlunoController(
             AlunoService alunoService,
             WalletService walletService,
-            LedgerRepository ledgerRepo,
-            BenefitService benefitService,
-            BenefitRedemptionRepository redemptionRepo,
-            EmailService emailService
+            LedgerService ledger,
+            RedemptionService redemptionService,
+            IdempotencyService idempotency,
+            DashboardService dashboard,
+            WalletEventHub events,
+            BenefitCostIndex costs
     ) {
         this.alunoService = alunoService;
         this.walletService = walletService;
-        this.ledgerRepo = ledgerRepo;
-        this.benefitService = benefitService;
-        this.redemptionRepo = redemptionRepo;
-        this.emailService = emailService;
+        this.ledger = ledger;
+        this.redemptionService = redemptionService;
+        this.idempotency = idempotency;
+        this.dashboard = dashboard;
+        this.events = events;
+        this.costs = costs;
     }
 
     @GetMapping("/{id}")
@@ -67,91 +69,61 @@ public class AlunoController {
         return ResponseEntity.noContent().build();
     }
 
+    // Perfil, saldo, extrato e catálogo numa chamada só (partes buscadas em paralelo)
+    @GetMapping("/{id}/dashboard")
+    public ResponseEntity<?> dashboard(@PathVariable("id") Long id) {
+        return ResponseEntity.ok(dashboard.aluno(id));
+    }
+
+    // SSE: saldo e extrato ao vivo (EventSource; token via ?access_token=)
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@PathVariable("id") Long id) {
+        return events.subscribe(UserType.ALUNO, id);
+    }
+
     @GetMapping("/{id}/wallet")
     public ResponseEntity<?> saldo(@PathVariable("id") Long id) {
-        var w = walletService.getOrCreate(UserType.ALUNO, id);
-        return ResponseEntity.ok(Map.of("saldo", w.getSaldo()));
+        return ResponseEntity.ok(Map.of("saldo", walletService.balance(UserType.ALUNO, id)));
     }
 
     @GetMapping("/{id}/ledger")
-    public ResponseEntity<?> ledger(@PathVariable("id") Long id) {
-        return ResponseEntity.ok(
-                ledgerRepo.findByFromTypeAndFromIdOrToTypeAndToIdOrderByTsDesc(
-                        UserType.ALUNO, id, UserType.ALUNO, id
-                )
-        );
+    public ResponseEntity<?> ledger(@PathVariable("id") Long id,
+                                    @RequestParam(value = "cursor", required = false) String cursor,
+                                    @RequestParam(value = "limit", required = false) Integer limit,
+                                    @RequestParam(value = "since", required = false) String since) {
+        return ResponseEntity.ok(ledger.page(UserType.ALUNO, id, cursor, limit, since));
+    }
+
+    // Benefícios que cabem no saldo atual, por custo (sort=custo | custo_desc), paginado
+    @GetMapping("/{id}/beneficios/affordable")
+    public ResponseEntity<?> affordable(@PathVariable("id") Long id,
+                                        @RequestParam(value = "sort", required = false) String sort,
+                                        @RequestParam(value = "page", required = false) Integer page,
+                                        @RequestParam(value = "size", required = false) Integer size) {
+        var saldo = walletService.balance(UserType.ALUNO, id);
+        return ResponseEntity.ok(costs.affordable(saldo, sort, page, size));
     }
 
+    // Com Idempotency-Key, repetir o POST devolve o mesmo código sem debitar de novo
     @PostMapping("/{id}/redeem/{benefitId}")
     public ResponseEntity<?> redeem(@PathVariable("id") Long id,
-                                    @PathVariable("benefitId") Long benefitId) {
-
-        // 1) acha o benefício ativo
-        var b = benefitService.listAllActive().stream()
-                .filter(x -> x.getId().equals(benefitId))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Benefício não encontrado"));
-
-        // 2) transfere moedas do ALUNO -> EMPRESA
-        walletService.transfer(
-                UserType.ALUNO, id,
-                UserType.EMPRESA, b.getEmpresaId(),
-                b.getCusto(),
-                "Resgate: " + b.getTitulo(),
-                LedgerKind.REDEEM
-        );
-
-        // 3) gera código de resgate
-        String code = generateCode();
-
-        Instant now = Instant.now();
-        Instant expiresAt = now.plus(1, ChronoUnit.DAYS); // expira em 24h
-
-        var redemption = BenefitRedemption.builder()
-                .alunoId(id)
-                .empresaId(b.getEmpresaId())
-                .benefitId(b.getId())
-                .code(code)
-                .createdAt(now)
-                .expiresAt(expiresAt)
-                .used(false)
-                .build();
-
-        redemptionRepo.save(redemption);
-
-        // 4) Envia e-mail para o aluno via EmailJS
-        try {
-            var aluno = alunoService.get(id); // lança se não existir
-
-            emailService.sendBenefitRedemptionEmail(
-                    aluno.getEmail(),
-                    aluno.getNome(),
-                    b.getTitulo(),
-                    b.getCusto(),
-                    code
+                                    @PathVariable("benefitId") Long benefitId,
+                                    @RequestHeader(value = IdempotencyService.HEADER, required = false) String idemKey) {
+        return idempotency.execute("ALUNO:" + id + ":redeem", idemKey, benefitId, () -> {
+            // 1-4) benefício pela PK, débito ALUNO -> EMPRESA, código e e-mail (outbox), numa transação só
+            var result = redemptionService.redeem(id, benefitId);
+            var b = result.benefit();
+            String code = result.redemption().getCode();
+            Instant expiresAt = result.redemption().getExpiresAt();
+
+            // 5) devolve o código para o frontend exibir para o aluno
+            Map<String, Object> resp = Map.of(
+                    "code", code,
+                    "expiresAt", expiresAt.toString(),
+                    "benefitTitle", b.getTitulo()
             );
-        } catch (Exception e) {
-            // Não quebra o fluxo do resgate se o e-mail falhar
-            e.printStackTrace();
-        }
-
-        // 5) devolve o código para o frontend exibir para o aluno
-        Map<String, Object> resp = Map.of(
-                "code", code,
-                "expiresAt", expiresAt.toString(),
-                "benefitTitle", b.getTitulo()
-        );
-
-        return ResponseEntity.ok(resp);
-    }
 
-    // ====== helper ======
-    private String generateCode() {
-        StringBuilder sb = new StringBuilder(8); // 8 caracteres
-        for (int i = 0; i < 8; i++) {
-            int idx = random.nextInt(CODE_CHARS.length());
-            sb.append(CODE_CHARS.charAt(idx));
-        }
-        return sb.toString();
+            return ResponseEntity.ok(resp);
+        });
     }
 }
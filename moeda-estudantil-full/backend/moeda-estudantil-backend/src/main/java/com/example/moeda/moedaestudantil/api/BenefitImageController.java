@@ -1,47 +1,128 @@
 package com.example.moeda.moedaestudantil.api;
 
-import com.example.moeda.moedaestudantil.domain.Benefit;
-import com.example.moeda.moedaestudantil.repo.BenefitRepository;
+import com.example.moeda.moedaestudantil.domain.BenefitImage;
+import com.example.moeda.moedaestudantil.domain.ImageVariant;
+import com.example.moeda.moedaestudantil.repo.BenefitImageRepository;
+import com.example.moeda.moedaestudantil.service.BenefitImageStore;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Optional;
+import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/api")
 @CrossOrigin
 public class BenefitImageController {
 
-    private final BenefitRepository repo;
+    // URL com ?v={hash} nunca muda de conteúdo: pode ficar em cache "para sempre"
+    private static final CacheControl VERSIONED = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+    // URL sem versão: o navegador guarda, mas revalida com If-None-Match
+    private static final CacheControl UNVERSIONED = CacheControl.noCache().cachePublic();
+    // ?v= é o hash (sha-256 hex) do upload, o mesmo formato das chaves do BenefitImageStore
+    private static final Pattern VERSION = Pattern.compile("[0-9a-f]{64}");
 
-    public BenefitImageController(BenefitRepository repo) {
-        this.repo = repo;
+    private final BenefitImageRepository images;
+    private final BenefitImageStore store;
+
+    public BenefitImageController(BenefitImageRepository images, BenefitImageStore store) {
+        this.images = images;
+        this.store = store;
     }
 
     @GetMapping("/beneficios/{id}/image")
-    public ResponseEntity<byte[]> getImage(@PathVariable("id") Long id) {
+    public ResponseEntity<Resource> getImage(@PathVariable("id") Long id,
+                                             @RequestParam(value = "size", required = false) String size,
+                                             @RequestParam(value = "v", required = false) String version,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         // ↑↑↑ AQUI é o ponto importante: @PathVariable("id")
 
-        Optional<Benefit> opt = repo.findById(id);
+        ImageVariant variant;
+        try {
+            variant = ImageVariant.fromParam(size); // thumb | medium | original
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // URL versionada + ETag igual à versão: o conteúdo é endereçado pelo hash
+        // do upload, então dá para responder 304 sem nem consultar o banco.
+        // Aqui "*" não vale: sem consulta não sabemos se a imagem existe
+        if (version != null && VERSION.matcher(version).matches()
+                && etagMatches(ifNoneMatch, etag(version, variant), false)) {
+            return notModified(etag(version, variant), VERSIONED);
+        }
+
+        // só os metadados vêm do banco; os bytes saem direto do disco.
+        // Variante ainda não gerada (pipeline assíncrono) → serve o original, sem cache longo
+        Optional<BenefitImage> opt = images.findByBenefitIdAndVariant(id, variant);
+        if (opt.isEmpty() && variant != ImageVariant.ORIGINAL) {
+            opt = images.findByBenefitIdAndVariant(id, ImageVariant.ORIGINAL);
+        }
         if (opt.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
 
-        Benefit b = opt.get();
+        BenefitImage img = opt.get();
+        String source = img.getSourceKey() != null ? img.getSourceKey() : img.getStorageKey();
+        String etag = etag(source, img.getVariant());
+        CacheControl cache = img.getVariant() == variant && source.equals(version) ? VERSIONED : UNVERSIONED;
 
-        if (b.getFoto() == null || b.getFoto().length == 0) {
-            return ResponseEntity.notFound().build();
+        // Original ainda cru (o pipeline pode trocá-lo pela versão reduzida): ETag
+        // próprio e sem cache longo, para o navegador não guardar o upload grande
+        if (img.getVariant() == ImageVariant.ORIGINAL && source.equals(img.getStorageKey())
+                && !images.existsByBenefitIdAndVariant(id, ImageVariant.THUMB)) {
+            etag = "\"" + source + "-pending\"";
+            cache = UNVERSIONED;
         }
 
-        String ct = b.getFotoContentType();
-        if (ct == null || ct.isBlank()) {
-            ct = "image/jpeg"; // default
+        if (etagMatches(ifNoneMatch, etag, true)) {
+            return notModified(etag, cache);
         }
 
+        Path file = store.resolve(img.getStorageKey());
+        if (!Files.isReadable(file)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        // Corpo como Resource: o Spring faz o streaming do arquivo e atende
+        // cabeçalhos Range (206 Partial Content) automaticamente
         return ResponseEntity
                 .ok()
-                .header(HttpHeaders.CONTENT_TYPE, ct)
-                .body(b.getFoto());
+                .header(HttpHeaders.CONTENT_TYPE, img.getContentType())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .eTag(etag)
+                .cacheControl(cache)
+                .body(new FileSystemResource(file));
+    }
+
+    // ====== helpers ======
+    // ETag = hash do upload (+ variante); o conteúdo de cada variante é determinístico
+    private static String etag(String hash, ImageVariant variant) {
+        return variant == ImageVariant.ORIGINAL
+                ? "\"" + hash + "\""
+                : "\"" + hash + "-" + variant.name().toLowerCase() + "\"";
+    }
+
+    // wildcard: "*" casa com qualquer representação existente (só depois de achar a imagem)
+    private static boolean etagMatches(String ifNoneMatch, String etag, boolean wildcard) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String c = candidate.trim();
+            if (c.startsWith("W/")) c = c.substring(2); // If-None-Match usa comparação fraca
+            if ((wildcard && c.equals("*")) || c.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    private static ResponseEntity<Resource> notModified(String etag, CacheControl cache) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cache).build();
     }
 }
@@ -5,13 +5,19 @@ import com.example.moeda.moedaestudantil.domain.UserType;
 import com.example.moeda.moedaestudantil.dto.BenefitDtos.Create;
 import com.example.moeda.moedaestudantil.dto.TransferDtos.GrantProfessor;
 import com.example.moeda.moedaestudantil.service.BenefitService;
+import com.example.moeda.moedaestudantil.service.DashboardService;
 import com.example.moeda.moedaestudantil.service.EmpresaService;
+import com.example.moeda.moedaestudantil.service.IdempotencyService;
+import com.example.moeda.moedaestudantil.service.LedgerService;
+import com.example.moeda.moedaestudantil.service.RedemptionService;
+import com.example.moeda.moedaestudantil.service.WalletEventHub;
 import com.example.moeda.moedaestudantil.service.WalletService;
-import com.example.moeda.moedaestudantil.repo.LedgerRepository;
 import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
 import java.util.Map;
@@ -24,18 +30,30 @@ public class EmpresaController {
     private final EmpresaService svc;
     private final BenefitService benefits;
     private final WalletService wallet;
-    private final LedgerRepository ledgerRepo;
+    private final LedgerService ledger;
+    private final RedemptionService redemptions;
+    private final IdempotencyService idempotency;
+    private final DashboardService dashboard;
+    private final WalletEventHub events;
 
     public EmpresaController(
             EmpresaService svc,
             BenefitService benefits,
             WalletService wallet,
-            LedgerRepository ledgerRepo
+            LedgerService ledger,
+            RedemptionService redemptions,
+            IdempotencyService idempotency,
+            DashboardService dashboard,
+            WalletEventHub events
     ) {
         this.svc = svc;
         this.benefits = benefits;
         this.wallet = wallet;
-        this.ledgerRepo = ledgerRepo;
+        this.ledger = ledger;
+        this.redemptions = redemptions;
+        this.idempotency = idempotency;
+        this.dashboard = dashboard;
+        this.events = events;
     }
 
     @GetMapping("/{id}")
@@ -43,6 +61,18 @@ public class EmpresaController {
         return ResponseEntity.ok(svc.get(id));
     }
 
+    // Perfil, saldo, extrato e catálogo numa chamada só (partes buscadas em paralelo)
+    @GetMapping("/{id}/dashboard")
+    public ResponseEntity<?> dashboard(@PathVariable("id") Long id) {
+        return ResponseEntity.ok(dashboard.empresa(id));
+    }
+
+    // SSE: saldo e extrato ao vivo (EventSource; token via ?access_token=)
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@PathVariable("id") Long id) {
+        return events.subscribe(UserType.EMPRESA, id);
+    }
+
     // POST antigo JSON (sem foto) – continua funcionando
     @PostMapping("/{id}/beneficios")
     public ResponseEntity<?> createBenefit(@PathVariable("id") Long id,
@@ -61,50 +91,68 @@ public class EmpresaController {
             @RequestParam(value = "foto", required = false) MultipartFile foto
     ) throws IOException {
 
-        byte[] bytes = null;
-        String contentType = null;
-
-        if (foto != null && !foto.isEmpty()) {
-            bytes = foto.getBytes();
-            contentType = foto.getContentType();
+        if (foto == null || foto.isEmpty()) {
+            Long benefitId = benefits.createWithImage(id, titulo, descricao, custo, null, null);
+            return ResponseEntity.ok(Map.of("benefitId", benefitId));
         }
 
-        Long benefitId = benefits.createWithImage(id, titulo, descricao, custo, bytes, contentType);
-        return ResponseEntity.ok(Map.of("benefitId", benefitId));
+        // repassa o stream do upload: o arquivo não é carregado inteiro em memória
+        try (var in = foto.getInputStream()) {
+            Long benefitId = benefits.createWithImage(id, titulo, descricao, custo, in, foto.getContentType());
+            return ResponseEntity.ok(Map.of("benefitId", benefitId));
+        }
     }
 
     // Lista benefícios da empresa
     @GetMapping("/{id}/beneficios")
-    public ResponseEntity<?> listBenefits(@PathVariable("id") Long id) {
-        return ResponseEntity.ok(benefits.listByEmpresa(id));
+    public ResponseEntity<byte[]> listBenefits(@PathVariable("id") Long id) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(benefits.listByEmpresaJson(id));
     }
 
     @GetMapping("/{id}/wallet")
     public ResponseEntity<?> saldo(@PathVariable("id") Long id) {
-        var w = wallet.getOrCreate(UserType.EMPRESA, id);
-        return ResponseEntity.ok(Map.of("saldo", w.getSaldo()));
+        return ResponseEntity.ok(Map.of("saldo", wallet.balance(UserType.EMPRESA, id)));
     }
 
     @GetMapping("/{id}/ledger")
-    public ResponseEntity<?> ledger(@PathVariable("id") Long id) {
-        return ResponseEntity.ok(
-                ledgerRepo.findByFromTypeAndFromIdOrToTypeAndToIdOrderByTsDesc(
-                        UserType.EMPRESA, id,
-                        UserType.EMPRESA, id
-                )
-        );
+    public ResponseEntity<?> ledger(@PathVariable("id") Long id,
+                                    @RequestParam(value = "cursor", required = false) String cursor,
+                                    @RequestParam(value = "limit", required = false) Integer limit,
+                                    @RequestParam(value = "since", required = false) String since) {
+        return ResponseEntity.ok(ledger.page(UserType.EMPRESA, id, cursor, limit, since));
     }
 
     @PostMapping("/{id}/grant")
     public ResponseEntity<?> grant(@PathVariable("id") Long id,
-                                   @Valid @RequestBody GrantProfessor dto) {
-        wallet.transfer(
-                UserType.EMPRESA, id,
-                UserType.PROFESSOR, dto.professorId,
-                dto.amount,
-                dto.reason,
-                LedgerKind.GRANT
-        );
-        return ResponseEntity.ok().build();
+                                   @Valid @RequestBody GrantProfessor dto,
+                                   @RequestHeader(value = IdempotencyService.HEADER, required = false) String idemKey) {
+        return idempotency.execute("EMPRESA:" + id + ":grant", idemKey, dto, () -> {
+            wallet.transfer(
+                    UserType.EMPRESA, id,
+                    UserType.PROFESSOR, dto.professorId,
+                    dto.amount,
+                    dto.reason,
+                    LedgerKind.GRANT
+            );
+            return ResponseEntity.ok().build();
+        });
+    }
+
+    // Caixa da empresa valida e consome o código apresentado pelo aluno
+    @PostMapping("/{id}/redemptions/{code}/consume")
+    public ResponseEntity<?> consumeRedemption(@PathVariable("id") Long id,
+                                               @PathVariable("code") String code) {
+        var r = redemptions.consume(id, code);
+        return switch (r.status()) {
+            case CONSUMED -> ResponseEntity.ok(Map.of(
+                    "status", r.status(),
+                    "redemptionId", r.redemptionId(),
+                    "alunoId", r.alunoId(),
+                    "benefitId", r.benefitId()));
+            case INVALID, NOT_FOUND -> ResponseEntity.status(404).body(Map.of("status", r.status()));
+            case ALREADY_USED, EXPIRED -> ResponseEntity.status(409).body(Map.of("status", r.status()));
+        };
     }
 }
@@ -1,16 +1,22 @@
 package com.example.moeda.moedaestudantil.api;
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import jakarta.validation.Valid;
 import java.util.Map;
 
 import com.example.moeda.moedaestudantil.dto.TransferDtos.GrantAluno;
+import com.example.moeda.moedaestudantil.dto.TransferDtos.GrantAlunoBatch;
 import com.example.moeda.moedaestudantil.domain.LedgerKind;
 import com.example.moeda.moedaestudantil.domain.UserType;
+import com.example.moeda.moedaestudantil.service.IdempotencyService;
+import com.example.moeda.moedaestudantil.service.DashboardService;
 import com.example.moeda.moedaestudantil.service.WalletService;
 import com.example.moeda.moedaestudantil.service.ProfessorService;
-import com.example.moeda.moedaestudantil.repo.LedgerRepository;
+import com.example.moeda.moedaestudantil.service.LedgerService;
+import com.example.moeda.moedaestudantil.service.WalletEventHub;
 
 @RestController
 @RequestMapping("/api/professores")
@@ -19,14 +25,23 @@ public class ProfessorController {
 
     private final ProfessorService svc;
     private final WalletService wallet;
-    private final LedgerRepository ledgerRepo;
+    private final LedgerService ledger;
+    private final IdempotencyService idempotency;
+    private final DashboardService dashboard;
+    private final WalletEventHub events;
 
     public ProfessorController(ProfessorService svc,
                                WalletService wallet,
-                               LedgerRepository ledgerRepo) {
+                               LedgerService ledger,
+                               IdempotencyService idempotency,
+                               DashboardService dashboard,
+                               WalletEventHub events) {
         this.svc = svc;
         this.wallet = wallet;
-        this.ledgerRepo = ledgerRepo;
+        this.ledger = ledger;
+        this.idempotency = idempotency;
+        this.dashboard = dashboard;
+        this.events = events;
     }
 
     @GetMapping("/{id}")
@@ -34,31 +49,62 @@ public class ProfessorController {
         return ResponseEntity.ok(svc.get(id));
     }
 
+    // Perfil, saldo e extrato numa chamada só (partes buscadas em paralelo)
+    @GetMapping("/{id}/dashboard")
+    public ResponseEntity<?> dashboard(@PathVariable("id") Long id) {
+        return ResponseEntity.ok(dashboard.professor(id));
+    }
+
+    // SSE: saldo e extrato ao vivo (EventSource; token via ?access_token=)
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@PathVariable("id") Long id) {
+        return events.subscribe(UserType.PROFESSOR, id);
+    }
+
     @GetMapping("/{id}/wallet")
     public ResponseEntity<?> saldo(@PathVariable("id") Long id) {
-        var w = wallet.getOrCreate(UserType.PROFESSOR, id);
-        return ResponseEntity.ok(Map.of("saldo", w.getSaldo()));
+        return ResponseEntity.ok(Map.of("saldo", wallet.balance(UserType.PROFESSOR, id)));
     }
 
     @GetMapping("/{id}/ledger")
-    public ResponseEntity<?> ledger(@PathVariable("id") Long id) {
-        return ResponseEntity.ok(
-            ledgerRepo.findByFromTypeAndFromIdOrToTypeAndToIdOrderByTsDesc(
-                UserType.PROFESSOR, id,
-                UserType.PROFESSOR, id
-            )
-        );
+    public ResponseEntity<?> ledger(@PathVariable("id") Long id,
+                                    @RequestParam(value = "cursor", required = false) String cursor,
+                                    @RequestParam(value = "limit", required = false) Integer limit,
+                                    @RequestParam(value = "since", required = false) String since) {
+        return ResponseEntity.ok(ledger.page(UserType.PROFESSOR, id, cursor, limit, since));
     }
 
     @PostMapping("/{id}/grant")
     public ResponseEntity<?> grant(@PathVariable("id") Long id,
-                                   @Valid @RequestBody GrantAluno dto) {
-        wallet.transfer(
-            UserType.PROFESSOR, id,
-            UserType.ALUNO, dto.alunoId,
-            dto.amount, dto.reason,
-            LedgerKind.GRANT
-        );
-        return ResponseEntity.ok().build();
+                                   @Valid @RequestBody GrantAluno dto,
+                                   @RequestHeader(value = IdempotencyService.HEADER, required = false) String idemKey) {
+        return idempotency.execute("PROFESSOR:" + id + ":grant", idemKey, dto, () -> {
+            wallet.transfer(
+                UserType.PROFESSOR, id,
+                UserType.ALUNO, dto.alunoId,
+                dto.amount, dto.reason,
+                LedgerKind.GRANT
+            );
+            return ResponseEntity.ok().build();
+        });
+    }
+
+    // Distribui moedas para vários alunos de uma vez (uma transação, um débito)
+    @PostMapping("/{id}/grant/batch")
+    public ResponseEntity<?> grantBatch(@PathVariable("id") Long id,
+                                        @Valid @RequestBody GrantAlunoBatch dto,
+                                        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idemKey) {
+        var credits = dto.items.stream()
+            .map(i -> new WalletService.Credit(i.alunoId, i.amount))
+            .toList();
+        return idempotency.execute("PROFESSOR:" + id + ":grant-batch", idemKey, dto, () -> {
+            int count = wallet.transferBatch(
+                UserType.PROFESSOR, id,
+                UserType.ALUNO, credits,
+                dto.reason,
+                LedgerKind.GRANT
+            );
+            return ResponseEntity.ok(Map.of("count", count));
+        });
     }
 }
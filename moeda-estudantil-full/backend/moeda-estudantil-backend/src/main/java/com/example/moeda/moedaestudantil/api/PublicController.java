@@ -1,6 +1,8 @@
 package com.example.moeda.moedaestudantil.api;
 
+import com.example.moeda.moedaestudantil.service.BenefitSearchIndex;
 import com.example.moeda.moedaestudantil.service.BenefitService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -10,14 +12,30 @@ import org.springframework.web.bind.annotation.*;
 public class PublicController {
 
   private final BenefitService benefits;
+  private final BenefitSearchIndex search;
 
-  public PublicController(BenefitService benefits) {
+  public PublicController(BenefitService benefits, BenefitSearchIndex search) {
     this.benefits = benefits;
+    this.search = search;
   }
 
   // Usado pela tela do aluno para listar benefícios disponíveis
   @GetMapping("/beneficios")
-  public ResponseEntity<?> listActive() {
-    return ResponseEntity.ok(benefits.listAllActive());
+  public ResponseEntity<byte[]> listActive() {
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(benefits.listAllActiveJson());
+  }
+
+  // Busca no catálogo ativo (índice em memória): ?q=cafe acha "Café", palavras casam por prefixo.
+  // sort = relevancia (padrão) | custo | custo_desc | titulo | recentes; page começa em 0
+  @GetMapping("/beneficios/search")
+  public ResponseEntity<?> search(@RequestParam(value = "q", required = false) String q,
+                                  @RequestParam(value = "maxCusto", required = false) Integer maxCusto,
+                                  @RequestParam(value = "empresaId", required = false) Long empresaId,
+                                  @RequestParam(value = "sort", required = false) String sort,
+                                  @RequestParam(value = "page", required = false) Integer page,
+                                  @RequestParam(value = "size", required = false) Integer size) {
+    return ResponseEntity.ok(search.search(q, maxCusto, empresaId, sort, page, size));
   }
 }
@@ -0,0 +1,45 @@
+package com.example.moeda.moedaestudantil.config;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Preenche a tabela account com os usuários criados antes dela existir.
+ *
+ * Idempotente (on conflict do nothing). Se o mesmo e-mail estiver em mais de
+ * um papel, só o primeiro (aluno, professor, empresa) ganha a conta; os demais
+ * aparecem no log para serem resolvidos manualmente.
+ */
+@Configuration
+public class AccountBackfill {
+
+  private static final String[][] ROLES = {
+      { "ALUNO", "aluno" },
+      { "PROFESSOR", "professor" },
+      { "EMPRESA", "empresa_parceira" }
+  };
+
+  @Bean
+  CommandLineRunner backfillAccounts(JdbcTemplate jdbc) {
+    return args -> {
+      for (String[] r : ROLES) {
+        int n = jdbc.update(
+            "insert into account (id, email, user_type, user_id, senha_hash, nome) "
+                + "select nextval('account_seq'), lower(trim(t.email)), '" + r[0] + "', t.id, t.senha_hash, t.nome "
+                + "from " + r[1] + " t "
+                + "where not exists (select 1 from account a where a.user_type = '" + r[0] + "' and a.user_id = t.id) "
+                + "on conflict do nothing");
+        if (n > 0) System.out.println("[AccountBackfill] " + n + " conta(s) criada(s) para " + r[1]);
+
+        var clashes = jdbc.queryForList(
+            "select t.email from " + r[1] + " t "
+                + "where not exists (select 1 from account a where a.user_type = '" + r[0] + "' and a.user_id = t.id)",
+            String.class);
+        if (!clashes.isEmpty())
+          System.err.println("[AccountBackfill] e-mail já usado por outro papel (" + r[1] + "): " + clashes);
+      }
+    };
+  }
+}
@@ -0,0 +1,90 @@
+package com.example.moeda.moedaestudantil.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+  // Processamento de imagens é CPU-bound: poucas threads e fila limitada,
+  // para não competir com as threads do Tomcat. Fila cheia = a imagem fica
+  // pendente e a varredura do BenefitImagePipeline processa depois (nunca na
+  // thread da requisição).
+  @Bean(name = "imageExecutor")
+  public ThreadPoolTaskExecutor imageExecutor() {
+    int cores = Runtime.getRuntime().availableProcessors();
+    ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
+    ex.setThreadNamePrefix("image-");
+    ex.setCorePoolSize(Math.max(1, cores / 2));
+    ex.setMaxPoolSize(Math.max(1, cores / 2));
+    ex.setQueueCapacity(200);
+    ex.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+    ex.initialize();
+    return ex;
+  }
+
+  // Envio de e-mails do outbox: I/O bloqueante (SMTP/HTTP), pool pequeno e fila limitada.
+  // O OutboxWorker só reserva mensagens quando há espaço na fila.
+  @Bean(name = "mailExecutor")
+  public ThreadPoolTaskExecutor mailExecutor() {
+    ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
+    ex.setThreadNamePrefix("mail-");
+    ex.setCorePoolSize(4);
+    ex.setMaxPoolSize(4);
+    ex.setQueueCapacity(100);
+    ex.initialize();
+    return ex;
+  }
+
+  // BCrypt é CPU-bound e caro de propósito: metade dos núcleos no máximo e fila curta.
+  // Fila cheia = TaskRejectedException, que o PasswordService devolve como 503.
+  @Bean(name = "passwordExecutor")
+  public ThreadPoolTaskExecutor passwordExecutor(
+      @Value("${app.auth.bcrypt-queue:64}") int queue) {
+    int cores = Runtime.getRuntime().availableProcessors();
+    ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
+    ex.setThreadNamePrefix("bcrypt-");
+    ex.setCorePoolSize(Math.max(1, cores / 2));
+    ex.setMaxPoolSize(Math.max(1, cores / 2));
+    ex.setQueueCapacity(queue);
+    ex.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+    ex.initialize();
+    return ex;
+  }
+
+  // Montagem do dashboard: consultas curtas ao banco em paralelo (perfil, saldo, extrato, catálogo).
+  // Limitado para não esgotar o pool do Hikari; fila cheia = a thread da requisição faz a parte dela.
+  @Bean(name = "dashboardExecutor")
+  public ThreadPoolTaskExecutor dashboardExecutor(
+      @Value("${app.dashboard.threads:8}") int threads,
+      @Value("${app.dashboard.queue:200}") int queue) {
+    ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
+    ex.setThreadNamePrefix("dashboard-");
+    ex.setCorePoolSize(threads);
+    ex.setMaxPoolSize(threads);
+    ex.setQueueCapacity(queue);
+    ex.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+    ex.initialize();
+    return ex;
+  }
+
+  // Envio dos eventos SSE: a escrita no socket é rápida, a não ser para cliente lento,
+  // e esse é desconectado pelo WalletEventHub. Fila cheia = evento espera o próximo ping.
+  @Bean(name = "eventsExecutor")
+  public ThreadPoolTaskExecutor eventsExecutor(
+      @Value("${app.events.threads:4}") int threads,
+      @Value("${app.events.queue:10000}") int queue) {
+    ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
+    ex.setThreadNamePrefix("sse-");
+    ex.setCorePoolSize(threads);
+    ex.setMaxPoolSize(threads);
+    ex.setQueueCapacity(queue);
+    ex.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+    ex.initialize();
+    return ex;
+  }
+}
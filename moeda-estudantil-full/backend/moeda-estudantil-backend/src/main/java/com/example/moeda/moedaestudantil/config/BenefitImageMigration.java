@@ -0,0 +1,59 @@
+package com.example.moeda.moedaestudantil.config;
+
+import com.example.moeda.moedaestudantil.domain.BenefitImage;
+import com.example.moeda.moedaestudantil.repo.BenefitImageRepository;
+import com.example.moeda.moedaestudantil.service.BenefitImageStore;
+import com.example.moeda.moedaestudantil.domain.ImageVariant;
+import com.example.moeda.moedaestudantil.service.BenefitImageUploaded;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+/**
+ * Migra as fotos antigas (coluna bytea benefit.foto) para o BenefitImageStore.
+ * Processa uma linha por vez e, ao final, remove as colunas antigas.
+ */
+@Configuration
+public class BenefitImageMigration {
+
+  @Bean
+  CommandLineRunner migrateLegacyBenefitPhotos(JdbcTemplate jdbc, BenefitImageRepository images, BenefitImageStore store,
+                                                ApplicationEventPublisher events) {
+    return args -> {
+      Integer cols = jdbc.queryForObject(
+          "select count(*) from information_schema.columns where table_name = 'benefit' and column_name = 'foto'",
+          Integer.class);
+      if (cols == null || cols == 0) return;
+
+      List<Long> ids = jdbc.queryForList("select id from benefit where foto is not null", Long.class);
+      for (Long id : ids) {
+        if (!images.existsByBenefitIdAndVariant(id, ImageVariant.ORIGINAL)) {
+          var row = jdbc.queryForMap("select foto, foto_content_type from benefit where id = ?", id);
+          byte[] foto = (byte[]) row.get("foto");
+          String ct = (String) row.get("foto_content_type");
+          var stored = store.put(new ByteArrayInputStream(foto));
+          images.save(BenefitImage.builder()
+              .benefitId(id)
+              .storageKey(stored.key())
+              .sourceKey(stored.key())
+              .contentType(ct == null || ct.isBlank() ? "image/jpeg" : ct)
+              .sizeBytes(stored.size())
+              .build());
+        }
+        events.publishEvent(new BenefitImageUploaded(id));
+        images.findByBenefitIdAndVariant(id, ImageVariant.ORIGINAL).ifPresent(img ->
+            jdbc.update("update benefit set foto_hash = ? where id = ?", img.getStorageKey(), id));
+        jdbc.update("update benefit set foto = null where id = ?", id);
+      }
+
+      jdbc.execute("alter table benefit drop column if exists foto");
+      jdbc.execute("alter table benefit drop column if exists foto_content_type");
+      System.out.println("[BenefitImageMigration] " + ids.size() + " foto(s) migrada(s) para o store em disco");
+    };
+  }
+}
@@ -8,15 +8,21 @@ import com.example.moeda.moedaestudantil.service.*;
 import java.math.BigDecimal;
 @Configuration
 public class DataLoader {
-  @Bean CommandLineRunner seed(AlunoRepository alunoRepo, ProfessorRepository profRepo, EmpresaParceiraRepository empRepo, WalletRepository walletRepo, BenefitRepository benRepo, PasswordService password) {
+  @Bean CommandLineRunner seed(AlunoRepository alunoRepo, ProfessorRepository profRepo, EmpresaParceiraRepository empRepo, WalletRepository walletRepo, BenefitRepository benRepo, LedgerRepository ledgerRepo, AccountRepository accountRepo, PasswordService password) {
     return args -> {
       if (alunoRepo.count() == 0 && profRepo.count() == 0 && empRepo.count() == 0) {
         var a = alunoRepo.save(Aluno.builder().nome("Ana Aluna").curso("Engenharia").email("aluno@ex.com").cpf("000.000.000-00").senhaHash(password.hash("123")).build());
         var p = profRepo.save(Professor.builder().nome("Paulo Prof").cpf("111.111.111-11").email("prof@ex.com").senhaHash(password.hash("123")).build());
         var e = empRepo.save(EmpresaParceira.builder().cnpj("22.222.222/0001-22").nome("Livraria Campus").email("parceira@ex.com").senhaHash(password.hash("123")).build());
+        accountRepo.save(Account.builder().email(a.getEmail()).userType(UserType.ALUNO).userId(a.getId()).senhaHash(a.getSenhaHash()).nome(a.getNome()).build());
+        accountRepo.save(Account.builder().email(p.getEmail()).userType(UserType.PROFESSOR).userId(p.getId()).senhaHash(p.getSenhaHash()).nome(p.getNome()).build());
+        accountRepo.save(Account.builder().email(e.getEmail()).userType(UserType.EMPRESA).userId(e.getId()).senhaHash(e.getSenhaHash()).nome(e.getNome()).build());
         walletRepo.save(Wallet.builder().userType(UserType.ALUNO).userId(a.getId()).saldo(new BigDecimal("200")).build());
         walletRepo.save(Wallet.builder().userType(UserType.PROFESSOR).userId(p.getId()).saldo(new BigDecimal("1000")).build());
         walletRepo.save(Wallet.builder().userType(UserType.EMPRESA).userId(e.getId()).saldo(new BigDecimal("0")).build());
+        // saldos iniciais também entram no ledger, senão a reconciliação acusa diferença
+        ledgerRepo.save(LedgerEntry.builder().kind(LedgerKind.MINT).toType(UserType.ALUNO).toId(a.getId()).amount(200).reason("Saldo inicial").build());
+        ledgerRepo.save(LedgerEntry.builder().kind(LedgerKind.MINT).toType(UserType.PROFESSOR).toId(p.getId()).amount(1000).reason("Saldo inicial").build());
         benRepo.save(Benefit.builder().empresaId(e.getId()).titulo("10% desconto cadernos").descricao("Válido na loja física").custo(50).ativo(true).build());
       }
     };
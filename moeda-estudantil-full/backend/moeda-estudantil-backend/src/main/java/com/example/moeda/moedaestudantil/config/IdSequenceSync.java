@@ -0,0 +1,52 @@
+package com.example.moeda.moedaestudantil.config;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+
+/**
+ * Migração de IDENTITY para sequences (pooled-lo, allocationSize = 50).
+ *
+ * O ddl-auto cria cada sequence começando em 1, então adiantamos cada uma
+ * para depois do maior id existente (nunca volta a sequence para trás) e
+ * removemos o IDENTITY antigo da coluna, para que todo id venha da sequence.
+ */
+@Configuration
+public class IdSequenceSync {
+
+  // tabela -> sequence
+  private static final Map<String, String> SEQUENCES = Map.ofEntries(
+      Map.entry("aluno", "aluno_seq"),
+      Map.entry("professor", "professor_seq"),
+      Map.entry("empresa_parceira", "empresa_parceira_seq"),
+      Map.entry("wallet", "wallet_seq"),
+      Map.entry("ledger_entry", "ledger_entry_seq"),
+      Map.entry("benefit", "benefit_seq"),
+      Map.entry("benefit_image", "benefit_image_seq"),
+      Map.entry("benefit_redemption", "benefit_redemption_seq"),
+      Map.entry("wallet_checkpoint", "wallet_checkpoint_seq"),
+      Map.entry("reconciliation_run", "reconciliation_run_seq"),
+      Map.entry("outbox_message", "outbox_message_seq"),
+      Map.entry("account", "account_seq"),
+      Map.entry("idempotency_record", "idempotency_record_seq")
+  );
+  private static final int ALLOCATION_SIZE = 50;
+
+  // roda antes do DataLoader e das demais migrações
+  @Bean
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  CommandLineRunner syncIdSequences(JdbcTemplate jdbc) {
+    return args -> SEQUENCES.forEach((table, seq) -> {
+      jdbc.execute("alter table " + table + " alter column id drop identity if exists");
+      jdbc.queryForObject(
+          "select setval('" + seq + "', greatest((select coalesce(max(id), 0) from " + table + ") + " + ALLOCATION_SIZE + ", "
+              + "(select last_value from " + seq + ")))",
+          Long.class);
+    });
+  }
+}
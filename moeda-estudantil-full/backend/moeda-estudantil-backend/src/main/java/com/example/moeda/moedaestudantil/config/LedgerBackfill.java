@@ -0,0 +1,25 @@
+package com.example.moeda.moedaestudantil.config;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Entradas antigas do ledger foram gravadas com ts nulo (o builder ignorava o
+ * valor padrão). A paginação por (ts, id) não enxerga nulos, então elas
+ * recebem a época Unix e passam a aparecer no fim do histórico.
+ */
+@Configuration
+public class LedgerBackfill {
+
+  @Bean
+  CommandLineRunner backfillLedgerTimestamps(JdbcTemplate jdbc) {
+    return args -> {
+      int n = jdbc.update("update ledger_entry set ts = to_timestamp(0) where ts is null");
+      if (n > 0) System.out.println("[LedgerBackfill] " + n + " entrada(s) sem ts corrigida(s)");
+      // o check gerado pelo Hibernate para o enum não acompanha valores novos de LedgerKind
+      jdbc.execute("alter table ledger_entry drop constraint if exists ledger_entry_kind_check");
+    };
+  }
+}
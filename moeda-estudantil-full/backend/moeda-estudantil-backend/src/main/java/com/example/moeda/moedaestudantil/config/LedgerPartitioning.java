@@ -0,0 +1,26 @@
+package com.example.moeda.moedaestudantil.config;
+
+import com.example.moeda.moedaestudantil.service.LedgerPartitionService;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Particiona o ledger por mês na subida (uma vez) e garante as partições
+ * dos próximos meses. Roda logo depois do IdSequenceSync e antes do DataLoader,
+ * que já grava entradas no ledger.
+ */
+@Configuration
+public class LedgerPartitioning {
+
+  @Bean
+  @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+  CommandLineRunner partitionLedger(LedgerPartitionService partitions) {
+    return args -> {
+      partitions.convertIfNeeded();
+      partitions.ensureAhead();
+    };
+  }
+}
@@ -0,0 +1,36 @@
+package com.example.moeda.moedaestudantil.config;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Tabela de histórico dos resgates, particionada por mês de created_at.
+ * As partições são criadas pelo RedemptionSweeper conforme arquiva.
+ * Fora do ddl-auto porque o Hibernate não cria tabelas particionadas.
+ */
+@Configuration
+public class RedemptionHistoryMigration {
+
+  @Bean
+  CommandLineRunner createRedemptionHistory(JdbcTemplate jdbc) {
+    return args -> jdbc.execute("""
+        create table if not exists benefit_redemption_history (
+          id bigint not null,
+          aluno_id bigint not null,
+          empresa_id bigint not null,
+          benefit_id bigint not null,
+          code varchar(16) not null,
+          created_at timestamp(6) with time zone not null,
+          expires_at timestamp(6) with time zone not null,
+          used boolean not null,
+          used_at timestamp(6) with time zone,
+          expired_at timestamp(6) with time zone,
+          custo integer,
+          archived_at timestamp(6) with time zone not null default now(),
+          primary key (id, created_at)
+        ) partition by range (created_at)
+        """);
+  }
+}
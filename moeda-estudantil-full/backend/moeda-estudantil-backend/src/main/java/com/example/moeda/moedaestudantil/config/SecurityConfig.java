@@ -1,11 +1,22 @@
 package com.example.moeda.moedaestudantil.config;
 
+import com.example.moeda.moedaestudantil.domain.UserType;
+import com.example.moeda.moedaestudantil.service.TokenService;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.expression.WebExpressionAuthorizationManager;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -15,25 +26,58 @@ import java.util.List;
 @Configuration
 public class SecurityConfig {
 
+    // Sem sessão: cada requisição traz o token (Authorization: Bearer ...),
+    // verificado localmente pelo TokenService. O {id} das rotas de aluno,
+    // professor e empresa precisa ser o do próprio usuário do token.
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, TokenService tokens) throws Exception {
         http
             .csrf(csrf -> csrf.disable())         
             .cors(Customizer.withDefaults())     
+            .sessionManagement(s -> s.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .exceptionHandling(e -> e.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+            .addFilterBefore(new TokenAuthFilter(tokens), UsernamePasswordAuthenticationFilter.class)
             .authorizeHttpRequests(auth -> auth
+                // fim de um SSE/async: a requisição original já passou pela autorização
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers(
                     "/v3/api-docs/**",
                     "/swagger-ui/**",
-                    "/swagger-ui.html"
+                    "/swagger-ui.html",
+                    "/error"
+                ).permitAll()
+                // anônimos: login, cadastro e o reset (que só vale com o código enviado por e-mail)
+                .requestMatchers(HttpMethod.POST,
+                    "/api/auth/login",
+                    "/api/auth/*/register",
+                    "/api/auth/reset-password/request",
+                    "/api/auth/reset-password"
                 ).permitAll()
-                .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
-                .anyRequest().permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/beneficios", "/api/beneficios/**").permitAll()
+                .requestMatchers("/api/alunos/{id}/**").access(owner(UserType.ALUNO))
+                .requestMatchers("/api/professores/{id}/**").access(owner(UserType.PROFESSOR))
+                .requestMatchers("/api/empresas/{id}/**").access(owner(UserType.EMPRESA))
+                // endpoints operacionais: só da própria máquina
+                .requestMatchers("/api/admin/**").access(
+                    new WebExpressionAuthorizationManager("hasIpAddress('127.0.0.1') or hasIpAddress('::1')"))
+                .anyRequest().authenticated()
             );
 
         return http.build();
     }
 
+    private static AuthorizationManager<RequestAuthorizationContext> owner(UserType type) {
+        return (authentication, ctx) -> {
+            var auth = authentication.get();
+            boolean ok = auth != null
+                && auth.getPrincipal() instanceof TokenService.Claims c
+                && c.type() == type
+                && c.id().toString().equals(ctx.getVariables().get("id"));
+            return new AuthorizationDecision(ok);
+        };
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration cfg = new CorsConfiguration();
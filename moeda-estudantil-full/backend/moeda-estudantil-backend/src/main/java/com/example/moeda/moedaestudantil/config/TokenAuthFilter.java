@@ -0,0 +1,49 @@
+package com.example.moeda.moedaestudantil.config;
+
+import com.example.moeda.moedaestudantil.service.TokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+// Lê "Authorization: Bearer <token>" e coloca as claims no SecurityContext.
+// O EventSource do navegador não envia cabeçalhos, então só o GET .../events
+// aceita o token também em ?access_token=.
+// Não é @Component para não ser registrado duas vezes (servlet + security chain).
+public class TokenAuthFilter extends OncePerRequestFilter {
+
+    private final TokenService tokens;
+
+    public TokenAuthFilter(TokenService tokens) {
+        this.tokens = tokens;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        String header = request.getHeader("Authorization");
+        String token = null;
+        if (header != null && header.startsWith("Bearer ")) {
+            token = header.substring(7).trim();
+        } else if ("GET".equals(request.getMethod()) && request.getRequestURI().endsWith("/events")) {
+            token = request.getParameter("access_token");
+        }
+        if (token != null) {
+            TokenService.Claims claims = tokens.verify(token);
+            if (claims != null) {
+                var auth = new UsernamePasswordAuthenticationToken(
+                        claims, null, List.of(new SimpleGrantedAuthority("ROLE_" + claims.type().name())));
+                SecurityContextHolder.getContext().setAuthentication(auth);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.moeda.moedaestudantil.domain;
+import jakarta.persistence.*; 
+import lombok.*; 
+/**
+ * Índice único de login: e-mail (minúsculo) -> tipo, id do usuário e hash da senha.
+ * O login consulta só esta tabela; a unicidade do e-mail entre os três papéis
+ * é garantida pelo banco (ux_account_email), sem SELECT antes do insert.
+ */
+@Entity 
+@Getter 
+@Setter 
+@NoArgsConstructor 
+@AllArgsConstructor 
+@Builder
+@Table(
+    uniqueConstraints = @UniqueConstraint(name = "ux_account_email", columnNames = "email"),
+    indexes = @Index(name = "ux_account_user", columnList = "userType, userId", unique = true))
+public class Account {
+  @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_seq")
+  @SequenceGenerator(name = "account_seq", sequenceName = "account_seq", allocationSize = 50) private Long id;
+  @Column(nullable = false) private String email;
+  @Enumerated(EnumType.STRING) @Column(nullable = false) private UserType userType;
+  @Column(nullable = false) private Long userId;
+  @Column(nullable = false) private String senhaHash;
+  // nome de exibição devolvido no login (evita consultar a tabela do papel)
+  private String nome;
+
+  public static String normalize(String email) {
+    return email == null ? null : email.trim().toLowerCase();
+  }
+}
@@ -10,7 +10,8 @@ import java.time.Instant;
 @AllArgsConstructor 
 @Builder
 public class Aluno {
-  @Id @GeneratedValue(strategy = GenerationType.IDENTITY) private Long id;
+  @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "aluno_seq")
+  @SequenceGenerator(name = "aluno_seq", sequenceName = "aluno_seq", allocationSize = 50) private Long id;
   @NotBlank private String nome;
   @NotBlank private String curso;
   @Email @NotBlank @Column(unique = true) private String email;
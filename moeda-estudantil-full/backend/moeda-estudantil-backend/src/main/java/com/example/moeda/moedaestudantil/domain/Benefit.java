@@ -3,6 +3,7 @@ package com.example.moeda.moedaestudantil.domain;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Getter
@@ -10,10 +11,13 @@ import lombok.*;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+// Catálogo por faixa de custo ("o que o aluno pode pagar"): range scan em (ativo, custo)
+@Table(indexes = @Index(name = "ix_benefit_ativo_custo", columnList = "ativo, custo"))
 public class Benefit {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "benefit_seq")
+  @SequenceGenerator(name = "benefit_seq", sequenceName = "benefit_seq", allocationSize = 50)
   private Long id;
 
   @NotNull
@@ -29,10 +33,13 @@ public class Benefit {
 
   private boolean ativo = true;
 
-  // FOTO em bytea (SEM @Lob!)
-  @Column(name = "foto", columnDefinition = "bytea")
-  private byte[] foto;
+  // Versão para lock otimista: um resgate falha se custo/ativo mudarem no meio da transação
+  @Version
+  @ColumnDefault("0")
+  private Long version;
 
-  @Column(name = "foto_content_type")
-  private String fotoContentType;
+  // A foto fica em BenefitImage (metadados) + BenefitImageStore (bytes).
+  // Aqui só o SHA-256 dela, usado como ETag e versão da URL da imagem.
+  @Column(length = 64)
+  private String fotoHash;
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.example.moeda.moedaestudantil.domain;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Metadados da foto de um benefício, uma linha por variante (original, média, miniatura).
+ *
+ * Os bytes ficam no {@code BenefitImageStore} (disco, endereçado pelo SHA-256
+ * do conteúdo); aqui guardamos apenas a chave, o tipo e o tamanho, para que
+ * as listagens do catálogo nunca carreguem a imagem.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = { "benefitId", "variant" }))
+public class BenefitImage {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "benefit_image_seq")
+  @SequenceGenerator(name = "benefit_image_seq", sequenceName = "benefit_image_seq", allocationSize = 50)
+  private Long id;
+
+  @NotNull
+  private Long benefitId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(length = 16)
+  @Builder.Default
+  private ImageVariant variant = ImageVariant.ORIGINAL;
+
+  // SHA-256 (hex) do conteúdo = chave no store
+  @Column(nullable = false, length = 64)
+  private String storageKey;
+
+  // SHA-256 do upload original de onde esta variante foi gerada
+  @Column(length = 64)
+  private String sourceKey;
+
+  @Column(nullable = false)
+  private String contentType;
+
+  @Column(nullable = false)
+  private Long sizeBytes;
+
+  @Builder.Default
+  private Instant criadoEm = Instant.now();
+}
@@ -12,10 +12,12 @@ import java.time.Instant;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@Table(indexes = @Index(name = "ix_redemption_used_expires", columnList = "used, expiresAt"))
 public class BenefitRedemption {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "benefit_redemption_seq")
+    @SequenceGenerator(name = "benefit_redemption_seq", sequenceName = "benefit_redemption_seq", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -38,4 +40,13 @@ public class BenefitRedemption {
 
     @Column(nullable = false)
     private boolean used = false;
+
+    // preenchido quando a empresa consome o código
+    private Instant usedAt;
+
+    // preenchido pelo RedemptionSweeper quando o código expira e as moedas são estornadas
+    private Instant expiredAt;
+
+    // custo pago no resgate (o estorno usa este valor, não o custo atual do benefício)
+    private Integer custo;
 }
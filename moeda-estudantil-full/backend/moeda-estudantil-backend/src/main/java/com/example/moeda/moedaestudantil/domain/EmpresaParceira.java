@@ -11,7 +11,8 @@ import java.time.Instant;
 @Builder
 public class EmpresaParceira {
   @Id 
-  @GeneratedValue(strategy = GenerationType.IDENTITY) private Long id;
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "empresa_parceira_seq")
+  @SequenceGenerator(name = "empresa_parceira_seq", sequenceName = "empresa_parceira_seq", allocationSize = 50) private Long id;
   @NotBlank 
   @Column(unique = true) private String cnpj;
   @NotBlank private String nome;
@@ -0,0 +1,47 @@
+package com.example.moeda.moedaestudantil.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Resposta gravada para um Idempotency-Key, na mesma transação da operação.
+ * Uma repetição com a mesma chave recebe esta resposta sem executar de novo.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(
+    uniqueConstraints = @UniqueConstraint(name = "ux_idempotency_scope_key", columnNames = { "scope", "idemKey" }),
+    indexes = @Index(name = "ix_idempotency_created", columnList = "createdAt"))
+public class IdempotencyRecord {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "idempotency_record_seq")
+  @SequenceGenerator(name = "idempotency_record_seq", sequenceName = "idempotency_record_seq", allocationSize = 50)
+  private Long id;
+
+  // ex.: "PROFESSOR:7:grant" (a mesma chave pode ser usada por usuários diferentes)
+  @Column(nullable = false, length = 100)
+  private String scope;
+
+  @Column(nullable = false, length = 100)
+  private String idemKey;
+
+  // SHA-256 do corpo da requisição: mesma chave com outro corpo é recusada
+  @Column(nullable = false, length = 64)
+  private String requestHash;
+
+  private int status;
+
+  @Column(columnDefinition = "text")
+  private String response;
+
+  @Column(nullable = false)
+  @Builder.Default
+  private Instant createdAt = Instant.now();
+}
@@ -0,0 +1,18 @@
+package com.example.moeda.moedaestudantil.domain;
+
+// Tamanhos servidos em /beneficios/{id}/image?size=...; maxSize = maior lado em px.
+// O "original" também é limitado: o upload maior que isso é reduzido e recomprimido pelo pipeline.
+public enum ImageVariant {
+  THUMB(240), MEDIUM(960), ORIGINAL(2048);
+
+  private final int maxSize;
+
+  ImageVariant(int maxSize) { this.maxSize = maxSize; }
+
+  public int getMaxSize() { return maxSize; }
+
+  public static ImageVariant fromParam(String size) {
+    if (size == null || size.isBlank()) return ORIGINAL;
+    return ImageVariant.valueOf(size.trim().toUpperCase());
+  }
+}
@@ -8,10 +8,19 @@ import java.time.Instant;
 @NoArgsConstructor 
 @AllArgsConstructor 
 @Builder
+// Histórico por carteira = range scan em (tipo, id, ts, id) de cada lado da transferência
+@Table(indexes = {
+  @Index(name = "ix_ledger_from_ts", columnList = "fromType, fromId, ts, id"),
+  @Index(name = "ix_ledger_to_ts", columnList = "toType, toId, ts, id"),
+  @Index(name = "ix_ledger_ts", columnList = "ts")
+})
 public class LedgerEntry {
+  // Sequence com pooled (50 ids por ida ao banco): permite insert em batch, o que IDENTITY desativa
   @Id 
-  @GeneratedValue(strategy = GenerationType.IDENTITY) private Long id;
-  private Instant ts = Instant.now();
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_entry_seq")
+  @SequenceGenerator(name = "ledger_entry_seq", sequenceName = "ledger_entry_seq", allocationSize = 50)
+  private Long id;
+  @Builder.Default private Instant ts = Instant.now();
   @Enumerated(EnumType.STRING) private LedgerKind kind;
   @Enumerated(EnumType.STRING) private UserType fromType;
   private Long fromId;
@@ -1,2 +1,4 @@
 package com.example.moeda.moedaestudantil.domain;
-public enum LedgerKind { TRANSFER, REDEEM, GRANT }
+// MINT = moedas criadas no sistema (saldo inicial), sem carteira de origem
+// REFUND = estorno de resgate expirado (EMPRESA -> ALUNO)
+public enum LedgerKind { TRANSFER, REDEEM, GRANT, MINT, REFUND }
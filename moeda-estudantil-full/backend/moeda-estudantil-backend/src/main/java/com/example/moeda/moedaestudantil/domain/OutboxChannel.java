@@ -0,0 +1,3 @@
+package com.example.moeda.moedaestudantil.domain;
+// SMTP_HTML = MailService; EMAILJS_* = templates do EmailService
+public enum OutboxChannel { SMTP_HTML, EMAILJS_REDEEM, EMAILJS_RESET }
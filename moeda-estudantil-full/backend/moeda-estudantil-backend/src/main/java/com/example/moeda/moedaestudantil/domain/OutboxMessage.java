@@ -0,0 +1,52 @@
+package com.example.moeda.moedaestudantil.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Mensagem a enviar (e-mail), gravada na mesma transação da operação de negócio.
+ * O OutboxWorker entrega depois do commit, com novas tentativas e backoff.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(indexes = @Index(name = "ix_outbox_pending", columnList = "status, nextAttemptAt"))
+public class OutboxMessage {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_message_seq")
+  @SequenceGenerator(name = "outbox_message_seq", sequenceName = "outbox_message_seq", allocationSize = 50)
+  private Long id;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 32)
+  private OutboxChannel channel;
+
+  // parâmetros da mensagem em JSON
+  @Column(nullable = false, columnDefinition = "text")
+  private String payload;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 16)
+  @Builder.Default
+  private OutboxStatus status = OutboxStatus.PENDING;
+
+  @Builder.Default
+  private int attempts = 0;
+
+  @Builder.Default
+  private Instant nextAttemptAt = Instant.now();
+
+  @Column(columnDefinition = "text")
+  private String lastError;
+
+  @Builder.Default
+  private Instant createdAt = Instant.now();
+
+  private Instant sentAt;
+}
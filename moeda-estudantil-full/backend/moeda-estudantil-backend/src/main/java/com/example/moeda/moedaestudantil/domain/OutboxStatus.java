@@ -0,0 +1,3 @@
+package com.example.moeda.moedaestudantil.domain;
+// DEAD = esgotou as tentativas; só volta para a fila por reenvio manual
+public enum OutboxStatus { PENDING, SENT, DEAD }
@@ -0,0 +1,43 @@
+package com.example.moeda.moedaestudantil.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Código de redefinição de senha enviado por e-mail: vale uma vez e expira.
+ * Só o SHA-256 do código fica no banco; quem lê a tabela não consegue usá-lo.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(
+    uniqueConstraints = @UniqueConstraint(name = "ux_password_reset_hash", columnNames = "tokenHash"),
+    indexes = @Index(name = "ix_password_reset_expires", columnList = "expiresAt"))
+public class PasswordResetToken {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "password_reset_token_seq")
+  @SequenceGenerator(name = "password_reset_token_seq", sequenceName = "password_reset_token_seq", allocationSize = 50)
+  private Long id;
+
+  @Column(nullable = false)
+  private Long accountId;
+
+  @Column(nullable = false, length = 64)
+  private String tokenHash;
+
+  @Column(nullable = false)
+  private Instant expiresAt;
+
+  // preenchido no uso (ou quando outro código da mesma conta é usado)
+  private Instant usedAt;
+
+  @Column(nullable = false)
+  @Builder.Default
+  private Instant createdAt = Instant.now();
+}
@@ -11,7 +11,8 @@ import java.time.Instant;
 @Builder
 public class Professor {
   @Id 
-  @GeneratedValue(strategy = GenerationType.IDENTITY) private Long id;
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "professor_seq")
+  @SequenceGenerator(name = "professor_seq", sequenceName = "professor_seq", allocationSize = 50) private Long id;
   @NotBlank private String nome;
   @NotBlank 
   @Column(unique = true) private String cpf;
@@ -0,0 +1,29 @@
+package com.example.moeda.moedaestudantil.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// Uma execução da reconciliação; watermark = até onde o ledger já foi somado aos checkpoints
+@Entity
+@Table(indexes = @Index(name = "ix_reconciliation_run_watermark", columnList = "watermark"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReconciliationRun {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reconciliation_run_seq")
+  @SequenceGenerator(name = "reconciliation_run_seq", sequenceName = "reconciliation_run_seq", allocationSize = 50)
+  private Long id;
+
+  private Instant watermark;
+  private Instant startedAt;
+  private Instant finishedAt;
+  private long entriesReplayed;
+  private int walletsChecked;
+  private int walletsWithDrift;
+}
@@ -10,7 +10,8 @@ import java.math.BigDecimal;
 @Builder
 @Table(uniqueConstraints = @UniqueConstraint(columnNames = { "userType", "userId" }))
 public class Wallet {
-  @Id @GeneratedValue(strategy = GenerationType.IDENTITY) private Long id;
+  @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wallet_seq")
+  @SequenceGenerator(name = "wallet_seq", sequenceName = "wallet_seq", allocationSize = 50) private Long id;
   @Enumerated(EnumType.STRING) private UserType userType;
   private Long userId;
   private BigDecimal saldo;
@@ -0,0 +1,42 @@
+package com.example.moeda.moedaestudantil.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Saldo de uma carteira segundo o ledger, acumulado até {@code asOf}.
+ * A reconciliação soma só as entradas novas a este valor e compara com Wallet.saldo.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = { "userType", "userId" }),
+       indexes = @Index(name = "ix_checkpoint_drift", columnList = "drift"))
+public class WalletCheckpoint {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wallet_checkpoint_seq")
+  @SequenceGenerator(name = "wallet_checkpoint_seq", sequenceName = "wallet_checkpoint_seq", allocationSize = 50)
+  private Long id;
+
+  @Enumerated(EnumType.STRING)
+  private UserType userType;
+
+  private Long userId;
+
+  // soma do ledger (entradas - saídas) com ts <= asOf
+  private BigDecimal ledgerBalance;
+
+  private Instant asOf;
+
+  // Wallet.saldo - saldo esperado pelo ledger, na última verificação
+  private BigDecimal drift;
+
+  private Instant checkedAt;
+}
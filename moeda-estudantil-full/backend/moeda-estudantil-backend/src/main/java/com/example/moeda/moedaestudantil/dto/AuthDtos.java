@@ -2,6 +2,8 @@ package com.example.moeda.moedaestudantil.dto;
 
 import jakarta.validation.constraints.*;
 
+import java.time.Instant;
+
 public class AuthDtos {
 
   public static class LoginRequest {
@@ -12,7 +14,7 @@ public class AuthDtos {
     @NotBlank
     public String senha;
 
-    @NotBlank
+    // opcional: o tipo vem da tabela account (mantido por compatibilidade, é ignorado)
     public String role;
   }
 
@@ -21,6 +23,18 @@ public class AuthDtos {
     public Long id;
     public String nome;
     public String email;
+    // enviado em "Authorization: Bearer <token>" nas demais chamadas
+    public String token;
+    public Instant expiresAt;
+  }
+
+  // 2º passo do reset: código recebido por e-mail (ResetPasswordRequest é o 1º)
+  public static class ResetPasswordConfirm {
+    @NotBlank
+    public String codigo;
+
+    @NotBlank
+    public String novaSenha;
   }
 
   public static class AlunoRegister {
@@ -4,6 +4,9 @@ import com.example.moeda.moedaestudantil.domain.Benefit;
 import jakarta.validation.constraints.*;
 import lombok.Getter;
 
+import java.math.BigDecimal;
+import java.util.List;
+
 public class BenefitDtos {
 
   // DTO usado no POST JSON antigo
@@ -24,6 +27,8 @@ public class BenefitDtos {
     private String descricao;
     private Integer custo;
     private boolean ativo;
+    // SHA-256 da foto (null = sem foto); o front usa em /beneficios/{id}/image?v={fotoHash}
+    private String fotoHash;
 
     public View(Benefit b) {
       this.id = b.getId();
@@ -32,6 +37,39 @@ public class BenefitDtos {
       this.descricao = b.getDescricao();
       this.custo = b.getCusto();
       this.ativo = b.isAtivo();
+      this.fotoHash = b.getFotoHash();
+    }
+  }
+
+  // Resultado do GET /beneficios/search; total = quantos casam com a busca e os filtros
+  public static class SearchPage {
+    public List<View> items;
+    public long total;
+    public int page;
+    public int size;
+
+    public SearchPage(List<View> items, long total, int page, int size) {
+      this.items = items;
+      this.total = total;
+      this.page = page;
+      this.size = size;
+    }
+  }
+
+  // Resultado do GET /alunos/{id}/beneficios/affordable; total = quantos cabem no saldo
+  public static class AffordablePage {
+    public List<View> items;
+    public BigDecimal saldo;
+    public long total;
+    public int page;
+    public int size;
+
+    public AffordablePage(List<View> items, BigDecimal saldo, long total, int page, int size) {
+      this.items = items;
+      this.saldo = saldo;
+      this.total = total;
+      this.page = page;
+      this.size = size;
     }
   }
 }
@@ -0,0 +1,22 @@
+package com.example.moeda.moedaestudantil.dto;
+
+import com.example.moeda.moedaestudantil.domain.LedgerEntry;
+
+import java.time.Instant;
+import java.util.List;
+
+public class LedgerDtos {
+
+  // Página do histórico; nextCursor = null quando não há mais entradas desde "since"
+  public static class Page {
+    public List<LedgerEntry> items;
+    public String nextCursor;
+    public Instant since;
+
+    public Page(List<LedgerEntry> items, String nextCursor, Instant since) {
+      this.items = items;
+      this.nextCursor = nextCursor;
+      this.since = since;
+    }
+  }
+}
@@ -3,17 +3,18 @@ package com.example.moeda.moedaestudantil.dto;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 
+/**
+ * Redefinição de senha em dois passos:
+ *  1) POST /api/auth/reset-password/request { email } -> código por e-mail
+ *  2) POST /api/auth/reset-password { codigo, novaSenha } (AuthDtos.ResetPasswordConfirm)
+ */
 public class ResetPasswordRequest {
 
     @NotBlank
     @Email
     private String email;
 
-    @NotBlank
-    private String role; // "ALUNO", "PROFESSOR", "EMPRESA"
-
-    @NotBlank
-    private String novaSenha;
+    private String role; // opcional/ignorado: o tipo vem da tabela account
 
     // getters e setters
 
@@ -32,12 +33,4 @@ public class ResetPasswordRequest {
     public void setRole(String role) {
         this.role = role;
     }
-
-    public String getNovaSenha() {
-        return novaSenha;
-    }
-
-    public void setNovaSenha(String novaSenha) {
-        this.novaSenha = novaSenha;
-    }
 }
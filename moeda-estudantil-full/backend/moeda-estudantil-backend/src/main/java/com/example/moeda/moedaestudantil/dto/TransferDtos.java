@@ -1,6 +1,11 @@
 package com.example.moeda.moedaestudantil.dto;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
+import java.util.List;
 public class TransferDtos {
   public static class GrantAluno { @NotNull public Long alunoId; @Min(1) public Integer amount; public String reason; }
   public static class GrantProfessor { @NotNull public Long professorId; @Min(1) public Integer amount; public String reason; }
+  // Distribuição para a turma inteira numa transação só
+  public static class GrantAlunoBatch { @NotEmpty @Size(max = 500) public List<@Valid Item> items; public String reason;
+    public static class Item { @NotNull public Long alunoId; @NotNull @Min(1) public Integer amount; } }
 }
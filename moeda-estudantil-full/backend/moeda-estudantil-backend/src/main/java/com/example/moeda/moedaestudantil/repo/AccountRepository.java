@@ -0,0 +1,10 @@
+package com.example.moeda.moedaestudantil.repo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import com.example.moeda.moedaestudantil.domain.Account;
+import com.example.moeda.moedaestudantil.domain.UserType;
+import java.util.Optional;
+public interface AccountRepository extends JpaRepository<Account, Long> {
+  Optional<Account> findByEmail(String email);
+  Optional<Account> findByUserTypeAndUserId(UserType userType, Long userId);
+  void deleteByUserTypeAndUserId(UserType userType, Long userId);
+}
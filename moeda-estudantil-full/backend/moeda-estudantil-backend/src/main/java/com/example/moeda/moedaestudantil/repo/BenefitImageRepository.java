@@ -0,0 +1,37 @@
+package com.example.moeda.moedaestudantil.repo;
+
+import com.example.moeda.moedaestudantil.domain.BenefitImage;
+import com.example.moeda.moedaestudantil.domain.ImageVariant;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface BenefitImageRepository extends JpaRepository<BenefitImage, Long> {
+
+  Optional<BenefitImage> findByBenefitIdAndVariant(Long benefitId, ImageVariant variant);
+
+  boolean existsByBenefitIdAndVariant(Long benefitId, ImageVariant variant);
+
+  // Quais destas chaves do store ainda são usadas por alguma linha (coleta de órfãos)
+  @Query("select distinct i.storageKey from BenefitImage i where i.storageKey in :keys")
+  List<String> findReferencedKeys(@Param("keys") Collection<String> keys);
+
+  // Originais que o pipeline ainda não processou (sem miniatura) ou que ainda
+  // são o upload cru acima do limite de bytes (fotos anteriores ao limite)
+  @Query("""
+      select o.benefitId from BenefitImage o
+      where o.variant = com.example.moeda.moedaestudantil.domain.ImageVariant.ORIGINAL
+        and o.criadoEm < :before
+        and (o.sizeBytes > :maxBytes and o.storageKey = o.sourceKey
+             or not exists (select 1 from BenefitImage t where t.benefitId = o.benefitId
+                            and t.variant = com.example.moeda.moedaestudantil.domain.ImageVariant.THUMB))
+      order by o.id
+      """)
+  List<Long> findPending(@Param("before") Instant before, @Param("maxBytes") long maxBytes, Pageable page);
+}
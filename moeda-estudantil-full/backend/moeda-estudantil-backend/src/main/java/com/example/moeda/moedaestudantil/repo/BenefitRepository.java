@@ -1,13 +1,26 @@
 package com.example.moeda.moedaestudantil.repo;
 
 import com.example.moeda.moedaestudantil.domain.Benefit;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface BenefitRepository extends JpaRepository<Benefit, Long> {
 
   List<Benefit> findByEmpresaId(Long empresaId);
 
   List<Benefit> findByAtivoTrue();
+
+  // Ativos com custo até o limite, via ix_benefit_ativo_custo (ordem vem do Pageable)
+  List<Benefit> findByAtivoTrueAndCustoLessThanEqual(Integer custo, Pageable page);
+
+  long countByAtivoTrueAndCustoLessThanEqual(Integer custo);
+
+  // Busca pela PK; o lock OPTIMISTIC confere a versão no commit
+  @Lock(LockModeType.OPTIMISTIC)
+  Optional<Benefit> findByIdAndAtivoTrue(Long id);
 }
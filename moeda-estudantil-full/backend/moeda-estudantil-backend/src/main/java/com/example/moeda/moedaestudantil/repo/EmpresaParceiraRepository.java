@@ -4,6 +4,4 @@ import com.example.moeda.moedaestudantil.domain.EmpresaParceira;
 import java.util.Optional;
 public interface EmpresaParceiraRepository extends JpaRepository<EmpresaParceira, Long> {
   Optional<EmpresaParceira> findByEmail(String email);
-  boolean existsByEmail(String email);
-  boolean existsByCnpj(String cnpj);
 }
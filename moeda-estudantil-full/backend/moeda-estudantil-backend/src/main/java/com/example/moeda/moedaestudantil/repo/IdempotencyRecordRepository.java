@@ -0,0 +1,21 @@
+package com.example.moeda.moedaestudantil.repo;
+
+import com.example.moeda.moedaestudantil.domain.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+  Optional<IdempotencyRecord> findByScopeAndIdemKey(String scope, String idemKey);
+
+  @Modifying
+  @Transactional
+  @Query("delete from IdempotencyRecord r where r.createdAt < :before")
+  int deleteOlderThan(@Param("before") Instant before);
+}
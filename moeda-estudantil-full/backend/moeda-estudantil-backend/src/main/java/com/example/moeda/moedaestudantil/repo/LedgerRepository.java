@@ -1,10 +1,32 @@
 package com.example.moeda.moedaestudantil.repo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import com.example.moeda.moedaestudantil.domain.LedgerEntry;
 import com.example.moeda.moedaestudantil.domain.UserType;
+import java.time.Instant;
 import java.util.List;
 public interface LedgerRepository extends JpaRepository<LedgerEntry, Long> {
-  List<LedgerEntry> findByFromTypeAndFromIdOrToTypeAndToIdOrderByTsDesc(UserType fromType, Long fromId, UserType toType, Long toId);
   List<LedgerEntry> findByFromTypeAndFromIdOrderByTsDesc(UserType type, Long id);
   List<LedgerEntry> findByToTypeAndToIdOrderByTsDesc(UserType type, Long id);
+
+  // Keyset: entradas anteriores a (ts, id), mais novas primeiro. O OR virou UNION de dois
+  // range scans (ix_ledger_from_ts / ix_ledger_to_ts), cada um limitado a :limit linhas.
+  // "ts >= :since" e "ts <= :ts" deixam o Postgres ler só as partições mensais da janela.
+  @Query(value = """
+      select * from (
+        (select * from ledger_entry
+          where from_type = :type and from_id = :id and ts >= :since and ts <= :ts and (ts, id) < (:ts, :cursorId)
+          order by ts desc, id desc limit :limit)
+        union
+        (select * from ledger_entry
+          where to_type = :type and to_id = :id and ts >= :since and ts <= :ts and (ts, id) < (:ts, :cursorId)
+          order by ts desc, id desc limit :limit)
+      ) e
+      order by e.ts desc, e.id desc
+      limit :limit
+      """, nativeQuery = true)
+  List<LedgerEntry> findPageBefore(@Param("type") String type, @Param("id") Long id,
+                                   @Param("ts") Instant ts, @Param("cursorId") Long cursorId,
+                                   @Param("since") Instant since, @Param("limit") int limit);
 }
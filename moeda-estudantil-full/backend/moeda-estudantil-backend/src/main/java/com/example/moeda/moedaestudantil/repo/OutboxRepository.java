@@ -0,0 +1,28 @@
+package com.example.moeda.moedaestudantil.repo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.moeda.moedaestudantil.domain.OutboxMessage;
+import com.example.moeda.moedaestudantil.domain.OutboxStatus;
+import java.time.Instant;
+import java.util.List;
+public interface OutboxRepository extends JpaRepository<OutboxMessage, Long> {
+  // SKIP LOCKED: várias instâncias/threads podem buscar em paralelo sem pegar a mesma mensagem
+  @Query(value = "select * from outbox_message where status = 'PENDING' and next_attempt_at <= :now order by next_attempt_at limit :limit for update skip locked", nativeQuery = true)
+  List<OutboxMessage> lockDue(@Param("now") Instant now, @Param("limit") int limit);
+  List<OutboxMessage> findTop100ByStatusOrderByIdDesc(OutboxStatus status);
+
+  // Enviadas há mais de "before" não servem para nada (DEAD ficam para o retry manual)
+  @Modifying
+  @Transactional
+  @Query("delete from OutboxMessage m where m.status = com.example.moeda.moedaestudantil.domain.OutboxStatus.SENT and m.sentAt < :before")
+  int deleteSentBefore(@Param("before") Instant before);
+
+  // Enviadas antes de o markSent limpar o payload (podem ter senha em texto puro)
+  @Modifying
+  @Transactional
+  @Query("update OutboxMessage m set m.payload = '{}' where m.status = com.example.moeda.moedaestudantil.domain.OutboxStatus.SENT and m.payload <> '{}'")
+  int redactSent();
+}
@@ -0,0 +1,32 @@
+package com.example.moeda.moedaestudantil.repo;
+
+import com.example.moeda.moedaestudantil.domain.PasswordResetToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface PasswordResetTokenRepository extends JpaRepository<PasswordResetToken, Long> {
+
+  Optional<PasswordResetToken> findByTokenHash(String tokenHash);
+
+  // UPDATE condicional: duas requisições com o mesmo código -> só uma recebe 1
+  @Modifying
+  @Query("update PasswordResetToken t set t.usedAt = :now "
+      + "where t.tokenHash = :hash and t.usedAt is null and t.expiresAt > :now")
+  int consume(@Param("hash") String tokenHash, @Param("now") Instant now);
+
+  // senha trocada: os outros códigos pendentes da conta deixam de valer
+  @Modifying
+  @Query("update PasswordResetToken t set t.usedAt = :now where t.accountId = :accountId and t.usedAt is null")
+  int invalidateAll(@Param("accountId") Long accountId, @Param("now") Instant now);
+
+  @Modifying
+  @Transactional
+  @Query("delete from PasswordResetToken t where t.expiresAt < :before")
+  int deleteExpiredBefore(@Param("before") Instant before);
+}
@@ -4,6 +4,4 @@ import com.example.moeda.moedaestudantil.domain.Professor;
 import java.util.Optional;
 public interface ProfessorRepository extends JpaRepository<Professor, Long> {
   Optional<Professor> findByEmail(String email);
-  boolean existsByEmail(String email);
-  boolean existsByCpf(String cpf);
 }
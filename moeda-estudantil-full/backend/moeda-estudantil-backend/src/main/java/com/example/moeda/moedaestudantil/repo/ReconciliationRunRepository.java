@@ -0,0 +1,8 @@
+package com.example.moeda.moedaestudantil.repo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import com.example.moeda.moedaestudantil.domain.ReconciliationRun;
+import java.util.Optional;
+public interface ReconciliationRunRepository extends JpaRepository<ReconciliationRun, Long> {
+  // última execução = maior watermark (ids pooled de instâncias diferentes não seguem a ordem)
+  Optional<ReconciliationRun> findTopByOrderByWatermarkDesc();
+}
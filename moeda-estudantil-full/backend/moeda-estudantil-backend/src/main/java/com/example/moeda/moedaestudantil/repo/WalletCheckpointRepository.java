@@ -0,0 +1,11 @@
+package com.example.moeda.moedaestudantil.repo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import com.example.moeda.moedaestudantil.domain.UserType;
+import com.example.moeda.moedaestudantil.domain.WalletCheckpoint;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+public interface WalletCheckpointRepository extends JpaRepository<WalletCheckpoint, Long> {
+  List<WalletCheckpoint> findByUserTypeAndUserIdIn(UserType userType, Collection<Long> userIds);
+  List<WalletCheckpoint> findByDriftNot(BigDecimal drift);
+}
@@ -1,8 +1,33 @@
 package com.example.moeda.moedaestudantil.repo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import com.example.moeda.moedaestudantil.domain.Wallet;
 import com.example.moeda.moedaestudantil.domain.UserType;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 public interface WalletRepository extends JpaRepository<Wallet, Long> {
   Optional<Wallet> findByUserTypeAndUserId(UserType userType, Long userId);
+  List<Wallet> findByUserTypeAndUserIdIn(UserType userType, Collection<Long> userIds);
+
+  // Só o saldo, sem carregar a entidade (leitura pura, não cria carteira)
+  @Query("select w.saldo from Wallet w where w.userType = :userType and w.userId = :userId")
+  Optional<BigDecimal> findSaldo(@Param("userType") UserType userType, @Param("userId") Long userId);
+
+  // Cria a carteira se não existir; ON CONFLICT evita a corrida na constraint única (userType, userId)
+  @Modifying
+  @Query(value = "insert into wallet (id, user_type, user_id, saldo) values (nextval('wallet_seq'), :userType, :userId, 0) on conflict (user_type, user_id) do nothing", nativeQuery = true)
+  int insertIfAbsent(@Param("userType") String userType, @Param("userId") Long userId);
+
+  // Débito atômico: só altera se houver saldo (0 linhas = saldo insuficiente)
+  @Modifying(flushAutomatically = true)
+  @Query("update Wallet w set w.saldo = w.saldo - :amount where w.userType = :userType and w.userId = :userId and w.saldo >= :amount")
+  int debit(@Param("userType") UserType userType, @Param("userId") Long userId, @Param("amount") BigDecimal amount);
+
+  @Modifying(flushAutomatically = true)
+  @Query("update Wallet w set w.saldo = w.saldo + :amount where w.userType = :userType and w.userId = :userId")
+  int credit(@Param("userType") UserType userType, @Param("userId") Long userId, @Param("amount") BigDecimal amount);
 }
@@ -3,7 +3,8 @@ import com.example.moeda.moedaestudantil.domain.*; import com.example.moeda.moed
 @Service
 public class AlunoService {
   private final AlunoRepository repo;
-  public AlunoService(AlunoRepository repo) { this.repo = repo; }
+  private final AccountRepository accounts;
+  public AlunoService(AlunoRepository repo, AccountRepository accounts) { this.repo = repo; this.accounts = accounts; }
   public Aluno get(Long id) { return repo.findById(id).orElseThrow(() -> new IllegalArgumentException("Aluno não encontrado")); }
   @Transactional
   public Aluno update(Long id, String nome, String curso, String email) {
@@ -11,8 +12,13 @@ public class AlunoService {
     if (nome != null && !nome.isBlank()) a.setNome(nome);
     if (curso != null && !curso.isBlank()) a.setCurso(curso);
     if (email != null && !email.isBlank()) a.setEmail(email);
+    // login lê nome/e-mail da tabela account
+    accounts.findByUserTypeAndUserId(UserType.ALUNO, id).ifPresent(acc -> {
+      acc.setNome(a.getNome());
+      acc.setEmail(Account.normalize(a.getEmail()));
+    });
     return repo.save(a);
   }
   @Transactional
-  public void delete(Long id) { repo.deleteById(id); }
+  public void delete(Long id) { accounts.deleteByUserTypeAndUserId(UserType.ALUNO, id); repo.deleteById(id); }
 }
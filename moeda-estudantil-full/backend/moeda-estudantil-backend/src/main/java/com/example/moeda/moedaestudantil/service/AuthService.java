@@ -4,136 +4,290 @@ import com.example.moeda.moedaestudantil.domain.*;
 import com.example.moeda.moedaestudantil.dto.AuthDtos.*;
 import com.example.moeda.moedaestudantil.dto.ResetPasswordRequest;
 import com.example.moeda.moedaestudantil.repo.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Login e reset usam só a tabela account (e-mail único entre os três papéis).
+// O reset não aceita senha nova pelo e-mail: exige o código de uso único
+// enviado para a caixa de entrada da conta (PasswordResetToken).
+// Cadastro não consulta antes: insere usuário + account num único flush e
+// traduz a violação de unicidade do banco na mensagem de erro.
+// O BCrypt (que pode esperar a fila do passwordExecutor) roda antes de abrir a
+// transação: enquanto espera, a requisição não segura conexão do Hikari.
+// Cadastro e reset têm limite por IP (LoginThrottle.tryAccountOp) e usam
+// PasswordService.hashNew, com vagas próprias: um pico nessas rotas não tira a vez do login.
 @Service
 public class AuthService {
 
+  private static final String CODIGO_INVALIDO = "Código inválido ou expirado";
+  private static final SecureRandom RANDOM = new SecureRandom();
+
   private final AlunoRepository alunoRepo;
   private final ProfessorRepository professorRepo;
   private final EmpresaParceiraRepository empRepo;
+  private final AccountRepository accountRepo;
   private final PasswordService password;
+  private final NotificationService notifications;
+  private final TokenService tokens;
+  private final LoginThrottle throttle;
+  private final PasswordResetTokenRepository resetTokens;
+  private final TransactionTemplate tx;
+  private final Duration resetTtl;
 
   public AuthService(AlunoRepository alunoRepo,
                      ProfessorRepository professorRepo,
                      EmpresaParceiraRepository empRepo,
-                     PasswordService password) {
+                     AccountRepository accountRepo,
+                     PasswordService password,
+                     NotificationService notifications,
+                     TokenService tokens,
+                     LoginThrottle throttle,
+                     PasswordResetTokenRepository resetTokens,
+                     PlatformTransactionManager txManager,
+                     @Value("${app.auth.reset-ttl:PT30M}") Duration resetTtl) {
     this.alunoRepo = alunoRepo;
     this.professorRepo = professorRepo;
     this.empRepo = empRepo;
+    this.accountRepo = accountRepo;
     this.password = password;
+    this.notifications = notifications;
+    this.tokens = tokens;
+    this.throttle = throttle;
+    this.resetTokens = resetTokens;
+    this.tx = new TransactionTemplate(txManager);
+    this.resetTtl = resetTtl;
   }
 
-  @Transactional
-  public Long registerAluno(AlunoRegister dto) {
-    if (alunoRepo.existsByEmail(dto.email)) throw new IllegalArgumentException("Email já cadastrado");
-    if (alunoRepo.existsByCpf(dto.cpf)) throw new IllegalArgumentException("CPF já cadastrado");
-    var a = alunoRepo.save(Aluno.builder()
+  public Long registerAluno(AlunoRegister dto, String ip) {
+    checkAccountOp(ip);
+    String hash = password.hashNew(dto.senha);
+    var a = Aluno.builder()
         .nome(dto.nome)
         .curso(dto.curso)
         .email(dto.email)
         .cpf(dto.cpf)
-        .senhaHash(password.hash(dto.senha))
-        .build());
-    return a.getId();
+        .senhaHash(hash)
+        .build();
+    return tx.execute(st -> {
+      insertWithAccount(() -> alunoRepo.save(a), () -> account(UserType.ALUNO, a.getId(), a.getEmail(), a.getNome(), hash));
+      notifications.cadastroAluno(a.getEmail(), a.getNome());
+      return a.getId();
+    });
   }
 
-  @Transactional
-  public Long registerProfessor(ProfessorRegister dto) {
-    if (professorRepo.existsByEmail(dto.email)) throw new IllegalArgumentException("Email já cadastrado");
-    if (professorRepo.existsByCpf(dto.cpf)) throw new IllegalArgumentException("CPF já cadastrado");
-    var p = professorRepo.save(Professor.builder()
+  public Long registerProfessor(ProfessorRegister dto, String ip) {
+    checkAccountOp(ip);
+    String hash = password.hashNew(dto.senha);
+    var p = Professor.builder()
         .nome(dto.nome)
         .cpf(dto.cpf)
         .email(dto.email)
-        .senhaHash(password.hash(dto.senha))
-        .build());
-    return p.getId();
+        .senhaHash(hash)
+        .build();
+    return tx.execute(st -> {
+      insertWithAccount(() -> professorRepo.save(p), () -> account(UserType.PROFESSOR, p.getId(), p.getEmail(), p.getNome(), hash));
+      notifications.cadastroProfessor(p.getEmail(), p.getNome());
+      return p.getId();
+    });
   }
 
-  @Transactional
-  public Long registerEmpresa(EmpresaRegister dto) {
-    if (empRepo.existsByEmail(dto.email)) throw new IllegalArgumentException("Email já cadastrado");
-    if (empRepo.existsByCnpj(dto.cnpj)) throw new IllegalArgumentException("CNPJ já cadastrado");
-    var e = empRepo.save(EmpresaParceira.builder()
+  public Long registerEmpresa(EmpresaRegister dto, String ip) {
+    checkAccountOp(ip);
+    String hash = password.hashNew(dto.senha);
+    var e = EmpresaParceira.builder()
         .cnpj(dto.cnpj)
         .nome(dto.nome)
         .email(dto.email)
-        .senhaHash(password.hash(dto.senha))
-        .build());
-    return e.getId();
+        .senhaHash(hash)
+        .build();
+    return tx.execute(st -> {
+      insertWithAccount(() -> empRepo.save(e), () -> account(UserType.EMPRESA, e.getId(), e.getEmail(), e.getNome(), hash));
+      notifications.cadastroEmpresa(e.getEmail(), e.getNome());
+      return e.getId();
+    });
   }
 
-  public LoginResponse login(LoginRequest dto) {
-    var r = new LoginResponse();
-    switch (dto.role.toUpperCase()) {
-      case "ALUNO" -> {
-        var a = alunoRepo.findByEmail(dto.email)
-            .orElseThrow(() -> new IllegalArgumentException("Credenciais inválidas"));
-        if (!password.matches(dto.senha, a.getSenhaHash()))
-          throw new IllegalArgumentException("Credenciais inválidas");
-        r.role = "ALUNO";
-        r.id = a.getId();
-        r.nome = a.getNome();
-        r.email = a.getEmail();
-      }
-      case "PROFESSOR" -> {
-        var p = professorRepo.findByEmail(dto.email)
-            .orElseThrow(() -> new IllegalArgumentException("Credenciais inválidas"));
-        if (!password.matches(dto.senha, p.getSenhaHash()))
-          throw new IllegalArgumentException("Credenciais inválidas");
-        r.role = "PROFESSOR";
-        r.id = p.getId();
-        r.nome = p.getNome();
-        r.email = p.getEmail();
-      }
-      case "EMPRESA" -> {
-        var e = empRepo.findByEmail(dto.email)
-            .orElseThrow(() -> new IllegalArgumentException("Credenciais inválidas"));
-        if (!password.matches(dto.senha, e.getSenhaHash()))
-          throw new IllegalArgumentException("Credenciais inválidas");
-        r.role = "EMPRESA";
-        r.id = e.getId();
-        r.nome = e.getNome();
-        r.email = e.getEmail();
-      }
-      default -> throw new IllegalArgumentException("Role inválida");
+  // Tentativas bloqueadas pelo LoginThrottle nem chegam ao BCrypt
+  // A chave do limite é o e-mail normalizado: " Fulano@x.com" e "fulano@x.com" são a mesma conta
+  public LoginResponse login(LoginRequest dto, String ip) {
+    String email = Account.normalize(dto.email);
+    if (throttle.blocked(email, ip))
+      throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Muitas tentativas, aguarde alguns minutos");
+    try {
+      var r = authenticate(dto);
+      throttle.success(email);
+      return r;
+    } catch (IllegalArgumentException e) {
+      throttle.failure(email, ip);
+      throw e;
     }
+  }
+
+  // Uma consulta (account por e-mail); o papel informado pelo cliente não é mais usado
+  private LoginResponse authenticate(LoginRequest dto) {
+    var acc = accountRepo.findByEmail(Account.normalize(dto.email))
+        .orElseThrow(() -> new IllegalArgumentException("Credenciais inválidas"));
+    checkSenha(dto.senha, acc.getSenhaHash(), h -> { acc.setSenhaHash(h); accountRepo.save(acc); });
+
+    var r = new LoginResponse();
+    r.role = acc.getUserType().name();
+    r.id = acc.getUserId();
+    r.nome = acc.getNome();
+    r.email = acc.getEmail();
+    r.expiresAt = Instant.now().plus(tokens.ttl());
+    r.token = tokens.issue(acc.getUserType(), r.id, r.expiresAt);
     return r;
   }
 
+  // Cadastro e reset não passam pelo limite de login: têm o seu, por IP, contando toda chamada
+  private void checkAccountOp(String ip) {
+    if (!throttle.tryAccountOp(ip))
+      throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Muitas tentativas, aguarde alguns minutos");
+  }
+
+  // Senha certa com hash de outro custo (app.auth.bcrypt-strength mudou): regrava com o custo atual
+  private void checkSenha(String raw, String hash, Consumer<String> rehash) {
+    if (!password.matches(raw, hash))
+      throw new IllegalArgumentException("Credenciais inválidas");
+    if (password.needsRehash(hash)) {
+      rehash.accept(password.hash(raw));
+      password.countRehash();
+    }
+  }
+
   // =======================================
-  // NOVO: redefinição de senha por e-mail
+  // Redefinição de senha por código enviado por e-mail
   // =======================================
-  @Transactional
-  public void resetPassword(ResetPasswordRequest dto) {
-    if (dto == null) throw new IllegalArgumentException("Dados obrigatórios");
-    if (dto.getEmail() == null || dto.getEmail().isBlank())
+  // 1º passo: responde igual exista ou não a conta (não revela e-mails cadastrados)
+  public void requestPasswordReset(ResetPasswordRequest dto, String ip) {
+    checkAccountOp(ip);
+    if (dto == null || dto.getEmail() == null || dto.getEmail().isBlank())
       throw new IllegalArgumentException("Email é obrigatório");
-    if (dto.getNovaSenha() == null || dto.getNovaSenha().isBlank())
+
+    tx.executeWithoutResult(st -> accountRepo.findByEmail(Account.normalize(dto.getEmail())).ifPresent(acc -> {
+      String codigo = newResetCode();
+      resetTokens.save(PasswordResetToken.builder()
+          .accountId(acc.getId())
+          .tokenHash(sha256(codigo))
+          .expiresAt(Instant.now().plus(resetTtl))
+          .build());
+      notifications.codigoRedefinicao(acc.getEmail(), roleLabel(acc.getUserType()), codigo, resetTtl.toMinutes());
+    }));
+  }
+
+  // 2º passo: o código vale uma vez; a conta é a do código, não um e-mail enviado pelo cliente
+  public void resetPassword(ResetPasswordConfirm dto, String ip) {
+    checkAccountOp(ip);
+    if (dto == null || dto.codigo == null || dto.codigo.isBlank())
+      throw new IllegalArgumentException("Código é obrigatório");
+    if (dto.novaSenha == null || dto.novaSenha.isBlank())
       throw new IllegalArgumentException("Nova senha é obrigatória");
 
-    String role = dto.getRole() == null ? "" : dto.getRole().toUpperCase();
-    String hash = password.hash(dto.getNovaSenha());
+    // código inexistente, usado ou vencido é recusado antes do BCrypt
+    String tokenHash = sha256(dto.codigo.trim());
+    var pending = resetTokens.findByTokenHash(tokenHash)
+        .filter(t -> t.getUsedAt() == null && t.getExpiresAt().isAfter(Instant.now()))
+        .orElseThrow(() -> new IllegalArgumentException(CODIGO_INVALIDO));
 
-    switch (role) {
-      case "ALUNO" -> {
-        var a = alunoRepo.findByEmail(dto.getEmail())
-            .orElseThrow(() -> new IllegalArgumentException("Aluno não encontrado para este e-mail"));
-        a.setSenhaHash(hash);
-      }
-      case "PROFESSOR" -> {
-        var p = professorRepo.findByEmail(dto.getEmail())
-            .orElseThrow(() -> new IllegalArgumentException("Professor não encontrado para este e-mail"));
-        p.setSenhaHash(hash);
-      }
-      case "EMPRESA" -> {
-        var e = empRepo.findByEmail(dto.getEmail())
-            .orElseThrow(() -> new IllegalArgumentException("Empresa não encontrada para este e-mail"));
-        e.setSenhaHash(hash);
+    String hash = password.hashNew(dto.novaSenha);
+    tx.executeWithoutResult(st -> {
+      Instant now = Instant.now();
+      if (resetTokens.consume(tokenHash, now) == 0) throw new IllegalArgumentException(CODIGO_INVALIDO);
+      resetTokens.invalidateAll(pending.getAccountId(), now);
+
+      var acc = accountRepo.findById(pending.getAccountId())
+          .orElseThrow(() -> new IllegalArgumentException(CODIGO_INVALIDO));
+      acc.setSenhaHash(hash);
+
+      // mantém a coluna antiga coerente (não é mais lida no login)
+      switch (acc.getUserType()) {
+        case ALUNO -> alunoRepo.findById(acc.getUserId()).ifPresent(a -> a.setSenhaHash(hash));
+        case PROFESSOR -> professorRepo.findById(acc.getUserId()).ifPresent(p -> p.setSenhaHash(hash));
+        case EMPRESA -> empRepo.findById(acc.getUserId()).ifPresent(e -> e.setSenhaHash(hash));
       }
-      default -> throw new IllegalArgumentException("Tipo de usuário inválido");
+
+      notifications.senhaRedefinida(acc.getEmail(), roleLabel(acc.getUserType()));
+    });
+  }
+
+  @Scheduled(fixedDelayString = "${app.auth.reset-cleanup-interval:PT1H}")
+  public void cleanupResetTokens() {
+    try {
+      int n = resetTokens.deleteExpiredBefore(Instant.now().minus(Duration.ofDays(1)));
+      if (n > 0) System.out.println("[Auth] " + n + " código(s) de redefinição vencido(s) removido(s)");
+    } catch (Exception e) {
+      System.err.println("[Auth] Falha ao limpar códigos de redefinição");
+      e.printStackTrace();
     }
   }
+
+  private static String roleLabel(UserType type) {
+    return switch (type) {
+      case ALUNO -> "Aluno";
+      case PROFESSOR -> "Professor";
+      case EMPRESA -> "Empresa Parceira";
+    };
+  }
+
+  // 256 bits aleatórios em base64url: impossível de adivinhar dentro da validade
+  private static String newResetCode() {
+    byte[] raw = new byte[32];
+    RANDOM.nextBytes(raw);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+  }
+
+  private static String sha256(String codigo) {
+    try {
+      byte[] d = MessageDigest.getInstance("SHA-256").digest(codigo.getBytes(StandardCharsets.US_ASCII));
+      return HexFormat.of().formatHex(d);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private Account account(UserType type, Long userId, String email, String nome, String hash) {
+    return Account.builder()
+        .email(Account.normalize(email))
+        .userType(type)
+        .userId(userId)
+        .senhaHash(hash)
+        .nome(nome)
+        .build();
+  }
+
+  // save() do usuário só reserva o id (sequence); o flush manda os dois inserts juntos
+  private void insertWithAccount(Runnable saveUser, Supplier<Account> account) {
+    try {
+      saveUser.run();
+      accountRepo.saveAndFlush(account.get());
+    } catch (DataIntegrityViolationException e) {
+      throw new IllegalArgumentException(duplicateMessage(e));
+    }
+  }
+
+  // Postgres: "duplicate key value violates unique constraint ... Detail: Key (cpf)=(...)"
+  private static String duplicateMessage(DataIntegrityViolationException e) {
+    String m = String.valueOf(e.getMostSpecificCause().getMessage()).toLowerCase();
+    if (m.contains("(cpf)")) return "CPF já cadastrado";
+    if (m.contains("(cnpj)")) return "CNPJ já cadastrado";
+    if (m.contains("(email)") || m.contains("ux_account_email")) return "Email já cadastrado";
+    return "Cadastro duplicado";
+  }
 }
@@ -0,0 +1,74 @@
+package com.example.moeda.moedaestudantil.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Cache das listagens do catálogo já serializadas em JSON.
+ *
+ * Chaves: "ativos" (tela do aluno) e "empresa:{id}" (tela da empresa).
+ * Toda escrita em Benefit deve chamar {@link #invalidate(Long)}; a remoção
+ * acontece depois do commit, para ninguém recarregar o valor antigo.
+ */
+@Service
+public class BenefitCatalogCache {
+
+  private static final String ATIVOS = "ativos";
+
+  private final Cache<String, byte[]> cache;
+
+  public BenefitCatalogCache(@Value("${app.cache.benefits.max-entries:1000}") long maxEntries,
+                             @Value("${app.cache.benefits.ttl:PT10M}") Duration ttl) {
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxEntries)
+        .expireAfterWrite(ttl)
+        .recordStats()
+        .build();
+  }
+
+  public byte[] active(Supplier<byte[]> loader) {
+    return cache.get(ATIVOS, k -> loader.get());
+  }
+
+  public byte[] byEmpresa(Long empresaId, Supplier<byte[]> loader) {
+    return cache.get("empresa:" + empresaId, k -> loader.get());
+  }
+
+  // Remove a lista de ativos e a da empresa (após o commit, se houver transação)
+  public void invalidate(Long empresaId) {
+    Runnable evict = () -> {
+      cache.invalidate(ATIVOS);
+      cache.invalidate("empresa:" + empresaId);
+    };
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          evict.run();
+        }
+      });
+    } else {
+      evict.run();
+    }
+  }
+
+  public Map<String, Object> stats() {
+    var s = cache.stats();
+    Map<String, Object> out = new LinkedHashMap<>();
+    out.put("entries", cache.estimatedSize());
+    out.put("hits", s.hitCount());
+    out.put("misses", s.missCount());
+    out.put("evictions", s.evictionCount());
+    out.put("hitRate", s.hitRate());
+    return out;
+  }
+}
@@ -0,0 +1,262 @@
+package com.example.moeda.moedaestudantil.service;
+
+import com.example.moeda.moedaestudantil.domain.Benefit;
+import com.example.moeda.moedaestudantil.dto.BenefitDtos.AffordablePage;
+import com.example.moeda.moedaestudantil.dto.BenefitDtos.View;
+import com.example.moeda.moedaestudantil.repo.BenefitRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Catálogo ativo ordenado por (custo, id) em arrays, para "o que cabe no saldo".
+ *
+ * A consulta é uma busca binária pelo saldo e uma fatia do array: não percorre
+ * nem serializa o catálogo inteiro. Leitores usam o snapshot atual sem lock;
+ * cada escrita (rara: criação/alteração de benefício) gera um snapshot novo
+ * com System.arraycopy. Antes da primeira carga a consulta vai ao banco pelo
+ * índice ix_benefit_ativo_custo.
+ */
+@Service
+public class BenefitCostIndex {
+
+  public static final int DEFAULT_SIZE = 20;
+  public static final int MAX_SIZE = 100;
+
+  private record Snapshot(int[] custo, long[] ids, View[] views) {
+    static final Snapshot EMPTY = new Snapshot(new int[0], new long[0], new View[0]);
+  }
+
+  private final BenefitRepository repo;
+  private final ReentrantLock writer = new ReentrantLock();
+  private final ReentrantLock rebuilding = new ReentrantLock();
+
+  private volatile Snapshot snapshot = Snapshot.EMPTY;
+  private volatile boolean loaded;
+  // escritas que chegaram durante uma reconstrução (reaplicadas no snapshot novo)
+  private List<Benefit> replay;
+
+  private final LongAdder queries = new LongAdder();
+  private final LongAdder dbFallbacks = new LongAdder();
+  private final LongAdder updates = new LongAdder();
+
+  public BenefitCostIndex(BenefitRepository repo) {
+    this.repo = repo;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    rebuild();
+    System.out.println("[affordable] índice por custo carregado: " + stats());
+  }
+
+  @Scheduled(fixedDelayString = "${app.search.rebuild-interval:PT10M}",
+      initialDelayString = "${app.search.rebuild-interval:PT10M}")
+  public void scheduledRebuild() {
+    try {
+      rebuild();
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+
+  public void rebuild() {
+    if (!rebuilding.tryLock()) return;
+    try {
+      writer.lock();
+      try {
+        replay = new ArrayList<>();
+      } finally {
+        writer.unlock();
+      }
+
+      List<Benefit> active = new ArrayList<>(repo.findByAtivoTrue());
+      active.sort(Comparator.comparing((Benefit b) -> custo(b)).thenComparing(Benefit::getId));
+      int n = active.size();
+      int[] custo = new int[n];
+      long[] ids = new long[n];
+      View[] views = new View[n];
+      for (int i = 0; i < n; i++) {
+        Benefit b = active.get(i);
+        custo[i] = custo(b);
+        ids[i] = b.getId();
+        views[i] = new View(b);
+      }
+
+      writer.lock();
+      try {
+        Snapshot fresh = new Snapshot(custo, ids, views);
+        for (Benefit b : replay) fresh = apply(fresh, b);
+        replay = null;
+        snapshot = fresh;
+        loaded = true;
+      } finally {
+        writer.unlock();
+      }
+    } finally {
+      rebuilding.unlock();
+    }
+  }
+
+  /** Mesmo contrato do BenefitSearchIndex: o snapshot só muda depois do commit. */
+  public void indexAfterCommit(Benefit b) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          update(b);
+        }
+      });
+    } else {
+      update(b);
+    }
+  }
+
+  private void update(Benefit b) {
+    writer.lock();
+    try {
+      snapshot = apply(snapshot, b);
+      if (replay != null) replay.add(b);
+    } finally {
+      writer.unlock();
+    }
+    updates.increment();
+  }
+
+  // Remove a versão anterior (se houver) e insere a nova na posição de (custo, id)
+  private static Snapshot apply(Snapshot s, Benefit b) {
+    int[] custo = s.custo();
+    long[] ids = s.ids();
+    View[] views = s.views();
+
+    int old = -1;
+    for (int i = 0; i < ids.length; i++) {
+      if (ids[i] == b.getId()) {
+        old = i;
+        break;
+      }
+    }
+    if (old >= 0) {
+      custo = remove(custo, old);
+      ids = remove(ids, old);
+      views = remove(views, old);
+    }
+    if (!b.isAtivo()) return new Snapshot(custo, ids, views);
+
+    int c = custo(b);
+    int at = upperBound(custo, c);
+    while (at > 0 && custo[at - 1] == c && ids[at - 1] > b.getId()) at--;
+
+    int[] nc = new int[custo.length + 1];
+    long[] ni = new long[ids.length + 1];
+    View[] nv = new View[views.length + 1];
+    System.arraycopy(custo, 0, nc, 0, at);
+    System.arraycopy(ids, 0, ni, 0, at);
+    System.arraycopy(views, 0, nv, 0, at);
+    nc[at] = c;
+    ni[at] = b.getId();
+    nv[at] = new View(b);
+    System.arraycopy(custo, at, nc, at + 1, custo.length - at);
+    System.arraycopy(ids, at, ni, at + 1, ids.length - at);
+    System.arraycopy(views, at, nv, at + 1, views.length - at);
+    return new Snapshot(nc, ni, nv);
+  }
+
+  /**
+   * Benefícios com custo <= saldo (parte inteira). sort = custo (mais baratos
+   * primeiro, padrão) ou custo_desc (os mais caros que ainda cabem primeiro).
+   */
+  public AffordablePage affordable(BigDecimal saldo, String sort, Integer page, Integer size) {
+    int pageSize = size == null ? DEFAULT_SIZE : Math.max(1, Math.min(size, MAX_SIZE));
+    int pageNo = page == null ? 0 : Math.max(0, page);
+    boolean desc = parseDesc(sort);
+    int limit = saldo == null || saldo.signum() <= 0
+        ? 0
+        : saldo.setScale(0, RoundingMode.FLOOR).min(BigDecimal.valueOf(Integer.MAX_VALUE)).intValue();
+    queries.increment();
+
+    if (!loaded) return fromDatabase(saldo, limit, desc, pageNo, pageSize);
+
+    Snapshot s = snapshot;
+    int end = upperBound(s.custo(), limit); // [0, end) = cabe no saldo
+    long from = (long) pageNo * pageSize;
+    List<View> items = new ArrayList<>(pageSize);
+    for (long k = from; k < end && k < from + pageSize; k++) {
+      items.add(s.views()[desc ? end - 1 - (int) k : (int) k]);
+    }
+    return new AffordablePage(items, saldo, end, pageNo, pageSize);
+  }
+
+  public Map<String, Object> stats() {
+    Map<String, Object> out = new LinkedHashMap<>();
+    out.put("loaded", loaded);
+    out.put("docs", snapshot.ids().length);
+    out.put("queries", queries.sum());
+    out.put("dbFallbacks", dbFallbacks.sum());
+    out.put("updates", updates.sum());
+    return out;
+  }
+
+  private AffordablePage fromDatabase(BigDecimal saldo, int limit, boolean desc, int pageNo, int pageSize) {
+    dbFallbacks.increment();
+    var dir = desc ? Sort.Direction.DESC : Sort.Direction.ASC;
+    var rows = repo.findByAtivoTrueAndCustoLessThanEqual(limit, PageRequest.of(pageNo, pageSize, Sort.by(dir, "custo", "id")));
+    long total = repo.countByAtivoTrueAndCustoLessThanEqual(limit);
+    return new AffordablePage(rows.stream().map(View::new).toList(), saldo, total, pageNo, pageSize);
+  }
+
+  private static boolean parseDesc(String sort) {
+    if (sort == null || sort.isBlank() || sort.equalsIgnoreCase("custo")) return false;
+    if (sort.equalsIgnoreCase("custo_desc")) return true;
+    throw new IllegalArgumentException("sort inválido (use custo ou custo_desc)");
+  }
+
+  // primeira posição com custo > c
+  private static int upperBound(int[] custo, int c) {
+    int lo = 0, hi = custo.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (custo[mid] <= c) lo = mid + 1;
+      else hi = mid;
+    }
+    return lo;
+  }
+
+  private static int custo(Benefit b) {
+    return b.getCusto() == null ? 0 : b.getCusto();
+  }
+
+  private static int[] remove(int[] a, int i) {
+    int[] out = Arrays.copyOf(a, a.length - 1);
+    System.arraycopy(a, i + 1, out, i, a.length - i - 1);
+    return out;
+  }
+
+  private static long[] remove(long[] a, int i) {
+    long[] out = Arrays.copyOf(a, a.length - 1);
+    System.arraycopy(a, i + 1, out, i, a.length - i - 1);
+    return out;
+  }
+
+  private static View[] remove(View[] a, int i) {
+    View[] out = Arrays.copyOf(a, a.length - 1);
+    System.arraycopy(a, i + 1, out, i, a.length - i - 1);
+    return out;
+  }
+}
@@ -0,0 +1,262 @@
+package com.example.moeda.moedaestudantil.service;
+
+import com.example.moeda.moedaestudantil.domain.BenefitImage;
+import com.example.moeda.moedaestudantil.domain.ImageVariant;
+import com.example.moeda.moedaestudantil.repo.BenefitImageRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Pipeline de imagens dos benefícios (somente JDK / ImageIO).
+ *
+ * No upload, {@link #probe(Path)} valida formato e dimensões lendo apenas o
+ * cabeçalho. Depois do commit, no executor "imageExecutor" (fora da thread da
+ * requisição), o original é reduzido a ImageVariant.ORIGINAL px e recomprimido
+ * quando passa do limite, e as variantes média e miniatura são geradas.
+ * Se a fila do executor estiver cheia a imagem fica pendente; a varredura
+ * periódica pega as pendentes (e os originais crus anteriores ao limite) e
+ * recolhe os arquivos do store que nenhuma linha referencia.
+ */
+@Service
+public class BenefitImagePipeline {
+
+  public record Probe(String contentType, int width, int height) {}
+
+  private static final Set<String> FORMATOS = Set.of("jpeg", "png", "gif", "bmp");
+  private static final int MAX_LADO = 8000;
+  private static final long MAX_PIXELS = 40_000_000L;
+  private static final float JPEG_QUALITY = 0.82f;
+  // original acima disso é recomprimido mesmo que as dimensões estejam dentro do limite
+  private static final long MAX_ORIGINAL_BYTES = 1_500_000L;
+  // uploads mais novos que isso ainda podem estar na fila do executor
+  private static final Duration SWEEP_AFTER = Duration.ofMinutes(5);
+  private static final int SWEEP_CHUNK = 20;
+  private static final int ORPHAN_CHUNK = 500;
+
+  private final BenefitImageRepository images;
+  private final BenefitImageStore store;
+  private final ThreadPoolTaskExecutor executor;
+  private final Duration orphanGrace;
+
+  public BenefitImagePipeline(BenefitImageRepository images,
+                              BenefitImageStore store,
+                              @Qualifier("imageExecutor") ThreadPoolTaskExecutor executor,
+                              @Value("${app.images.orphan-grace:PT1H}") Duration orphanGrace) {
+    this.images = images;
+    this.store = store;
+    this.executor = executor;
+    this.orphanGrace = orphanGrace;
+  }
+
+  // Lê só o cabeçalho: formato suportado e dimensões dentro do limite (evita "bombas" de descompressão)
+  public Probe probe(Path file) throws IOException {
+    try (ImageInputStream iis = ImageIO.createImageInputStream(file.toFile())) {
+      var readers = iis == null ? null : ImageIO.getImageReaders(iis);
+      if (readers == null || !readers.hasNext()) {
+        throw new IllegalArgumentException("Arquivo de imagem inválido");
+      }
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(iis, true, true);
+        String format = reader.getFormatName().toLowerCase();
+        if (!FORMATOS.contains(format)) {
+          throw new IllegalArgumentException("Formato de imagem não suportado: " + format);
+        }
+        int w = reader.getWidth(0), h = reader.getHeight(0);
+        if (w > MAX_LADO || h > MAX_LADO || (long) w * h > MAX_PIXELS) {
+          throw new IllegalArgumentException("Imagem grande demais (" + w + "x" + h + ")");
+        }
+        return new Probe("image/" + format, w, h);
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUploaded(BenefitImageUploaded event) {
+    submit(event.benefitId());
+  }
+
+  // Pendentes: fila cheia no upload, falha no processamento ou fotos de antes do limite
+  @Scheduled(fixedDelayString = "${app.images.sweep-interval:PT10M}", initialDelayString = "${app.images.sweep-interval:PT10M}")
+  public void sweep() {
+    try {
+      var pending = images.findPending(Instant.now().minus(SWEEP_AFTER), MAX_ORIGINAL_BYTES, PageRequest.of(0, SWEEP_CHUNK));
+      for (Long benefitId : pending) {
+        if (!submit(benefitId)) break;
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+    try {
+      collectOrphans();
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+
+  // Apaga arquivos sem nenhuma linha apontando para eles (upload inválido, original
+  // cru substituído pela versão reduzida). Nunca na hora: o upload grava o arquivo
+  // antes do commit da linha, então só entram os mais velhos que a carência.
+  public int collectOrphans() throws IOException {
+    Instant before = Instant.now().minus(orphanGrace);
+    List<String> keys = store.keysOlderThan(before);
+    int deleted = 0;
+    for (int i = 0; i < keys.size(); i += ORPHAN_CHUNK) {
+      var chunk = keys.subList(i, Math.min(keys.size(), i + ORPHAN_CHUNK));
+      Set<String> referenced = new HashSet<>(images.findReferencedKeys(chunk));
+      for (String key : chunk) {
+        if (!referenced.contains(key) && store.deleteIfOlderThan(key, before)) deleted++;
+      }
+    }
+    if (deleted > 0) {
+      System.out.println("[BenefitImagePipeline] " + deleted + " arquivo(s) órfão(s) removido(s) do store");
+    }
+    return deleted;
+  }
+
+  // false = fila cheia; a imagem continua pendente para a próxima varredura
+  private boolean submit(Long benefitId) {
+    try {
+      executor.execute(() -> {
+        try {
+          process(benefitId);
+        } catch (Exception e) {
+          // sem as variantes o endpoint continua servindo o original
+          System.err.println("[BenefitImagePipeline] Falha ao processar imagem do benefício " + benefitId);
+          e.printStackTrace();
+        }
+      });
+      return true;
+    } catch (TaskRejectedException e) {
+      System.err.println("[BenefitImagePipeline] Fila cheia; imagem do benefício " + benefitId + " fica para a varredura");
+      return false;
+    }
+  }
+
+  public void process(Long benefitId) throws IOException {
+    var original = images.findByBenefitIdAndVariant(benefitId, ImageVariant.ORIGINAL).orElse(null);
+    if (original == null) return;
+
+    BufferedImage src = ImageIO.read(store.resolve(original.getStorageKey()).toFile());
+    if (src == null) return;
+
+    capOriginal(original, src);
+
+    for (ImageVariant v : List.of(ImageVariant.MEDIUM, ImageVariant.THUMB)) {
+      if (images.existsByBenefitIdAndVariant(benefitId, v)) continue;
+
+      BufferedImage scaled = scale(src, v.getMaxSize());
+      boolean alpha = scaled.getColorModel().hasAlpha();
+      byte[] encoded = alpha ? encodePng(scaled) : encodeJpeg(scaled);
+
+      var stored = store.put(new ByteArrayInputStream(encoded));
+      images.save(BenefitImage.builder()
+          .benefitId(benefitId)
+          .variant(v)
+          .storageKey(stored.key())
+          .sourceKey(original.getStorageKey())
+          .contentType(alpha ? "image/png" : "image/jpeg")
+          .sizeBytes(stored.size())
+          .build());
+    }
+  }
+
+  // Upload cru acima do limite (dimensões ou bytes): grava a versão reduzida e
+  // recomprimida no lugar. sourceKey continua sendo o hash do upload (?v= não muda).
+  private void capOriginal(BenefitImage original, BufferedImage src) throws IOException {
+    String raw = original.getStorageKey();
+    if (!raw.equals(original.getSourceKey())) return; // já processado
+    int max = ImageVariant.ORIGINAL.getMaxSize();
+    if (Math.max(src.getWidth(), src.getHeight()) <= max && original.getSizeBytes() <= MAX_ORIGINAL_BYTES) return;
+
+    BufferedImage scaled = scale(src, max);
+    boolean alpha = scaled.getColorModel().hasAlpha();
+    var stored = store.put(new ByteArrayInputStream(alpha ? encodePng(scaled) : encodeJpeg(scaled)));
+    original.setStorageKey(stored.key());
+    original.setContentType(alpha ? "image/png" : "image/jpeg");
+    original.setSizeBytes(stored.size());
+    images.save(original);
+    // o upload cru fica no store: pode ser o original de outro benefício; se
+    // ninguém mais o referenciar, a varredura o recolhe (collectOrphans)
+  }
+
+  // ====== helpers ======
+
+  // Reduz em passos de 1/2 até chegar perto do alvo (qualidade melhor que um único passo bilinear)
+  static BufferedImage scale(BufferedImage src, int maxSize) {
+    int w = src.getWidth(), h = src.getHeight();
+    double ratio = Math.min(1.0, (double) maxSize / Math.max(w, h));
+    int tw = Math.max(1, (int) Math.round(w * ratio));
+    int th = Math.max(1, (int) Math.round(h * ratio));
+
+    int type = src.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+    BufferedImage cur = src;
+    do {
+      w = Math.max(tw, w / 2);
+      h = Math.max(th, h / 2);
+      BufferedImage next = new BufferedImage(w, h, type);
+      Graphics2D g = next.createGraphics();
+      g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      if (type == BufferedImage.TYPE_INT_RGB) {
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, w, h);
+      }
+      g.drawImage(cur, 0, 0, w, h, null);
+      g.dispose();
+      cur = next;
+    } while (w != tw || h != th);
+    return cur;
+  }
+
+  private static byte[] encodeJpeg(BufferedImage img) throws IOException {
+    ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+    var out = new ByteArrayOutputStream();
+    try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+      writer.setOutput(ios);
+      ImageWriteParam param = writer.getDefaultWriteParam();
+      param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+      param.setCompressionQuality(JPEG_QUALITY);
+      writer.write(null, new IIOImage(img, null, null), param);
+    } finally {
+      writer.dispose();
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] encodePng(BufferedImage img) throws IOException {
+    var out = new ByteArrayOutputStream();
+    ImageIO.write(img, "png", out);
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,107 @@
+package com.example.moeda.moedaestudantil.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Armazena as fotos dos benefícios em disco, endereçadas pelo SHA-256 do
+ * conteúdo ({@code <dir>/ab/abcdef...}). Arquivos iguais são gravados uma vez
+ * só e nunca mudam depois de escritos. Nada é apagado na hora: arquivos sem
+ * referência são recolhidos pela varredura depois de uma carência
+ * (ver {@link BenefitImagePipeline#collectOrphans()}).
+ */
+@Service
+public class BenefitImageStore {
+
+  public record Stored(String key, long size) {}
+
+  private final Path root;
+
+  public BenefitImageStore(@Value("${app.images.dir:data/images}") String dir) {
+    this.root = Path.of(dir).toAbsolutePath();
+    try {
+      Files.createDirectories(root);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Não foi possível criar o diretório de imagens: " + root, e);
+    }
+  }
+
+  // Copia o stream para um arquivo temporário calculando o hash, depois move para o destino final
+  public Stored put(InputStream in) throws IOException {
+    Path tmp = Files.createTempFile(root, "upload-", ".tmp");
+    try {
+      MessageDigest md = sha256();
+      long size;
+      try (var din = new DigestInputStream(in, md)) {
+        size = Files.copy(din, tmp, StandardCopyOption.REPLACE_EXISTING);
+      }
+      String key = HexFormat.of().formatHex(md.digest());
+      Path target = resolve(key);
+      if (!Files.exists(target)) {
+        Files.createDirectories(target.getParent());
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+      } else {
+        // conteúdo repetido: renova a data para a carência da coleta valer a partir deste upload
+        Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+      }
+      return new Stored(key, size);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  // Chaves gravadas (ou reenviadas) antes de "before"; ignora os temporários de upload
+  public List<String> keysOlderThan(Instant before) throws IOException {
+    try (Stream<Path> files = Files.walk(root, 2)) {
+      return files
+          .filter(f -> f.getFileName().toString().matches("[0-9a-f]{64}"))
+          .filter(f -> modifiedBefore(f, before))
+          .map(f -> f.getFileName().toString())
+          .toList();
+    }
+  }
+
+  // Confere a data de novo logo antes de apagar: um upload do mesmo conteúdo pode tê-la renovado
+  public boolean deleteIfOlderThan(String key, Instant before) throws IOException {
+    Path file = resolve(key);
+    return modifiedBefore(file, before) && Files.deleteIfExists(file);
+  }
+
+  public Path resolve(String key) {
+    if (key == null || !key.matches("[0-9a-f]{64}")) {
+      throw new IllegalArgumentException("Chave de imagem inválida");
+    }
+    return root.resolve(key.substring(0, 2)).resolve(key);
+  }
+
+  private static boolean modifiedBefore(Path file, Instant before) {
+    try {
+      return Files.getLastModifiedTime(file).toInstant().isBefore(before);
+    } catch (IOException e) {
+      return false; // sumiu no meio da listagem
+    }
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,4 @@
+package com.example.moeda.moedaestudantil.service;
+
+// Publicado quando a foto original de um benefício é gravada; dispara o BenefitImagePipeline
+public record BenefitImageUploaded(Long benefitId) {}
@@ -0,0 +1,453 @@
+package com.example.moeda.moedaestudantil.service;
+
+import com.example.moeda.moedaestudantil.domain.Benefit;
+import com.example.moeda.moedaestudantil.dto.BenefitDtos.SearchPage;
+import com.example.moeda.moedaestudantil.dto.BenefitDtos.View;
+import com.example.moeda.moedaestudantil.repo.BenefitRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido em memória do catálogo ativo (titulo + descricao), para o
+ * GET /api/beneficios/search não varrer a tabela nem mandar o catálogo inteiro.
+ *
+ * Termos sem acento e em minúsculas ("Café" = "cafe"); cada palavra da busca
+ * casa como prefixo ("cade" acha "cadernos") e todas precisam aparecer (AND).
+ * Cada documento tem um número interno (ord); as postings são listas de ords,
+ * a busca junta tudo em bitmaps (long[]) e filtra custo/empresa em arrays paralelos.
+ *
+ * Atualização incremental: o BenefitService chama {@link #indexAfterCommit} e
+ * a versão antiga do documento só é marcada como morta. A reconstrução periódica
+ * (app.search.rebuild-interval) descarta os mortos e pega escritas feitas por
+ * outras instâncias.
+ */
+@Service
+public class BenefitSearchIndex {
+
+  public static final int DEFAULT_SIZE = 20;
+  public static final int MAX_SIZE = 100;
+  // página * tamanho máximo: limita o heap de ordenação parcial
+  public static final int MAX_WINDOW = 10_000;
+
+  private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+  private static final Pattern SPLIT = Pattern.compile("[^a-z0-9]+");
+  private static final Set<String> STOPWORDS = Set.of(
+      "a", "o", "as", "os", "de", "da", "do", "das", "dos", "e", "em", "no", "na",
+      "nos", "nas", "um", "uma", "para", "por", "com", "ao");
+
+  // bit 0 da posting: o termo aparece no título (usado na relevância)
+  private static final int IN_TITLE = 1;
+
+  /** Listas de ords sem boxing; cresce dobrando. */
+  private static final class IntList {
+    int[] data = new int[2];
+    int size;
+
+    void add(int v) {
+      if (size == data.length) data = Arrays.copyOf(data, size * 2);
+      data[size++] = v;
+    }
+  }
+
+  /** Estado do índice; trocado inteiro na reconstrução. */
+  private static final class Segment {
+    final TreeMap<String, IntList> postings = new TreeMap<>();
+    final Map<Long, Integer> ordById = new HashMap<>();
+    View[] views = new View[1024];
+    String[] sortTitle = new String[1024];
+    // 5 primeiras letras do título dobrado numa chave int (ver titleKey)
+    int[] titleKey = new int[1024];
+    int[] custo = new int[1024];
+    long[] empresa = new long[1024];
+    final BitSet alive = new BitSet();
+    int size;
+    int dead;
+
+    void add(View v) {
+      remove(v.getId());
+      if (size == views.length) {
+        int n = size * 2;
+        views = Arrays.copyOf(views, n);
+        sortTitle = Arrays.copyOf(sortTitle, n);
+        titleKey = Arrays.copyOf(titleKey, n);
+        custo = Arrays.copyOf(custo, n);
+        empresa = Arrays.copyOf(empresa, n);
+      }
+      int ord = size++;
+      views[ord] = v;
+      sortTitle[ord] = fold(v.getTitulo());
+      titleKey[ord] = titleKey(sortTitle[ord]);
+      custo[ord] = v.getCusto() == null ? 0 : v.getCusto();
+      empresa[ord] = v.getEmpresaId() == null ? 0 : v.getEmpresaId();
+      alive.set(ord);
+      ordById.put(v.getId(), ord);
+
+      Map<String, Integer> terms = new HashMap<>();
+      for (String t : tokens(v.getTitulo())) terms.put(t, IN_TITLE);
+      for (String t : tokens(v.getDescricao())) terms.putIfAbsent(t, 0);
+      terms.forEach((t, flag) -> postings.computeIfAbsent(t, k -> new IntList()).add(ord << 1 | flag));
+    }
+
+    void remove(Long id) {
+      Integer ord = ordById.remove(id);
+      if (ord != null && alive.get(ord)) {
+        alive.clear(ord);
+        dead++;
+      }
+    }
+  }
+
+  private final BenefitRepository repo;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final ReentrantLock rebuilding = new ReentrantLock();
+
+  private Segment segment = new Segment();
+  // escritas que chegaram durante uma reconstrução (reaplicadas no índice novo)
+  private List<Benefit> replay;
+
+  private final LongAdder queries = new LongAdder();
+  private final LongAdder queryNanos = new LongAdder();
+  private final LongAdder updates = new LongAdder();
+  private final LongAdder rebuilds = new LongAdder();
+
+  public BenefitSearchIndex(BenefitRepository repo) {
+    this.repo = repo;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    rebuild();
+    System.out.println("[search] índice de benefícios carregado: " + stats());
+  }
+
+  @Scheduled(fixedDelayString = "${app.search.rebuild-interval:PT10M}",
+      initialDelayString = "${app.search.rebuild-interval:PT10M}")
+  public void scheduledRebuild() {
+    try {
+      rebuild();
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+
+  // Lê os ativos do banco fora do lock e troca o segmento de uma vez
+  public void rebuild() {
+    // uma reconstrução por vez; a que chegou depois não tem nada a acrescentar
+    if (!rebuilding.tryLock()) return;
+    try {
+      doRebuild();
+    } finally {
+      rebuilding.unlock();
+    }
+  }
+
+  private void doRebuild() {
+    lock.writeLock().lock();
+    try {
+      replay = new ArrayList<>();
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    // em ordem de id: a ordem no índice serve de desempate e de "recentes"
+    List<Benefit> active = new ArrayList<>(repo.findByAtivoTrue());
+    active.sort(Comparator.comparing(Benefit::getId));
+    Segment fresh = new Segment();
+    for (Benefit b : active) fresh.add(new View(b));
+
+    lock.writeLock().lock();
+    try {
+      for (Benefit b : replay) apply(fresh, b);
+      replay = null;
+      segment = fresh;
+    } finally {
+      lock.writeLock().unlock();
+    }
+    rebuilds.increment();
+  }
+
+  /**
+   * Chamado na transação que criou/alterou o benefício; o índice só muda depois
+   * do commit (rollback não deixa documento fantasma).
+   */
+  public void indexAfterCommit(Benefit b) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          update(b);
+        }
+      });
+    } else {
+      update(b);
+    }
+  }
+
+  private void update(Benefit b) {
+    lock.writeLock().lock();
+    try {
+      apply(segment, b);
+      if (replay != null) replay.add(b);
+    } finally {
+      lock.writeLock().unlock();
+    }
+    updates.increment();
+  }
+
+  private static void apply(Segment seg, Benefit b) {
+    if (b.isAtivo()) seg.add(new View(b));
+    else seg.remove(b.getId());
+  }
+
+  public SearchPage search(String q, Integer maxCusto, Long empresaId, String sort, Integer page, Integer size) {
+    long t0 = System.nanoTime();
+    int pageSize = size == null ? DEFAULT_SIZE : Math.max(1, Math.min(size, MAX_SIZE));
+    int pageNo = page == null ? 0 : Math.max(0, page);
+    if ((long) (pageNo + 1) * pageSize > MAX_WINDOW) {
+      throw new IllegalArgumentException("Página muito distante; refine a busca");
+    }
+    List<String> words = tokens(q);
+
+    lock.readLock().lock();
+    try {
+      Segment seg = segment;
+
+      Sort order = Sort.parse(sort);
+
+      // documentos com todas as palavras (cada uma como prefixo) + onde a palavra está no título;
+      // bitmaps em long[] (bit = ord), montados direto das postings
+      long[] match = Arrays.copyOf(seg.alive.toLongArray(), (seg.size + 63) >>> 6);
+      List<long[]> titleHits = new ArrayList<>(words.size());
+      for (String w : words) {
+        long[] docs = new long[match.length];
+        long[] inTitle = order == Sort.RELEVANCIA ? new long[match.length] : null;
+        // uma letra só casa exato, senão "c" expandiria para quase o catálogo inteiro
+        var terms = w.length() < 2
+            ? (seg.postings.containsKey(w) ? Map.of(w, seg.postings.get(w)) : Map.<String, IntList>of())
+            : seg.postings.subMap(w, true, w + Character.MAX_VALUE, false);
+        for (IntList p : terms.values()) {
+          for (int i = 0; i < p.size; i++) {
+            int ord = p.data[i] >>> 1;
+            docs[ord >>> 6] |= 1L << ord;
+            if (inTitle != null && (p.data[i] & IN_TITLE) != 0) inTitle[ord >>> 6] |= 1L << ord;
+          }
+        }
+        long any = 0;
+        for (int j = 0; j < match.length; j++) any |= (match[j] &= docs[j]);
+        if (inTitle != null) titleHits.add(inTitle);
+        if (any == 0) break;
+      }
+
+      int keep = (pageNo + 1) * pageSize;
+      long total = 0;
+      List<View> items = new ArrayList<>(pageSize);
+
+      long[] top;
+      if (order == Sort.RECENTES) {
+        // mais novos = ords maiores: de trás para frente, os primeiros aceitos já são a resposta
+        top = new long[keep];
+        int n = 0;
+        for (int j = match.length - 1; j >= 0; j--) {
+          for (long bits = match[j]; bits != 0; bits ^= Long.highestOneBit(bits)) {
+            int ord = j << 6 | 63 - Long.numberOfLeadingZeros(bits);
+            if (!accept(seg, ord, maxCusto, empresaId)) continue;
+            total++;
+            if (n < keep) top[n++] = ord;
+          }
+        }
+        top = Arrays.copyOf(top, n);
+      } else {
+        // chave = critério (31 bits altos) | ord (32 bits baixos); top-k num heap de long, sem boxing
+        long[] heap = new long[keep];
+        int n = 0;
+        for (int j = 0; j < match.length; j++) {
+          for (long bits = match[j]; bits != 0; bits &= bits - 1) {
+            int ord = j << 6 | Long.numberOfTrailingZeros(bits);
+            if (!accept(seg, ord, maxCusto, empresaId)) continue;
+            total++;
+            long key = (long) order.primary(seg, ord, titleHits) << 32 | ord;
+            if (n < keep) {
+              heap[n] = key;
+              siftUp(heap, n++);
+            } else if (key < heap[0]) {
+              heap[0] = key;
+              siftDown(heap, n);
+            }
+          }
+        }
+        top = Arrays.copyOf(heap, n);
+        Arrays.sort(top);
+        if (order == Sort.TITULO && n > 0) top = refineByTitle(seg, match, top, keep, maxCusto, empresaId);
+      }
+      for (int i = pageNo * pageSize; i < top.length; i++) items.add(seg.views[(int) top[i]]);
+      return new SearchPage(items, total, pageNo, pageSize);
+    } finally {
+      lock.readLock().unlock();
+      queries.increment();
+      queryNanos.add(System.nanoTime() - t0);
+    }
+  }
+
+  /**
+   * A chave de título só tem as 5 primeiras letras. Tudo abaixo do último
+   * prefixo guardado já está certo; os que empatam nesse prefixo (dentro ou
+   * fora do heap) são comparados pelo título inteiro.
+   */
+  private static long[] refineByTitle(Segment seg, long[] match, long[] top, int keep,
+                                      Integer maxCusto, Long empresaId) {
+    int last = (int) (top[top.length - 1] >>> 32);
+    List<Integer> tied = new ArrayList<>();
+    int below = 0;
+    while (below < top.length && (int) (top[below] >>> 32) < last) below++;
+    for (int j = 0; j < match.length; j++) {
+      for (long bits = match[j]; bits != 0; bits &= bits - 1) {
+        int ord = j << 6 | Long.numberOfTrailingZeros(bits);
+        if (seg.titleKey[ord] == last && accept(seg, ord, maxCusto, empresaId)) tied.add(ord);
+      }
+    }
+    tied.sort(Comparator.<Integer, String>comparing(o -> seg.sortTitle[o]).thenComparingInt(o -> o));
+
+    long[] out = new long[Math.min(keep, below + tied.size())];
+    // os abaixo do prefixo também precisam da ordem completa entre si
+    Integer[] head = new Integer[below];
+    for (int i = 0; i < below; i++) head[i] = (int) top[i];
+    Arrays.sort(head, Comparator.<Integer, String>comparing(o -> seg.sortTitle[o]).thenComparingInt(o -> o));
+    int k = 0;
+    for (Integer o : head) out[k++] = o;
+    for (int i = 0; k < out.length; i++) out[k++] = tied.get(i);
+    return out;
+  }
+
+  private static boolean accept(Segment seg, int ord, Integer maxCusto, Long empresaId) {
+    return (maxCusto == null || seg.custo[ord] <= maxCusto)
+        && (empresaId == null || seg.empresa[ord] == empresaId);
+  }
+
+  /**
+   * Critérios de ordenação; o desempate é a ordem no índice (= id crescente
+   * após a reconstrução). relevancia: mais palavras no título, depois menor custo.
+   */
+  private enum Sort {
+    RELEVANCIA, CUSTO, CUSTO_DESC, TITULO, RECENTES;
+
+    static Sort parse(String s) {
+      if (s == null || s.isBlank()) return RELEVANCIA;
+      try {
+        return valueOf(s.trim().toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("sort inválido (use relevancia, custo, custo_desc, titulo ou recentes)");
+      }
+    }
+
+    // menor = primeiro; sempre não negativo (cabe nos 31 bits altos da chave)
+    int primary(Segment seg, int ord, List<long[]> titleHits) {
+      return switch (this) {
+        case CUSTO -> Math.max(0, seg.custo[ord]);
+        case CUSTO_DESC -> Integer.MAX_VALUE - Math.max(0, seg.custo[ord]);
+        case RECENTES -> Integer.MAX_VALUE - ord;
+        case RELEVANCIA -> {
+          int hits = 0;
+          for (long[] t : titleHits) if ((t[ord >>> 6] & 1L << ord) != 0) hits++;
+          yield (255 - Math.min(hits, 255)) << 23 | Math.min(Math.max(0, seg.custo[ord]), 0x7FFFFF);
+        }
+        case TITULO -> seg.titleKey[ord];
+      };
+    }
+  }
+
+  // heap de máximo em long[]: a raiz é a pior chave entre as guardadas
+  private static void siftUp(long[] h, int i) {
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      if (h[parent] >= h[i]) return;
+      long t = h[parent]; h[parent] = h[i]; h[i] = t;
+      i = parent;
+    }
+  }
+
+  private static void siftDown(long[] h, int n) {
+    int i = 0;
+    while (true) {
+      int l = 2 * i + 1, r = l + 1, max = i;
+      if (l < n && h[l] > h[max]) max = l;
+      if (r < n && h[r] > h[max]) max = r;
+      if (max == i) return;
+      long t = h[max]; h[max] = h[i]; h[i] = t;
+      i = max;
+    }
+  }
+
+  public Map<String, Object> stats() {
+    Map<String, Object> out = new LinkedHashMap<>();
+    lock.readLock().lock();
+    try {
+      out.put("docs", segment.size - segment.dead);
+      out.put("dead", segment.dead);
+      out.put("terms", segment.postings.size());
+    } finally {
+      lock.readLock().unlock();
+    }
+    long n = queries.sum();
+    out.put("queries", n);
+    out.put("avgQueryMicros", n == 0 ? 0 : queryNanos.sum() / n / 1000);
+    out.put("updates", updates.sum());
+    out.put("rebuilds", rebuilds.sum());
+    return out;
+  }
+
+  // Dígitos base 39 na ordem do char: 0-9 e a-z exatos; qualquer outro char vira a
+  // faixa onde cai e encerra a chave, então chave menor implica título menor.
+  static int titleKey(String folded) {
+    int key = 0;
+    boolean open = true;
+    for (int i = 0; i < 5; i++) {
+      int d = 0;
+      if (open) {
+        char c = i < folded.length() ? folded.charAt(i) : 0;
+        if (c >= '0' && c <= '9') d = 1 + (c - '0');
+        else if (c >= 'a' && c <= 'z') d = 12 + (c - 'a');
+        else {
+          d = c < '0' ? 0 : c < 'a' ? 11 : 38;
+          open = false;
+        }
+      }
+      key = key * 39 + d;
+    }
+    return key;
+  }
+
+  // "Café-da-Manhã" -> "cafe da manha" (NFD + remove acentos + minúsculas)
+  static String fold(String s) {
+    if (s == null) return "";
+    return MARKS.matcher(Normalizer.normalize(s, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+  }
+
+  static List<String> tokens(String s) {
+    List<String> out = new ArrayList<>();
+    for (String t : SPLIT.split(fold(s))) {
+      if (!t.isEmpty() && !STOPWORDS.contains(t)) out.add(t);
+    }
+    return out;
+  }
+}
@@ -1,21 +1,52 @@
 package com.example.moeda.moedaestudantil.service;
 
 import com.example.moeda.moedaestudantil.domain.Benefit;
+import com.example.moeda.moedaestudantil.domain.BenefitImage;
 import com.example.moeda.moedaestudantil.dto.BenefitDtos.Create;
 import com.example.moeda.moedaestudantil.dto.BenefitDtos.View;
+import com.example.moeda.moedaestudantil.repo.BenefitImageRepository;
 import com.example.moeda.moedaestudantil.repo.BenefitRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @Service
 public class BenefitService {
 
   private final BenefitRepository repo;
+  private final BenefitImageRepository imageRepo;
+  private final BenefitImageStore imageStore;
+  private final BenefitImagePipeline imagePipeline;
+  private final ApplicationEventPublisher events;
+  private final BenefitCatalogCache cache;
+  private final BenefitSearchIndex search;
+  private final BenefitCostIndex costs;
+  private final ObjectMapper mapper;
 
-  public BenefitService(BenefitRepository repo) {
+  public BenefitService(BenefitRepository repo,
+                        BenefitImageRepository imageRepo,
+                        BenefitImageStore imageStore,
+                        BenefitImagePipeline imagePipeline,
+                        ApplicationEventPublisher events,
+                        BenefitCatalogCache cache,
+                        BenefitSearchIndex search,
+                        BenefitCostIndex costs,
+                        ObjectMapper mapper) {
     this.repo = repo;
+    this.imageRepo = imageRepo;
+    this.imageStore = imageStore;
+    this.imagePipeline = imagePipeline;
+    this.events = events;
+    this.cache = cache;
+    this.search = search;
+    this.costs = costs;
+    this.mapper = mapper;
   }
 
   // POST JSON antigo (sem foto)
@@ -28,32 +59,60 @@ public class BenefitService {
         .custo(dto.custo)
         .ativo(true)
         .build();
-    return repo.save(b).getId();
+    Long id = repo.save(b).getId();
+    cache.invalidate(empresaId);
+    search.indexAfterCommit(b);
+    costs.indexAfterCommit(b);
+    return id;
   }
 
-  // POST multipart com foto
+  // POST multipart com foto (a foto é copiada em streaming para o store, sem byte[] no heap).
+  // Aqui só validamos o cabeçalho; miniatura e versão média são geradas depois do commit.
   @Transactional
   public Long createWithImage(Long empresaId,
                               String titulo,
                               String descricao,
                               Integer custo,
-                              byte[] foto,
-                              String contentType) {
+                              InputStream foto,
+                              String contentType) throws IOException {
 
-    Benefit b = Benefit.builder()
+    Benefit b = repo.save(Benefit.builder()
         .empresaId(empresaId)
         .titulo(titulo)
         .descricao(descricao)
         .custo(custo)
         .ativo(true)
-        .build();
+        .build());
+
+    if (foto != null) {
+      // o hash do conteúdo é calculado durante a cópia para o store
+      var stored = imageStore.put(foto);
+      if (stored.size() > 0) {
+        // arquivo inválido fica sem referência e a varredura o recolhe depois da carência
+        var probe = imagePipeline.probe(imageStore.resolve(stored.key()));
 
-    if (foto != null && foto.length > 0) {
-      b.setFoto(foto);
-      b.setFotoContentType(contentType);
+        b.setFotoHash(stored.key());
+        imageRepo.save(BenefitImage.builder()
+            .benefitId(b.getId())
+            .storageKey(stored.key())
+            .sourceKey(stored.key())
+            .contentType(probe.contentType()) // tipo detectado, não o informado pelo cliente
+            .sizeBytes(stored.size())
+            .build());
+        events.publishEvent(new BenefitImageUploaded(b.getId()));
+      }
     }
 
-    return repo.save(b).getId();
+    cache.invalidate(empresaId);
+    search.indexAfterCommit(b);
+    costs.indexAfterCommit(b);
+    return b.getId();
+  }
+
+  // Benefício ativo pela PK (usado no resgate); não percorre o catálogo
+  public Benefit findActive(Long id) {
+    return repo.findByIdAndAtivoTrue(id)
+        .orElseThrow(() -> new IllegalArgumentException("Benefício não encontrado"));
   }
 
   // Lista somente ativos para os alunos
@@ -71,4 +130,21 @@ public class BenefitService {
         .map(View::new)
         .toList();
   }
+
+  // Versões em JSON pronto, servidas do BenefitCatalogCache (o caminho quente só copia bytes)
+  public byte[] listAllActiveJson() {
+    return cache.active(() -> toJson(listAllActive()));
+  }
+
+  public byte[] listByEmpresaJson(Long empresaId) {
+    return cache.byEmpresa(empresaId, () -> toJson(listByEmpresa(empresaId)));
+  }
+
+  private byte[] toJson(List<View> views) {
+    try {
+      return mapper.writeValueAsBytes(views);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Falha ao serializar benefícios", e);
+    }
+  }
 }
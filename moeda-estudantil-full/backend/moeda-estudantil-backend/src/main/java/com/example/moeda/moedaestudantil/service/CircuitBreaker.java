@@ -0,0 +1,63 @@
+package com.example.moeda.moedaestudantil.service;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker simples por falhas consecutivas.
+ *
+ * CLOSED: tudo passa. Após {@code threshold} falhas seguidas vai para OPEN e
+ * recusa chamadas durante {@code openFor}. Depois disso fica HALF_OPEN e deixa
+ * passar uma chamada de teste: sucesso fecha, falha reabre.
+ */
+public class CircuitBreaker {
+
+  public enum State { CLOSED, OPEN, HALF_OPEN }
+
+  private final int threshold;
+  private final long openForNanos;
+
+  private State state = State.CLOSED;
+  private int consecutiveFailures;
+  private long openedAt;
+  private boolean probeInFlight;
+
+  public CircuitBreaker(int threshold, Duration openFor) {
+    this.threshold = threshold;
+    this.openForNanos = openFor.toNanos();
+  }
+
+  public synchronized boolean allow() {
+    if (state == State.OPEN && System.nanoTime() - openedAt >= openForNanos) {
+      state = State.HALF_OPEN;
+      probeInFlight = false;
+    }
+    return switch (state) {
+      case CLOSED -> true;
+      case OPEN -> false;
+      case HALF_OPEN -> {
+        if (probeInFlight) yield false;
+        probeInFlight = true;
+        yield true;
+      }
+    };
+  }
+
+  public synchronized void onSuccess() {
+    consecutiveFailures = 0;
+    probeInFlight = false;
+    state = State.CLOSED;
+  }
+
+  public synchronized void onFailure() {
+    consecutiveFailures++;
+    probeInFlight = false;
+    if (state == State.HALF_OPEN || consecutiveFailures >= threshold) {
+      state = State.OPEN;
+      openedAt = System.nanoTime();
+    }
+  }
+
+  public synchronized State state() {
+    return state;
+  }
+}
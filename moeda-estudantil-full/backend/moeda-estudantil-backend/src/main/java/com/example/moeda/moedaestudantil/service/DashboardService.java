@@ -0,0 +1,118 @@
+package com.example.moeda.moedaestudantil.service;
+
+import com.example.moeda.moedaestudantil.domain.UserType;
+import com.fasterxml.jackson.databind.util.RawValue;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Tela inicial de cada papel numa única resposta: perfil, saldo, primeira página
+ * do extrato e (aluno/empresa) catálogo de benefícios.
+ *
+ * As partes são independentes, então rodam em paralelo no dashboardExecutor e a
+ * latência fica a da mais lenta, não a soma. O catálogo já vem serializado do
+ * BenefitCatalogCache e entra na resposta como JSON cru, sem novo parse.
+ */
+@Service
+public class DashboardService {
+
+  private final AlunoService alunos;
+  private final ProfessorService professores;
+  private final EmpresaService empresas;
+  private final WalletService wallet;
+  private final LedgerService ledger;
+  private final BenefitService benefits;
+  private final ThreadPoolTaskExecutor executor;
+  private final long timeoutMs;
+
+  public DashboardService(AlunoService alunos,
+                          ProfessorService professores,
+                          EmpresaService empresas,
+                          WalletService wallet,
+                          LedgerService ledger,
+                          BenefitService benefits,
+                          @Qualifier("dashboardExecutor") ThreadPoolTaskExecutor executor,
+                          @Value("${app.dashboard.timeout-ms:5000}") long timeoutMs) {
+    this.alunos = alunos;
+    this.professores = professores;
+    this.empresas = empresas;
+    this.wallet = wallet;
+    this.ledger = ledger;
+    this.benefits = benefits;
+    this.executor = executor;
+    this.timeoutMs = timeoutMs;
+  }
+
+  public Map<String, Object> aluno(Long id) {
+    var perfil = async(() -> alunos.get(id));
+    var saldo = async(() -> wallet.balance(UserType.ALUNO, id));
+    var hist = async(() -> ledger.page(UserType.ALUNO, id, null, null));
+    var catalogo = async(benefits::listAllActiveJson);
+    return assemble(perfil, saldo, hist, catalogo);
+  }
+
+  public Map<String, Object> professor(Long id) {
+    var perfil = async(() -> professores.get(id));
+    var saldo = async(() -> wallet.balance(UserType.PROFESSOR, id));
+    var hist = async(() -> ledger.page(UserType.PROFESSOR, id, null, null));
+    return assemble(perfil, saldo, hist, null);
+  }
+
+  public Map<String, Object> empresa(Long id) {
+    var perfil = async(() -> empresas.get(id));
+    var saldo = async(() -> wallet.balance(UserType.EMPRESA, id));
+    var hist = async(() -> ledger.page(UserType.EMPRESA, id, null, null));
+    var catalogo = async(() -> benefits.listByEmpresaJson(id));
+    return assemble(perfil, saldo, hist, catalogo);
+  }
+
+  private <T> CompletableFuture<T> async(Supplier<T> part) {
+    return CompletableFuture.supplyAsync(part, executor);
+  }
+
+  private Map<String, Object> assemble(CompletableFuture<?> perfil,
+                                       CompletableFuture<?> saldo,
+                                       CompletableFuture<?> hist,
+                                       CompletableFuture<byte[]> catalogo) {
+    var all = catalogo == null
+        ? CompletableFuture.allOf(perfil, saldo, hist)
+        : CompletableFuture.allOf(perfil, saldo, hist, catalogo);
+    try {
+      all.get(timeoutMs, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      // as partes em andamento terminam sozinhas; a resposta não espera por elas
+      throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Servidor ocupado, tente novamente");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrompido montando o dashboard", e);
+    } catch (ExecutionException e) {
+      // devolve o erro da parte que falhou (ex.: "Aluno não encontrado") como se fosse síncrono
+      Throwable cause = e.getCause() instanceof CompletionException ce ? ce.getCause() : e.getCause();
+      if (cause instanceof RuntimeException re) throw re;
+      throw new IllegalStateException("Falha montando o dashboard", cause);
+    }
+
+    Map<String, Object> out = new LinkedHashMap<>();
+    out.put("perfil", perfil.join());
+    out.put("saldo", saldo.join());
+    out.put("ledger", hist.join());
+    if (catalogo != null) {
+      out.put("beneficios", new RawValue(new String(catalogo.join(), StandardCharsets.UTF_8)));
+    }
+    return out;
+  }
+}
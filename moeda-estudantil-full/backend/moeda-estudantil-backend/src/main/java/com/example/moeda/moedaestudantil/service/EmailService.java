@@ -1,34 +1,84 @@
 package com.example.moeda.moedaestudantil.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Envio de e-mails pelo EmailJS.
+ *
+ * Um único {@link HttpClient} (HTTP/2, conexões reaproveitadas) é compartilhado
+ * por todas as chamadas, com timeouts configuráveis, limite de requisições
+ * simultâneas e um {@link CircuitBreaker} que para de chamar o provedor depois
+ * de várias respostas de erro seguidas.
+ */
 @Service
 public class EmailService {
 
-    @Value("${emailjs.service-id}")
-    private String serviceId;
-
+    private final String serviceId;
     // template específico para resgate de benefício
-    @Value("${emailjs.template-id-redeem}")
-    private String redeemTemplateId;
-
+    private final String redeemTemplateId;
     // template específico para redefinição de senha
-    @Value("${emailjs.template-id-reset-password}")
-    private String resetPasswordTemplateId;
-
-    @Value("${emailjs.public-key}")
-    private String publicKey;
+    private final String resetPasswordTemplateId;
+    private final String publicKey;
 
+    private final URI endpoint;
+    private final Duration requestTimeout;
+    private final HttpClient http;
+    private final int maxConcurrency;
+    private final Semaphore permits;
+    private final CircuitBreaker breaker;
     private final ObjectMapper mapper = new ObjectMapper();
 
+    // métricas por chamada
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalLatencyMicros = new LongAdder();
+    private final AtomicLong maxLatencyMicros = new AtomicLong();
+
+    public EmailService(
+            @Value("${emailjs.service-id}") String serviceId,
+            @Value("${emailjs.template-id-redeem}") String redeemTemplateId,
+            @Value("${emailjs.template-id-reset-password}") String resetPasswordTemplateId,
+            @Value("${emailjs.public-key}") String publicKey,
+            @Value("${emailjs.url:https://api.emailjs.com/api/v1.0/email/send}") String url,
+            @Value("${emailjs.connect-timeout:PT5S}") Duration connectTimeout,
+            @Value("${emailjs.request-timeout:PT10S}") Duration requestTimeout,
+            @Value("${emailjs.max-concurrency:8}") int maxConcurrency,
+            @Value("${emailjs.breaker.failures:5}") int breakerFailures,
+            @Value("${emailjs.breaker.open-for:PT1M}") Duration breakerOpenFor
+    ) {
+        this.serviceId = serviceId;
+        this.redeemTemplateId = redeemTemplateId;
+        this.resetPasswordTemplateId = resetPasswordTemplateId;
+        this.publicKey = publicKey;
+        this.endpoint = URI.create(url);
+        this.requestTimeout = requestTimeout;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .build();
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency);
+        this.breaker = new CircuitBreaker(breakerFailures, breakerOpenFor);
+    }
+
     /**
      * Versão antiga (compatível) SEM imagem.
      * Mantida para não quebrar chamadas existentes.
@@ -52,7 +102,7 @@ public class EmailService {
     }
 
     /**
-     * Envia e-mail de resgate de benefício usando EmailJS.
+     * Envia e-mail de resgate de benefício usando EmailJS (bloqueia até a resposta).
      *
      * Espera que o template no EmailJS use as variáveis:
      *  - to_email
@@ -69,57 +119,37 @@ public class EmailService {
             int beneficioCusto,
             String codigoResgate,
             String beneficioImagemUrl
+    ) {
+        join(sendBenefitRedemptionEmailAsync(toEmail, alunoNome, beneficioTitulo, beneficioCusto, codigoResgate, beneficioImagemUrl));
+    }
+
+    public CompletableFuture<Void> sendBenefitRedemptionEmailAsync(
+            String toEmail,
+            String alunoNome,
+            String beneficioTitulo,
+            int beneficioCusto,
+            String codigoResgate,
+            String beneficioImagemUrl
     ) {
         if (toEmail == null || toEmail.isBlank()) {
             System.err.println("[EmailService] E-mail do aluno vazio, não enviando.");
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
-        try {
-            URL url = new URL("https://api.emailjs.com/api/v1.0/email/send");
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Content-Type", "application/json");
-            conn.setDoOutput(true);
-
-            // Parâmetros que o template do EmailJS vai receber
-            Map<String, Object> templateParams = new HashMap<>();
-            templateParams.put("to_email", toEmail);
-            templateParams.put("aluno_nome", alunoNome);
-            templateParams.put("beneficio_titulo", beneficioTitulo);
-            templateParams.put("beneficio_custo", beneficioCusto);
-            templateParams.put("codigo_resgate", codigoResgate);
-
-            // só envia a variável se tiver URL
-            if (beneficioImagemUrl != null && !beneficioImagemUrl.isBlank()) {
-                templateParams.put("beneficio_imagem", beneficioImagemUrl);
-            }
-
-            // Corpo da requisição para o EmailJS
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("service_id", serviceId);
-            payload.put("template_id", redeemTemplateId);
-            payload.put("user_id", publicKey);
-            payload.put("template_params", templateParams);
-
-            String json = mapper.writeValueAsString(payload);
-
-            try (var os = conn.getOutputStream()) {
-                os.write(json.getBytes(StandardCharsets.UTF_8));
-            }
-
-            int status = conn.getResponseCode();
-            if (status >= 200 && status < 300) {
-                System.out.println("[EmailService] EmailJS OK (redeem): HTTP " + status);
-            } else {
-                System.err.println("[EmailService] EmailJS erro (redeem): HTTP " + status);
-            }
-
-            conn.disconnect();
-        } catch (Exception e) {
-            System.err.println("[EmailService] Falha ao chamar EmailJS (redeem)");
-            e.printStackTrace();
+        // Parâmetros que o template do EmailJS vai receber
+        Map<String, Object> templateParams = new HashMap<>();
+        templateParams.put("to_email", toEmail);
+        templateParams.put("aluno_nome", alunoNome);
+        templateParams.put("beneficio_titulo", beneficioTitulo);
+        templateParams.put("beneficio_custo", beneficioCusto);
+        templateParams.put("codigo_resgate", codigoResgate);
+
+        // só envia a variável se tiver URL
+        if (beneficioImagemUrl != null && !beneficioImagemUrl.isBlank()) {
+            templateParams.put("beneficio_imagem", beneficioImagemUrl);
         }
+
+        return post(redeemTemplateId, templateParams, "redeem");
     }
 
     // ==========================================================
@@ -132,50 +162,103 @@ public class EmailService {
      *  - nova_senha
      */
     public void sendPasswordResetEmail(String toEmail, String tipoUsuario, String novaSenha) {
-        System.out.println("[EmailService] Preparando envio de reset para " + toEmail +
-                " | tipo_usuario=" + tipoUsuario +
-                " | nova_senha=" + novaSenha);
+        join(sendPasswordResetEmailAsync(toEmail, tipoUsuario, novaSenha));
+    }
 
+    public CompletableFuture<Void> sendPasswordResetEmailAsync(String toEmail, String tipoUsuario, String novaSenha) {
         if (toEmail == null || toEmail.isBlank()) {
             System.err.println("[EmailService] E-mail vazio em reset de senha, não enviando.");
-            return;
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Map<String, Object> templateParams = new HashMap<>();
+        templateParams.put("to_email", toEmail);
+        templateParams.put("tipo_usuario", tipoUsuario);
+        templateParams.put("nova_senha", novaSenha);
+
+        return post(resetPasswordTemplateId, templateParams, "reset password");
+    }
+
+    // Contadores para o endpoint de administração
+    public Map<String, Object> stats() {
+        long n = calls.sum();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("calls", n);
+        out.put("failures", failures.sum());
+        out.put("rejected", rejected.sum());
+        out.put("avgLatencyMs", n == 0 ? 0.0 : totalLatencyMicros.sum() / 1000.0 / n);
+        out.put("maxLatencyMs", maxLatencyMicros.get() / 1000.0);
+        out.put("inFlight", maxConcurrency - permits.availablePermits());
+        out.put("circuit", breaker.state().name());
+        return out;
+    }
+
+    // ====== helpers ======
+
+    private CompletableFuture<Void> post(String templateId, Map<String, Object> templateParams, String label) {
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(new IllegalStateException("Limite de envios simultâneos atingido"));
+        }
+        if (!breaker.allow()) {
+            permits.release();
+            rejected.increment();
+            return CompletableFuture.failedFuture(new IllegalStateException("EmailJS indisponível (circuito aberto)"));
         }
 
+        // Corpo da requisição para o EmailJS
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("service_id", serviceId);
+        payload.put("template_id", templateId);
+        payload.put("user_id", publicKey);
+        payload.put("template_params", templateParams);
+
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(endpoint)
+                    .timeout(requestTimeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(payload)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            permits.release();
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Parâmetros inválidos", e));
+        }
+
+        long start = System.nanoTime();
+        calls.increment();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((resp, err) -> {
+                    permits.release();
+                    long micros = (System.nanoTime() - start) / 1_000;
+                    totalLatencyMicros.add(micros);
+                    maxLatencyMicros.accumulateAndGet(micros, Math::max);
+
+                    if (err != null) {
+                        failures.increment();
+                        breaker.onFailure();
+                        System.err.println("[EmailService] Falha ao chamar EmailJS (" + label + "): " + err.getMessage());
+                        throw new IllegalStateException("Falha ao chamar EmailJS: " + err.getMessage(), err);
+                    }
+                    int status = resp.statusCode();
+                    if (status >= 200 && status < 300) {
+                        breaker.onSuccess();
+                        System.out.println("[EmailService] EmailJS OK (" + label + "): HTTP " + status + " em " + micros / 1000 + " ms");
+                        return null;
+                    }
+                    failures.increment();
+                    breaker.onFailure();
+                    System.err.println("[EmailService] EmailJS erro (" + label + "): HTTP " + status);
+                    throw new IllegalStateException("EmailJS respondeu HTTP " + status);
+                });
+    }
+
+    private static void join(CompletableFuture<Void> f) {
         try {
-            URL url = new URL("https://api.emailjs.com/api/v1.0/email/send");
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Content-Type", "application/json");
-            conn.setDoOutput(true);
-
-            Map<String, Object> templateParams = new HashMap<>();
-            templateParams.put("to_email", toEmail);
-            templateParams.put("tipo_usuario", tipoUsuario);
-            templateParams.put("nova_senha", novaSenha);
-
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("service_id", serviceId);
-            payload.put("template_id", resetPasswordTemplateId);
-            payload.put("user_id", publicKey);
-            payload.put("template_params", templateParams);
-
-            String json = mapper.writeValueAsString(payload);
-
-            try (var os = conn.getOutputStream()) {
-                os.write(json.getBytes(StandardCharsets.UTF_8));
-            }
-
-            int status = conn.getResponseCode();
-            if (status >= 200 && status < 300) {
-                System.out.println("[EmailService] EmailJS OK (reset password): HTTP " + status);
-            } else {
-                System.err.println("[EmailService] EmailJS erro (reset password): HTTP " + status);
-            }
-
-            conn.disconnect();
-        } catch (Exception e) {
-            System.err.println("[EmailService] Falha ao chamar EmailJS (reset password)");
-            e.printStackTrace();
+            f.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
         }
     }
 }
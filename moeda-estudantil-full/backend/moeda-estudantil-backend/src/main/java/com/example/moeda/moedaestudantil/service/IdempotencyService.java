@@ -0,0 +1,171 @@
+package com.example.moeda.moedaestudantil.service;
+
+import com.example.moeda.moedaestudantil.domain.IdempotencyRecord;
+import com.example.moeda.moedaestudantil.repo.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Suporte ao header Idempotency-Key nas rotas que movem moedas.
+ *
+ * Primeira vez: grava o registro e executa a operação na mesma transação,
+ * depois guarda a resposta. Repetição: devolve a resposta guardada (do cache
+ * em memória ou da tabela) sem executar de novo. Duas requisições iguais ao
+ * mesmo tempo esbarram no índice único: a segunda espera o commit da primeira
+ * e recebe a resposta dela. Se a operação falhar nada é gravado e o cliente
+ * pode tentar de novo com a mesma chave.
+ */
+@Service
+public class IdempotencyService {
+
+  public static final String HEADER = "Idempotency-Key";
+
+  private record Stored(String requestHash, int status, String response) {}
+
+  private final IdempotencyRecordRepository repo;
+  private final ObjectMapper mapper;
+  private final TransactionTemplate tx;
+  private final Duration ttl;
+  private final Cache<String, Stored> recent;
+
+  private final LongAdder executed = new LongAdder();
+  private final LongAdder replayedFromCache = new LongAdder();
+  private final LongAdder replayedFromDb = new LongAdder();
+
+  public IdempotencyService(IdempotencyRecordRepository repo,
+                            ObjectMapper mapper,
+                            PlatformTransactionManager txManager,
+                            @Value("${app.idempotency.ttl:P1D}") Duration ttl,
+                            @Value("${app.idempotency.cache-size:10000}") long cacheSize) {
+    this.repo = repo;
+    this.mapper = mapper;
+    this.tx = new TransactionTemplate(txManager);
+    this.ttl = ttl;
+    this.recent = Caffeine.newBuilder()
+        .maximumSize(cacheSize)
+        .expireAfterWrite(ttl)
+        .build();
+  }
+
+  public ResponseEntity<?> execute(String scope, String key, Object request, Supplier<ResponseEntity<?>> action) {
+    if (key == null || key.isBlank()) return action.get();
+    if (key.length() > 100)
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, HEADER + " com mais de 100 caracteres");
+
+    String hash = hash(request);
+    String cacheKey = scope + "|" + key;
+
+    Stored hit = recent.getIfPresent(cacheKey);
+    if (hit != null) {
+      replayedFromCache.increment();
+      return replay(hit, hash);
+    }
+    var existing = repo.findByScopeAndIdemKey(scope, key);
+    if (existing.isPresent()) {
+      replayedFromDb.increment();
+      return replay(remember(cacheKey, existing.get()), hash);
+    }
+
+    try {
+      Stored stored = tx.execute(s -> {
+        var rec = repo.saveAndFlush(IdempotencyRecord.builder()
+            .scope(scope)
+            .idemKey(key)
+            .requestHash(hash)
+            .build());
+        ResponseEntity<?> resp = action.get();
+        rec.setStatus(resp.getStatusCode().value());
+        rec.setResponse(toJson(resp.getBody()));
+        return new Stored(hash, rec.getStatus(), rec.getResponse());
+      });
+      executed.increment();
+      recent.put(cacheKey, stored);
+      return build(stored, false);
+    } catch (DataIntegrityViolationException e) {
+      // outra requisição com a mesma chave comitou primeiro
+      var winner = repo.findByScopeAndIdemKey(scope, key).orElseThrow(() -> e);
+      replayedFromDb.increment();
+      return replay(remember(cacheKey, winner), hash);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval:PT1H}")
+  public void cleanup() {
+    try {
+      int n = repo.deleteOlderThan(Instant.now().minus(ttl));
+      if (n > 0) System.out.println("[Idempotency] " + n + " chave(s) expirada(s) removida(s)");
+    } catch (Exception e) {
+      System.err.println("[Idempotency] Falha ao limpar chaves antigas");
+      e.printStackTrace();
+    }
+  }
+
+  public Map<String, Object> stats() {
+    Map<String, Object> out = new LinkedHashMap<>();
+    out.put("cached", recent.estimatedSize());
+    out.put("executed", executed.sum());
+    out.put("replayedFromCache", replayedFromCache.sum());
+    out.put("replayedFromDb", replayedFromDb.sum());
+    return out;
+  }
+
+  private Stored remember(String cacheKey, IdempotencyRecord r) {
+    Stored s = new Stored(r.getRequestHash(), r.getStatus(), r.getResponse());
+    recent.put(cacheKey, s);
+    return s;
+  }
+
+  private ResponseEntity<?> replay(Stored s, String requestHash) {
+    if (!s.requestHash().equals(requestHash))
+      throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, HEADER + " já usada com outra requisição");
+    return build(s, true);
+  }
+
+  private static ResponseEntity<?> build(Stored s, boolean replayed) {
+    var b = ResponseEntity.status(s.status());
+    if (replayed) b.header("Idempotent-Replayed", "true");
+    if (s.response() == null) return b.build();
+    return b.contentType(MediaType.APPLICATION_JSON).body(s.response().getBytes(StandardCharsets.UTF_8));
+  }
+
+  private String toJson(Object body) {
+    if (body == null) return null;
+    try {
+      return mapper.writeValueAsString(body);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Falha ao serializar resposta", e);
+    }
+  }
+
+  private String hash(Object request) {
+    try {
+      byte[] raw = request == null ? new byte[0] : mapper.writeValueAsBytes(request);
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(raw));
+    } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+      throw new IllegalStateException("Falha ao calcular hash da requisição", e);
+    }
+  }
+}
@@ -0,0 +1,206 @@
+package com.example.moeda.moedaestudantil.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Partições mensais (UTC) do ledger_entry: ledger_entry_AAAA_MM.
+ *
+ * Na subida a tabela comum é convertida em particionada por range(ts) e ficam
+ * criados o mês atual e os próximos {@link #AHEAD} (renovado todo dia).
+ * Meses mais antigos que app.ledger.retain-months podem ser exportados para
+ * CSV gzip em app.ledger.archive-dir; a partição só é removida depois do
+ * arquivo completo estar no disco.
+ */
+@Service
+public class LedgerPartitionService {
+
+  private static final int AHEAD = 2;
+  private static final String PREFIX = "ledger_entry_";
+
+  private final JdbcTemplate jdbc;
+  private final JdbcTemplate streaming;
+  private final TransactionTemplate tx;
+  private final Path archiveDir;
+  private final int retainMonths;
+  private final boolean autoArchive;
+
+  public LedgerPartitionService(JdbcTemplate jdbc,
+                                DataSource dataSource,
+                                PlatformTransactionManager txManager,
+                                @Value("${app.ledger.archive-dir:data/ledger-archive}") String archiveDir,
+                                @Value("${app.ledger.retain-months:24}") int retainMonths,
+                                @Value("${app.ledger.auto-archive:false}") boolean autoArchive) {
+    this.jdbc = jdbc;
+    // export lê a partição em blocos (cursor do driver), sem carregar tudo na memória
+    this.streaming = new JdbcTemplate(dataSource);
+    this.streaming.setFetchSize(1000);
+    this.tx = new TransactionTemplate(txManager);
+    this.archiveDir = Path.of(archiveDir);
+    this.retainMonths = retainMonths;
+    this.autoArchive = autoArchive;
+  }
+
+  // ====== conversão (uma vez) ======
+
+  public boolean isPartitioned() {
+    String kind = jdbc.queryForObject(
+        "select relkind::text from pg_class where oid = to_regclass('ledger_entry')", String.class);
+    return "p".equals(kind);
+  }
+
+  /** Converte ledger_entry em tabela particionada, copiando as linhas existentes. */
+  public void convertIfNeeded() {
+    if (isPartitioned()) return;
+    tx.executeWithoutResult(s -> {
+      jdbc.execute("update ledger_entry set ts = to_timestamp(0) where ts is null");
+      jdbc.execute("alter table ledger_entry rename to ledger_entry_legacy");
+      jdbc.execute("create table ledger_entry (like ledger_entry_legacy including defaults) partition by range (ts)");
+      jdbc.execute("alter table ledger_entry alter column ts set not null");
+
+      List<Date> months = jdbc.queryForList(
+          "select distinct date_trunc('month', ts at time zone 'UTC')::date from ledger_entry_legacy", Date.class);
+      months.forEach(m -> createMonth(YearMonth.from(m.toLocalDate())));
+      ensureAhead();
+
+      long n = jdbc.update("insert into ledger_entry select * from ledger_entry_legacy");
+      jdbc.execute("drop table ledger_entry_legacy");
+
+      // mesmos nomes dos @Index de LedgerEntry; a PK precisa incluir a chave de partição
+      jdbc.execute("alter table ledger_entry add primary key (id, ts)");
+      jdbc.execute("create index ix_ledger_from_ts on ledger_entry (from_type, from_id, ts, id)");
+      jdbc.execute("create index ix_ledger_to_ts on ledger_entry (to_type, to_id, ts, id)");
+      jdbc.execute("create index ix_ledger_ts on ledger_entry (ts)");
+      System.out.println("[LedgerPartitions] ledger_entry convertido em particionado por mês (" + n + " linha(s))");
+    });
+  }
+
+  // ====== manutenção ======
+
+  @Scheduled(cron = "${app.ledger.partition-cron:0 15 3 * * *}")
+  public void scheduled() {
+    try {
+      ensureAhead();
+      if (autoArchive) archiveOld();
+    } catch (Exception e) {
+      System.err.println("[LedgerPartitions] Falha na manutenção das partições");
+      e.printStackTrace();
+    }
+  }
+
+  public void ensureAhead() {
+    YearMonth now = YearMonth.now(ZoneOffset.UTC);
+    for (int i = 0; i <= AHEAD; i++) createMonth(now.plusMonths(i));
+  }
+
+  public List<Map<String, Object>> list() {
+    List<Map<String, Object>> out = new ArrayList<>();
+    for (String name : partitionNames()) {
+      Map<String, Object> p = new LinkedHashMap<>();
+      p.put("partition", name);
+      p.put("month", monthOf(name).toString());
+      p.put("approxRows", jdbc.queryForObject(
+          "select reltuples::bigint from pg_class where oid = to_regclass(?)", Long.class, name));
+      p.put("bytes", jdbc.queryForObject("select pg_total_relation_size(to_regclass(?))", Long.class, name));
+      out.add(p);
+    }
+    return out;
+  }
+
+  /** Exporta e remove as partições anteriores ao período de retenção. */
+  public List<String> archiveOld() {
+    YearMonth limit = YearMonth.now(ZoneOffset.UTC).minusMonths(retainMonths);
+    List<String> done = new ArrayList<>();
+    for (String name : partitionNames()) {
+      if (monthOf(name).isBefore(limit)) done.add(archive(name));
+    }
+    return done;
+  }
+
+  // ====== helpers ======
+
+  private void createMonth(YearMonth m) {
+    LocalDate from = m.atDay(1);
+    LocalDate to = from.plusMonths(1);
+    jdbc.execute("create table if not exists " + name(m) + " partition of ledger_entry "
+        + "for values from ('" + from.atStartOfDay(ZoneOffset.UTC).toInstant() + "') "
+        + "to ('" + to.atStartOfDay(ZoneOffset.UTC).toInstant() + "')");
+  }
+
+  private List<String> partitionNames() {
+    return jdbc.queryForList(
+        "select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid "
+            + "where i.inhparent = to_regclass('ledger_entry') order by c.relname",
+        String.class);
+  }
+
+  private String archive(String partition) {
+    Path target = archiveDir.resolve(partition + ".csv.gz");
+    try {
+      Files.createDirectories(archiveDir);
+      Path tmp = Files.createTempFile(archiveDir, partition, ".tmp");
+      try (Writer w = new BufferedWriter(new OutputStreamWriter(
+          new GZIPOutputStream(Files.newOutputStream(tmp)), StandardCharsets.UTF_8))) {
+        w.write("id,ts,kind,from_type,from_id,to_type,to_id,amount,reason\n");
+        // leitura com fetchSize só vira cursor dentro de transação
+        tx.executeWithoutResult(s -> streaming.query(
+            "select id, ts, kind, from_type, from_id, to_type, to_id, amount, reason from " + partition + " order by ts, id",
+            rs -> {
+              try {
+                w.write(rs.getLong(1) + "," + rs.getTimestamp(2).toInstant() + "," + csv(rs.getString(3)) + ","
+                    + csv(rs.getString(4)) + "," + csv(rs.getString(5)) + "," + csv(rs.getString(6)) + ","
+                    + csv(rs.getString(7)) + "," + csv(rs.getString(8)) + "," + csv(rs.getString(9)) + "\n");
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            }));
+      }
+      Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Falha ao exportar " + partition, e);
+    }
+
+    jdbc.execute("drop table " + partition);
+    System.out.println("[LedgerPartitions] " + partition + " exportada para " + target + " e removida");
+    return partition;
+  }
+
+  private static String csv(String v) {
+    if (v == null) return "";
+    if (v.indexOf(',') < 0 && v.indexOf('"') < 0 && v.indexOf('\n') < 0) return v;
+    return "\"" + v.replace("\"", "\"\"") + "\"";
+  }
+
+  private static String name(YearMonth m) {
+    return PREFIX + m.getYear() + "_" + String.format("%02d", m.getMonthValue());
+  }
+
+  private static YearMonth monthOf(String partition) {
+    String[] p = partition.substring(PREFIX.length()).split("_");
+    return YearMonth.of(Integer.parseInt(p[0]), Integer.parseInt(p[1]));
+  }
+}
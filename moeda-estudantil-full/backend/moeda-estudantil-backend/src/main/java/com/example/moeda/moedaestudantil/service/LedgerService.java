@@ -0,0 +1,87 @@
+package com.example.moeda.moedaestudantil.service;
+
+import com.example.moeda.moedaestudantil.domain.LedgerEntry;
+import com.example.moeda.moedaestudantil.domain.UserType;
+import com.example.moeda.moedaestudantil.dto.LedgerDtos.Page;
+import com.example.moeda.moedaestudantil.repo.LedgerRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Histórico paginado por cursor (keyset em ts, id).
+ * O cursor é opaco para o cliente: base64url de "ts|id|since" da última entrada da página.
+ *
+ * Por padrão só a janela recente (app.ledger.recent-window) é lida, o que
+ * limita a consulta às partições mensais mais novas; ?since=AAAA-MM-DD amplia.
+ */
+@Service
+public class LedgerService {
+
+  public static final int DEFAULT_LIMIT = 20;
+  public static final int MAX_LIMIT = 100;
+
+  // primeira página: tudo que é anterior a "infinito"
+  private static final Instant FAR_FUTURE = Instant.parse("9999-12-31T00:00:00Z");
+
+  private final LedgerRepository repo;
+  private final Duration recentWindow;
+
+  public LedgerService(LedgerRepository repo,
+                       @Value("${app.ledger.recent-window:P180D}") Duration recentWindow) {
+    this.repo = repo;
+    this.recentWindow = recentWindow;
+  }
+
+  public Page page(UserType type, Long id, String cursor, Integer limit) {
+    return page(type, id, cursor, limit, null);
+  }
+
+  public Page page(UserType type, Long id, String cursor, Integer limit, String sinceParam) {
+    int size = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+
+    Instant since = parseSince(sinceParam);
+    Instant ts = FAR_FUTURE;
+    long cursorId = Long.MAX_VALUE;
+    if (cursor != null && !cursor.isBlank()) {
+      try {
+        String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+        ts = Instant.parse(parts[0]);
+        cursorId = Long.parseLong(parts[1]);
+        // a janela segue a do cursor (cursores antigos, sem janela, usam a padrão)
+        if (parts.length > 2) since = Instant.parse(parts[2]);
+      } catch (RuntimeException e) {
+        throw new IllegalArgumentException("Cursor inválido");
+      }
+    }
+
+    // busca uma a mais só para saber se existe próxima página
+    List<LedgerEntry> rows = repo.findPageBefore(type.name(), id, ts, cursorId, since, size + 1);
+    if (rows.size() <= size) {
+      return new Page(rows, null, since);
+    }
+    List<LedgerEntry> items = rows.subList(0, size);
+    return new Page(items, encode(items.get(size - 1), since), since);
+  }
+
+  private Instant parseSince(String since) {
+    if (since == null || since.isBlank()) return Instant.now().minus(recentWindow);
+    try {
+      return LocalDate.parse(since).atStartOfDay(ZoneOffset.UTC).toInstant();
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException("Data inválida (use AAAA-MM-DD)");
+    }
+  }
+
+  private static String encode(LedgerEntry last, Instant since) {
+    String raw = last.getTs() + "|" + last.getId() + "|" + since;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,111 @@
+package com.example.moeda.moedaestudantil.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Limite de tentativas de login erradas por e-mail e por IP, em janela fixa.
+ * Cada contador guarda (janela << 32 | falhas) e é atualizado sem lock.
+ * Cadastro e reset de senha (que também rodam BCrypt ou mandam e-mail) têm um
+ * limite próprio por IP em que toda chamada conta, certa ou errada.
+ *
+ * Por e-mail o contador é da chave exata (e-mail já normalizado), num cache
+ * limitado: o login correto zera só o contador daquele e-mail. Com stripes, o
+ * login certo de uma conta que caísse no mesmo slot zeraria o da vítima.
+ * Por IP os contadores ficam em arrays de tamanho fixo (stripes) indexados pelo
+ * hash: memória constante, nunca são zerados, e colisões só deixam o limite
+ * mais rígido.
+ */
+@Service
+public class LoginThrottle {
+
+  private static final int STRIPES = 4096; // potência de 2
+
+  private final Cache<String, AtomicLong> byEmail;
+  private final AtomicLongArray byIp = new AtomicLongArray(STRIPES);
+  private final AtomicLongArray opsByIp = new AtomicLongArray(STRIPES);
+  private final long windowMs;
+  private final int maxPerEmail;
+  private final int maxPerIp;
+  private final int maxOpsPerIp;
+
+  public LoginThrottle(@Value("${app.auth.throttle.window:PT5M}") Duration window,
+                       @Value("${app.auth.throttle.max-per-email:5}") int maxPerEmail,
+                       @Value("${app.auth.throttle.max-per-ip:30}") int maxPerIp,
+                       @Value("${app.auth.throttle.max-emails:100000}") long maxEmails,
+                       @Value("${app.auth.throttle.max-account-ops-per-ip:10}") int maxOpsPerIp) {
+    this.byEmail = Caffeine.newBuilder()
+        .maximumSize(maxEmails)
+        .expireAfterWrite(window)
+        .build();
+    this.windowMs = window.toMillis();
+    this.maxPerEmail = maxPerEmail;
+    this.maxPerIp = maxPerIp;
+    this.maxOpsPerIp = maxOpsPerIp;
+  }
+
+  // email: já normalizado (Account.normalize), o mesmo usado para achar a conta
+  public boolean blocked(String email, String ip) {
+    long w = window();
+    AtomicLong e = email == null ? null : byEmail.getIfPresent(email);
+    return (e != null && count(e.get(), w) >= maxPerEmail)
+        || count(byIp.get(slot(ip)), w) >= maxPerIp;
+  }
+
+  public void failure(String email, String ip) {
+    long w = window();
+    if (email != null) {
+      AtomicLong e = byEmail.get(email, k -> new AtomicLong());
+      e.updateAndGet(v -> next(v, w));
+    }
+    int i = slot(ip);
+    while (true) {
+      long v = byIp.get(i);
+      if (byIp.compareAndSet(i, v, next(v, w))) return;
+    }
+  }
+
+  // login correto zera o contador do e-mail (o do IP segue valendo)
+  public void success(String email) {
+    if (email != null) byEmail.invalidate(email);
+  }
+
+  // Cadastro/reset: conta a chamada e devolve false se o IP já passou do limite na janela
+  public boolean tryAccountOp(String ip) {
+    long w = window();
+    int i = slot(ip);
+    while (true) {
+      long v = opsByIp.get(i);
+      if (count(v, w) >= maxOpsPerIp) return false;
+      if (opsByIp.compareAndSet(i, v, next(v, w))) return true;
+    }
+  }
+
+  private long window() {
+    return System.currentTimeMillis() / windowMs;
+  }
+
+  private static int slot(String key) {
+    int h = key == null ? 0 : key.toLowerCase().hashCode();
+    h ^= (h >>> 16);
+    return h & (STRIPES - 1);
+  }
+
+  private static int count(long v, long w) {
+    return (v >>> 32) == (w & 0xFFFFFFFFL) ? (int) v : 0;
+  }
+
+  // mais uma falha; contador de janela anterior recomeça em 1
+  private static long next(long v, long w) {
+    long win = w & 0xFFFFFFFFL;
+    return (v >>> 32) == win
+        ? (win << 32) | (((int) v + 1) & 0xFFFFFFFFL)
+        : (win << 32) | 1L;
+  }
+}
@@ -19,6 +19,7 @@ public class MailService {
         this.mailSender = mailSender;
     }
 
+    // Lança exceção em caso de falha: quem chama (OutboxWorker) agenda nova tentativa
     public void sendHtml(String to, String subject, String html) {
         try {
             MimeMessage message = mailSender.createMimeMessage();
@@ -41,6 +42,7 @@ public class MailService {
             System.err.println("[MailService] ERRO AO ENVIAR E-MAIL");
             e.printStackTrace();
             System.out.println("========================================");
+            throw new IllegalStateException("Falha no envio SMTP: " + e.getMessage(), e);
         }
     }
 }
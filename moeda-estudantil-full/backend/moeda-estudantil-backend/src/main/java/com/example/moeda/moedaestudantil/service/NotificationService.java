@@ -0,0 +1,90 @@
+package com.example.moeda.moedaestudantil.service;
+
+import com.example.moeda.moedaestudantil.domain.OutboxChannel;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Monta os e-mails do sistema e os coloca no outbox.
+ * Deve ser chamado dentro da transação da operação que gera o e-mail.
+ */
+@Service
+public class NotificationService {
+
+  private final OutboxService outbox;
+
+  public NotificationService(OutboxService outbox) {
+    this.outbox = outbox;
+  }
+
+  public void cadastroAluno(String email, String nome) {
+    html(email, "Cadastro confirmado – Moedas Escolares (Aluno)", """
+        <h2>Olá, %s!</h2>
+        <p>Seu cadastro como <strong>Aluno</strong> foi concluído com sucesso.</p>
+        <p>Agora você já pode acessar o sistema, acompanhar seu saldo e resgatar benefícios.</p>
+        <p>Bons estudos!<br>Equipe Moedas Escolares</p>
+        """.formatted(nome));
+  }
+
+  public void cadastroProfessor(String email, String nome) {
+    html(email, "Cadastro confirmado – Moedas Escolares (Professor)", """
+        <h2>Olá, %s!</h2>
+        <p>Seu cadastro como <strong>Professor</strong> foi concluído com sucesso.</p>
+        <p>Você já pode distribuir moedas aos alunos e acompanhar o histórico.</p>
+        <p>Abraços,<br>Equipe Moedas Escolares</p>
+        """.formatted(nome));
+  }
+
+  public void cadastroEmpresa(String email, String nome) {
+    html(email, "Cadastro confirmado – Moedas Escolares (Empresa Parceira)", """
+        <h2>Olá, %s!</h2>
+        <p>Seu cadastro como <strong>Empresa Parceira</strong> foi concluído com sucesso.</p>
+        <p>Você já pode criar benefícios e distribuir moedas para professores.</p>
+        <p>Bem-vindos!<br>Equipe Moedas Escolares</p>
+        """.formatted(nome));
+  }
+
+  // Reset de senha, 1º passo: o código de uso único vai só por SMTP. O template
+  // de reset do EmailJS recebia a senha nova em texto e não é mais usado.
+  public void codigoRedefinicao(String email, String roleLabel, String codigo, long validadeMin) {
+    html(email, "Código para redefinir sua senha – Moedas Escolares", """
+        Olá,<br><br>
+        Recebemos um pedido para redefinir sua senha de acesso como <strong>%s</strong>.<br>
+        Use o código abaixo na tela de login (vale por %d minutos e uma única vez):<br><br>
+        <strong style="font-family: monospace">%s</strong><br><br>
+        Se você não solicitou esta alteração, ignore este e-mail: sua senha continua a mesma.<br><br>
+        Equipe Moedas Escolares.
+        """.formatted(roleLabel, validadeMin, codigo));
+  }
+
+  // Reset de senha, 2º passo: só o aviso; a senha nova nunca vai por e-mail
+  public void senhaRedefinida(String email, String roleLabel) {
+    html(email, "Sua senha foi redefinida – Moedas Escolares", """
+        Olá,<br><br>
+        Sua senha de acesso como <strong>%s</strong> foi redefinida.<br>
+        Se você não fez esta alteração, entre em contato com o suporte.<br><br>
+        Equipe Moedas Escolares.
+        """.formatted(roleLabel));
+  }
+
+  public void resgate(String email, String alunoNome, String beneficioTitulo, int beneficioCusto, String codigo) {
+    Map<String, Object> p = new HashMap<>();
+    p.put("to", email);
+    p.put("alunoNome", alunoNome);
+    p.put("beneficioTitulo", beneficioTitulo);
+    p.put("beneficioCusto", beneficioCusto);
+    p.put("codigo", codigo);
+    outbox.enqueue(OutboxChannel.EMAILJS_REDEEM, p);
+  }
+
+  private void html(String to, String subject, String html) {
+    if (to == null || to.isBlank()) return;
+    Map<String, Object> p = new HashMap<>();
+    p.put("to", to);
+    p.put("subject", subject);
+    p.put("html", html);
+    outbox.enqueue(OutboxChannel.SMTP_HTML, p);
+  }
+}
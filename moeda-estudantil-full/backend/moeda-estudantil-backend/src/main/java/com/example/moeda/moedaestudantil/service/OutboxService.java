@@ -0,0 +1,126 @@
+package com.example.moeda.moedaestudantil.service;
+
+import com.example.moeda.moedaestudantil.domain.OutboxChannel;
+import com.example.moeda.moedaestudantil.domain.OutboxMessage;
+import com.example.moeda.moedaestudantil.domain.OutboxStatus;
+import com.example.moeda.moedaestudantil.repo.OutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class OutboxService {
+
+  public static final int MAX_ATTEMPTS = 8;
+  // enquanto uma mensagem está sendo enviada, outra busca só a pega de novo após o lease
+  private static final Duration LEASE = Duration.ofMinutes(2);
+  private static final Duration BACKOFF_BASE = Duration.ofSeconds(5);
+  private static final Duration BACKOFF_MAX = Duration.ofHours(1);
+
+  private final OutboxRepository repo;
+  private final ObjectMapper mapper;
+  private final Duration sentRetention;
+
+  public OutboxService(OutboxRepository repo,
+                       ObjectMapper mapper,
+                       @Value("${app.outbox.sent-retention:P7D}") Duration sentRetention) {
+    this.repo = repo;
+    this.mapper = mapper;
+    this.sentRetention = sentRetention;
+  }
+
+  // Participa da transação de quem chamou: a mensagem só existe se a operação comitar
+  @Transactional
+  public void enqueue(OutboxChannel channel, Map<String, Object> params) {
+    try {
+      repo.save(OutboxMessage.builder()
+          .channel(channel)
+          .payload(mapper.writeValueAsString(params))
+          .build());
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Parâmetros de e-mail inválidos", e);
+    }
+  }
+
+  // Reserva até "limit" mensagens vencidas (conta a tentativa e empurra o próximo horário pelo lease)
+  @Transactional
+  public List<OutboxMessage> claimDue(int limit) {
+    Instant now = Instant.now();
+    var due = repo.lockDue(now, limit);
+    for (var m : due) {
+      m.setAttempts(m.getAttempts() + 1);
+      m.setNextAttemptAt(now.plus(LEASE));
+    }
+    return due;
+  }
+
+  // O payload sai junto: o de reset de senha tem a senha nova em texto puro
+  @Transactional
+  public void markSent(Long id) {
+    repo.findById(id).ifPresent(m -> {
+      m.setStatus(OutboxStatus.SENT);
+      m.setSentAt(Instant.now());
+      m.setLastError(null);
+      m.setPayload("{}");
+    });
+  }
+
+  // Backoff exponencial (5s, 10s, 20s... até 1h); depois de MAX_ATTEMPTS vai para DEAD
+  @Transactional
+  public void markFailed(Long id, String error) {
+    repo.findById(id).ifPresent(m -> {
+      m.setLastError(error);
+      if (m.getAttempts() >= MAX_ATTEMPTS) {
+        m.setStatus(OutboxStatus.DEAD);
+        return;
+      }
+      long factor = 1L << Math.min(m.getAttempts() - 1, 20);
+      Duration wait = BACKOFF_BASE.multipliedBy(factor);
+      m.setNextAttemptAt(Instant.now().plus(wait.compareTo(BACKOFF_MAX) > 0 ? BACKOFF_MAX : wait));
+    });
+  }
+
+  // Remove as enviadas há mais de app.outbox.sent-retention (a tabela não cresce sem limite)
+  @Scheduled(fixedDelayString = "${app.outbox.cleanup-interval:PT1H}")
+  public void cleanup() {
+    try {
+      int redacted = repo.redactSent();
+      int n = repo.deleteSentBefore(Instant.now().minus(sentRetention));
+      if (redacted > 0 || n > 0) {
+        System.out.println("[Outbox] " + n + " mensagem(ns) enviada(s) removida(s), " + redacted + " payload(s) limpo(s)");
+      }
+    } catch (Exception e) {
+      System.err.println("[Outbox] Falha ao limpar mensagens enviadas");
+      e.printStackTrace();
+    }
+  }
+
+  public List<OutboxMessage> dead() {
+    return repo.findTop100ByStatusOrderByIdDesc(OutboxStatus.DEAD);
+  }
+
+  @Transactional
+  public void retry(Long id) {
+    var m = repo.findById(id).orElseThrow(() -> new IllegalArgumentException("Mensagem não encontrada"));
+    m.setStatus(OutboxStatus.PENDING);
+    m.setAttempts(0);
+    m.setNextAttemptAt(Instant.now());
+  }
+
+  public Map<String, Object> params(OutboxMessage m) {
+    try {
+      return mapper.readValue(m.getPayload(), new TypeReference<Map<String, Object>>() {});
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Payload inválido na mensagem " + m.getId(), e);
+    }
+  }
+}
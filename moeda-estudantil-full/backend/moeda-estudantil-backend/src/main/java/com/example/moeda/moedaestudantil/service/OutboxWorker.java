@@ -0,0 +1,85 @@
+package com.example.moeda.moedaestudantil.service;
+
+import com.example.moeda.moedaestudantil.domain.OutboxMessage;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+/**
+ * Drena o outbox: a cada segundo reserva as mensagens vencidas (no máximo o
+ * que cabe na fila do mailExecutor) e as entrega fora das threads do Tomcat.
+ *
+ * Com app.mail.fake=true nada sai da máquina: a mensagem é apenas registrada
+ * no log e marcada como enviada (uso local e em testes).
+ */
+@Service
+public class OutboxWorker {
+
+  private static final int BATCH = 20;
+
+  private final OutboxService outbox;
+  private final MailService mail;
+  private final EmailService emailService;
+  private final ThreadPoolTaskExecutor executor;
+  private final boolean fake;
+
+  public OutboxWorker(OutboxService outbox,
+                      MailService mail,
+                      EmailService emailService,
+                      @Qualifier("mailExecutor") ThreadPoolTaskExecutor executor,
+                      @Value("${app.mail.fake:false}") boolean fake) {
+    this.outbox = outbox;
+    this.mail = mail;
+    this.emailService = emailService;
+    this.executor = executor;
+    this.fake = fake;
+  }
+
+  @Scheduled(fixedDelayString = "${app.outbox.poll-interval:PT1S}")
+  public void poll() {
+    int free = Math.min(BATCH, executor.getThreadPoolExecutor().getQueue().remainingCapacity());
+    if (free <= 0) return;
+
+    for (OutboxMessage m : outbox.claimDue(free)) {
+      try {
+        executor.execute(() -> deliver(m));
+      } catch (TaskRejectedException e) {
+        // fica reservada até o lease vencer e volta para a fila
+        return;
+      }
+    }
+  }
+
+  private void deliver(OutboxMessage m) {
+    try {
+      Map<String, Object> p = outbox.params(m);
+      if (fake) {
+        System.out.println("[Outbox:fake] " + m.getChannel() + " " + p);
+      } else {
+        switch (m.getChannel()) {
+          case SMTP_HTML -> mail.sendHtml(str(p, "to"), str(p, "subject"), str(p, "html"));
+          case EMAILJS_REDEEM -> emailService.sendBenefitRedemptionEmail(
+              str(p, "to"), str(p, "alunoNome"), str(p, "beneficioTitulo"),
+              ((Number) p.get("beneficioCusto")).intValue(), str(p, "codigo"), str(p, "imagemUrl"));
+          // só mensagens antigas: o reset agora manda o código por SMTP_HTML
+          case EMAILJS_RESET -> emailService.sendPasswordResetEmail(
+              str(p, "to"), str(p, "tipoUsuario"), str(p, "novaSenha"));
+        }
+      }
+      outbox.markSent(m.getId());
+    } catch (Exception e) {
+      System.err.println("[Outbox] Falha ao enviar mensagem " + m.getId() + " (tentativa " + m.getAttempts() + "): " + e.getMessage());
+      outbox.markFailed(m.getId(), String.valueOf(e.getMessage()));
+    }
+  }
+
+  private static String str(Map<String, Object> p, String key) {
+    Object v = p.get(key);
+    return v == null ? null : v.toString();
+  }
+}
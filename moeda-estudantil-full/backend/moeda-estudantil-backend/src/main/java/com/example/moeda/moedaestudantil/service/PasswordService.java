@@ -1,9 +1,117 @@
 package com.example.moeda.moedaestudantil.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Hash e verificação BCrypt, sempre no passwordExecutor (pool pequeno, fila limitada).
+ *
+ * Um pico de logins ocupa no máximo esse pool; com a fila cheia a chamada é
+ * recusada na hora com 503 em vez de tomar todos os núcleos das rotas de carteira.
+ * Hashes de senha nova (cadastro, reset) ocupam no máximo app.auth.bcrypt-new-slots
+ * lugares do pool + fila: um pico nessas rotas não deixa o login sem vaga.
+ */
 @Service
 public class PasswordService {
-  private final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
-  public String hash(String raw) { return encoder.encode(raw); }
-  public boolean matches(String raw, String hashed) { return encoder.matches(raw, hashed); }
+
+  private static final Pattern COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+  private final BCryptPasswordEncoder encoder;
+  private final int strength;
+  private final ThreadPoolTaskExecutor executor;
+  private final long timeoutMs;
+  private final Semaphore newSlots;
+
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder rehashed = new LongAdder();
+
+  public PasswordService(@Value("${app.auth.bcrypt-strength:10}") int strength,
+                         @Value("${app.auth.bcrypt-timeout-ms:5000}") long timeoutMs,
+                         @Value("${app.auth.bcrypt-new-slots:16}") int newSlots,
+                         @Qualifier("passwordExecutor") ThreadPoolTaskExecutor executor) {
+    this.encoder = new BCryptPasswordEncoder(strength);
+    this.strength = strength;
+    this.executor = executor;
+    this.timeoutMs = timeoutMs;
+    this.newSlots = new Semaphore(newSlots);
+  }
+
+  public String hash(String raw) { return run(() -> encoder.encode(raw)); }
+
+  // Senha nova (cadastro, reset): mesma coisa, mas limitada a newSlots chamadas ao mesmo tempo
+  public String hashNew(String raw) {
+    if (!newSlots.tryAcquire()) {
+      rejected.increment();
+      throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Servidor ocupado, tente novamente");
+    }
+    try {
+      return hash(raw);
+    } finally {
+      newSlots.release();
+    }
+  }
+
+  public boolean matches(String raw, String hashed) { return run(() -> encoder.matches(raw, hashed)); }
+
+  // true quando o hash foi gerado com outro custo que não o configurado
+  public boolean needsRehash(String hashed) {
+    if (hashed == null) return false;
+    Matcher m = COST.matcher(hashed);
+    return m.find() && Integer.parseInt(m.group(1)) != strength;
+  }
+
+  public void countRehash() { rehashed.increment(); }
+
+  public Map<String, Object> stats() {
+    var pool = executor.getThreadPoolExecutor();
+    Map<String, Object> out = new LinkedHashMap<>();
+    out.put("strength", strength);
+    out.put("active", pool.getActiveCount());
+    out.put("queued", pool.getQueue().size());
+    out.put("completed", pool.getCompletedTaskCount());
+    out.put("newSlotsFree", newSlots.availablePermits());
+    out.put("rejected", rejected.sum());
+    out.put("rehashed", rehashed.sum());
+    return out;
+  }
+
+  private <T> T run(Callable<T> task) {
+    Future<T> f;
+    try {
+      f = executor.submit(task);
+    } catch (TaskRejectedException e) {
+      rejected.increment();
+      throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Servidor ocupado, tente novamente");
+    }
+    try {
+      return f.get(timeoutMs, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      f.cancel(true);
+      rejected.increment();
+      throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Servidor ocupado, tente novamente");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrompido aguardando BCrypt", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Falha no BCrypt", e.getCause());
+    }
+  }
 }
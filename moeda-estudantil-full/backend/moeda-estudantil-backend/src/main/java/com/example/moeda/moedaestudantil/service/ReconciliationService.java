@@ -0,0 +1,165 @@
+package com.example.moeda.moedaestudantil.service;
+
+import com.example.moeda.moedaestudantil.domain.ReconciliationRun;
+import com.example.moeda.moedaestudantil.domain.UserType;
+import com.example.moeda.moedaestudantil.domain.Wallet;
+import com.example.moeda.moedaestudantil.domain.WalletCheckpoint;
+import com.example.moeda.moedaestudantil.repo.ReconciliationRunRepository;
+import com.example.moeda.moedaestudantil.repo.WalletCheckpointRepository;
+import com.example.moeda.moedaestudantil.repo.WalletRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Reconciliação incremental entre Wallet.saldo e o ledger.
+ *
+ * Cada execução soma aos checkpoints apenas as entradas com ts em
+ * (watermark anterior, agora - GRACE] e verifica só as carteiras tocadas
+ * (mais as que já estavam com diferença). O watermark é por ts e não por id
+ * porque ids de sequence pooled não seguem a ordem de commit; o GRACE cobre
+ * transações que gravaram o ts mas ainda não comitaram.
+ *
+ * Execuções concorrentes (agendada x manual, ou várias instâncias) são
+ * serializadas por um advisory lock do Postgres preso à transação: a segunda
+ * só lê o watermark depois do commit da primeira. A "última execução" é a de
+ * maior watermark, não a de maior id (cada instância reserva seu bloco de ids). Não usamos synchronized,
+ * que prenderia a carrier thread com threads virtuais durante o JDBC.
+ */
+@Service
+public class ReconciliationService {
+
+  private static final Duration GRACE = Duration.ofMinutes(1);
+  private static final Instant ORIGEM = Instant.parse("1900-01-01T00:00:00Z");
+  private static final long LOCK_KEY = 0x5245434FL; // "RECO"
+
+  // (tipo, id) -> variação líquida no intervalo (créditos - débitos)
+  private static final String DELTAS_SQL = """
+      select t, i, sum(d) from (
+        select to_type as t, to_id as i, amount as d from ledger_entry
+          where ts > ? and ts <= ? and to_type is not null
+        union all
+        select from_type, from_id, -amount from ledger_entry
+          where ts > ? and ts <= ? and from_type is not null
+      ) x group by t, i
+      """;
+
+  private record Key(UserType type, Long id) {}
+
+  private final JdbcTemplate jdbc;
+  private final WalletRepository wallets;
+  private final WalletCheckpointRepository checkpoints;
+  private final ReconciliationRunRepository runs;
+
+  public ReconciliationService(JdbcTemplate jdbc,
+                               WalletRepository wallets,
+                               WalletCheckpointRepository checkpoints,
+                               ReconciliationRunRepository runs) {
+    this.jdbc = jdbc;
+    this.wallets = wallets;
+    this.checkpoints = checkpoints;
+    this.runs = runs;
+  }
+
+  @Scheduled(fixedDelayString = "${app.reconcile.interval:PT5M}", initialDelayString = "${app.reconcile.initial-delay:PT1M}")
+  public void scheduled() {
+    try {
+      var run = run();
+      if (run.getWalletsWithDrift() > 0) {
+        System.err.println("[Reconciliation] " + run.getWalletsWithDrift() + " carteira(s) com diferença entre saldo e ledger");
+      }
+    } catch (Exception e) {
+      System.err.println("[Reconciliation] Falha na reconciliação");
+      e.printStackTrace();
+    }
+  }
+
+  @Transactional
+  public ReconciliationRun run() {
+    jdbc.queryForList("select pg_advisory_xact_lock(?)", LOCK_KEY);
+    Instant startedAt = Instant.now();
+    Instant horizon = startedAt.minus(GRACE);
+    var last = runs.findTopByOrderByWatermarkDesc();
+    Instant from = last.map(ReconciliationRun::getWatermark).orElse(ORIGEM);
+    boolean full = last.isEmpty();
+    if (!horizon.isAfter(from)) return last.get();
+
+    // 1) replay incremental: só o que entrou no ledger desde o último watermark
+    Map<Key, BigDecimal> deltas = deltas(from, horizon);
+    Long replayed = jdbc.queryForObject("select count(*) from ledger_entry where ts > ? and ts <= ?",
+        Long.class, Timestamp.from(from), Timestamp.from(horizon));
+
+    // 2) carteiras a verificar: tocadas, já com diferença, ou todas na primeira execução
+    Set<Key> keys = new HashSet<>(deltas.keySet());
+    checkpoints.findByDriftNot(BigDecimal.ZERO).forEach(c -> keys.add(new Key(c.getUserType(), c.getUserId())));
+    if (full) wallets.findAll().forEach(w -> keys.add(new Key(w.getUserType(), w.getUserId())));
+
+    Map<Key, WalletCheckpoint> cps = new HashMap<>();
+    Map<Key, BigDecimal> saldos = new HashMap<>();
+    byType(keys).forEach((type, ids) -> {
+      checkpoints.findByUserTypeAndUserIdIn(type, ids).forEach(c -> cps.put(new Key(type, c.getUserId()), c));
+      for (Wallet w : wallets.findByUserTypeAndUserIdIn(type, ids)) saldos.put(new Key(type, w.getUserId()), w.getSaldo());
+    });
+
+    // entradas depois do horizonte já estão no saldo, mas ainda não no checkpoint
+    Map<Key, BigDecimal> recent = deltas(horizon, Instant.now().plus(GRACE));
+
+    int drifted = 0;
+    List<WalletCheckpoint> dirty = new ArrayList<>();
+    for (Key k : keys) {
+      var cp = cps.computeIfAbsent(k, x -> WalletCheckpoint.builder()
+          .userType(x.type()).userId(x.id()).ledgerBalance(BigDecimal.ZERO).build());
+      cp.setLedgerBalance(cp.getLedgerBalance().add(deltas.getOrDefault(k, BigDecimal.ZERO)));
+      cp.setAsOf(horizon);
+
+      BigDecimal expected = cp.getLedgerBalance().add(recent.getOrDefault(k, BigDecimal.ZERO));
+      BigDecimal drift = saldos.getOrDefault(k, BigDecimal.ZERO).subtract(expected);
+      cp.setDrift(drift.signum() == 0 ? BigDecimal.ZERO : drift);
+      cp.setCheckedAt(startedAt);
+      if (drift.signum() != 0) drifted++;
+      dirty.add(cp);
+    }
+    checkpoints.saveAll(dirty);
+
+    return runs.save(ReconciliationRun.builder()
+        .watermark(horizon)
+        .startedAt(startedAt)
+        .finishedAt(Instant.now())
+        .entriesReplayed(replayed == null ? 0 : replayed)
+        .walletsChecked(keys.size())
+        .walletsWithDrift(drifted)
+        .build());
+  }
+
+  public Optional<ReconciliationRun> lastRun() {
+    return runs.findTopByOrderByWatermarkDesc();
+  }
+
+  public List<WalletCheckpoint> drifted() {
+    return checkpoints.findByDriftNot(BigDecimal.ZERO);
+  }
+
+  // ====== helpers ======
+  private Map<Key, BigDecimal> deltas(Instant from, Instant to) {
+    Map<Key, BigDecimal> out = new HashMap<>();
+    var a = Timestamp.from(from);
+    var b = Timestamp.from(to);
+    jdbc.query(DELTAS_SQL, rs -> {
+      out.put(new Key(UserType.valueOf(rs.getString(1)), rs.getLong(2)), rs.getBigDecimal(3));
+    }, a, b, a, b);
+    return out;
+  }
+
+  private static Map<UserType, List<Long>> byType(Set<Key> keys) {
+    Map<UserType, List<Long>> out = new EnumMap<>(UserType.class);
+    for (Key k : keys) out.computeIfAbsent(k.type(), t -> new ArrayList<>()).add(k.id());
+    return out;
+  }
+}
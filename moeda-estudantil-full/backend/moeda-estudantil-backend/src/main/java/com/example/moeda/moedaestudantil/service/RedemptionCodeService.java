@@ -0,0 +1,142 @@
+package com.example.moeda.moedaestudantil.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Códigos de resgate sem colisão: número de sequência em base32 + checksum HMAC.
+ *
+ * Formato: [sequência, mín. 6 chars][checksum, 5 chars], alfabeto sem 0/O/1/I.
+ * A sequência vem de redemption_code_seq em blocos de 50 (um nextval a cada
+ * 50 códigos), então dois resgates nunca recebem o mesmo código. O checksum
+ * (25 bits do HMAC) deixa recusar código digitado errado ou forjado sem ir ao banco.
+ * Códigos antigos (8 chars aleatórios) continuam sendo aceitos pela consulta no banco.
+ *
+ * A chave do checksum é app.redemption.secret; sem ela, uma chave gerada uma vez
+ * fica gravada em app_secret e é a mesma para todas as instâncias e reinícios
+ * (uma chave por boot recusaria os códigos já pagos e ainda não usados).
+ * A sequence e a chave são criadas na inicialização, fora de qualquer transação
+ * de resgate: um rollback do primeiro resgate não pode desfazer o CREATE.
+ */
+@Service
+public class RedemptionCodeService {
+
+  private static final String ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789"; // 32 símbolos
+  private static final int MIN_PAYLOAD = 6;
+  private static final int CHECK_LEN = 5;
+  private static final int LEGACY_LEN = 8;
+  private static final int MAX_LEN = 16; // = tamanho da coluna code (payload até 11 chars, 2^55 códigos)
+  private static final int BLOCK = 50; // = increment by da sequence
+
+  private final JdbcTemplate jdbc;
+  private final Mac prototype;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private long next;
+  private long limit;
+
+  public RedemptionCodeService(JdbcTemplate jdbc,
+                               @Value("${app.redemption.secret:}") String secret) {
+    this.jdbc = jdbc;
+    jdbc.execute("create sequence if not exists redemption_code_seq start with 1 increment by " + BLOCK);
+    byte[] key = secret == null || secret.isBlank()
+        ? storedKey(jdbc)
+        : secret.getBytes(StandardCharsets.UTF_8);
+    try {
+      this.prototype = Mac.getInstance("HmacSHA256");
+      this.prototype.init(new SecretKeySpec(key, "HmacSHA256"));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("HmacSHA256 indisponível", e);
+    }
+  }
+
+  public String newCode() {
+    return encode(nextValue());
+  }
+
+  public String encode(long n) {
+    String payload = base32(n);
+    return payload + checksum(payload);
+  }
+
+  // maiúsculas, sem espaços/hífens (o aluno pode digitar "abcd-efgh...")
+  public String normalize(String code) {
+    return code == null ? "" : code.trim().toUpperCase().replace("-", "").replace(" ", "");
+  }
+
+  /** true se o código pode existir: formato antigo ou checksum correto. */
+  public boolean plausible(String code) {
+    if (code.length() == LEGACY_LEN) return onlyAlphabet(code);
+    if (code.length() < MIN_PAYLOAD + CHECK_LEN || code.length() > MAX_LEN || !onlyAlphabet(code)) return false;
+    String payload = code.substring(0, code.length() - CHECK_LEN);
+    return checksum(payload).equals(code.substring(code.length() - CHECK_LEN));
+  }
+
+  private long nextValue() {
+    lock.lock();
+    try {
+      if (next == limit) {
+        Long v = jdbc.queryForObject("select nextval('redemption_code_seq')", Long.class);
+        next = v;
+        limit = v + BLOCK;
+      }
+      return next++;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Gera a chave só na primeira vez; nas seguintes (e nas outras instâncias) lê a gravada
+  private static byte[] storedKey(JdbcTemplate jdbc) {
+    jdbc.execute("create table if not exists app_secret (name varchar(64) primary key, value varchar(128) not null)");
+    byte[] fresh = new byte[32];
+    new SecureRandom().nextBytes(fresh);
+    jdbc.update("insert into app_secret (name, value) values ('redemption', ?) on conflict (name) do nothing",
+        Base64.getEncoder().encodeToString(fresh));
+    String stored = jdbc.queryForObject("select value from app_secret where name = 'redemption'", String.class);
+    System.err.println("[RESGATE] app.redemption.secret não definido: usando a chave gravada em app_secret");
+    return Base64.getDecoder().decode(stored);
+  }
+
+  private static String base32(long n) {
+    StringBuilder sb = new StringBuilder();
+    do {
+      sb.append(ALPHABET.charAt((int) (n & 31)));
+      n >>>= 5;
+    } while (n != 0);
+    while (sb.length() < MIN_PAYLOAD) sb.append(ALPHABET.charAt(0));
+    return sb.reverse().toString();
+  }
+
+  private String checksum(String payload) {
+    byte[] h;
+    try {
+      Mac mac = (Mac) prototype.clone();
+      h = mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+    } catch (CloneNotSupportedException e) {
+      throw new IllegalStateException("Mac não suporta clone", e);
+    }
+    long bits = ((h[0] & 0xFFL) << 24) | ((h[1] & 0xFFL) << 16) | ((h[2] & 0xFFL) << 8) | (h[3] & 0xFFL);
+    char[] out = new char[CHECK_LEN];
+    for (int i = 0; i < CHECK_LEN; i++) {
+      out[i] = ALPHABET.charAt((int) ((bits >>> (5 * i)) & 31));
+    }
+    return new String(out);
+  }
+
+  private static boolean onlyAlphabet(String code) {
+    for (int i = 0; i < code.length(); i++) {
+      if (ALPHABET.indexOf(code.charAt(i)) < 0) return false;
+    }
+    return true;
+  }
+}
@@ -0,0 +1,112 @@
+package com.example.moeda.moedaestudantil.service;
+
+import com.example.moeda.moedaestudantil.domain.Benefit;
+import com.example.moeda.moedaestudantil.domain.BenefitRedemption;
+import com.example.moeda.moedaestudantil.domain.LedgerKind;
+import com.example.moeda.moedaestudantil.domain.UserType;
+import com.example.moeda.moedaestudantil.repo.AlunoRepository;
+import com.example.moeda.moedaestudantil.repo.BenefitRedemptionRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+@Service
+public class RedemptionService {
+
+  public record Result(Benefit benefit, BenefitRedemption redemption) {}
+
+  public enum ConsumeStatus { CONSUMED, INVALID, NOT_FOUND, ALREADY_USED, EXPIRED }
+  public record Consumed(ConsumeStatus status, Long redemptionId, Long alunoId, Long benefitId) {
+    static Consumed of(ConsumeStatus status) { return new Consumed(status, null, null, null); }
+  }
+
+  private final BenefitService benefits;
+  private final WalletService wallet;
+  private final BenefitRedemptionRepository redemptionRepo;
+  private final AlunoRepository alunoRepo;
+  private final NotificationService notifications;
+  private final RedemptionCodeService codes;
+  private final JdbcTemplate jdbc;
+
+  public RedemptionService(BenefitService benefits,
+                           WalletService wallet,
+                           BenefitRedemptionRepository redemptionRepo,
+                           AlunoRepository alunoRepo,
+                           NotificationService notifications,
+                           RedemptionCodeService codes,
+                           JdbcTemplate jdbc) {
+    this.benefits = benefits;
+    this.wallet = wallet;
+    this.redemptionRepo = redemptionRepo;
+    this.alunoRepo = alunoRepo;
+    this.notifications = notifications;
+    this.codes = codes;
+    this.jdbc = jdbc;
+  }
+
+  // Busca do benefício, débito e código na mesma transação: se o benefício
+  // mudar (versão) antes do commit, o resgate inteiro é desfeito
+  @Transactional
+  public Result redeem(Long alunoId, Long benefitId) {
+    // 1) acha o benefício ativo pela PK
+    Benefit b = benefits.findActive(benefitId);
+
+    // 2) transfere moedas do ALUNO -> EMPRESA
+    wallet.transfer(
+        UserType.ALUNO, alunoId,
+        UserType.EMPRESA, b.getEmpresaId(),
+        b.getCusto(),
+        "Resgate: " + b.getTitulo(),
+        LedgerKind.REDEEM
+    );
+
+    // 3) gera código de resgate (sequência + checksum: único por construção)
+    Instant now = Instant.now();
+    var redemption = redemptionRepo.save(BenefitRedemption.builder()
+        .alunoId(alunoId)
+        .empresaId(b.getEmpresaId())
+        .benefitId(b.getId())
+        .code(codes.newCode())
+        .createdAt(now)
+        .expiresAt(now.plus(1, ChronoUnit.DAYS)) // expira em 24h
+        .used(false)
+        .custo(b.getCusto())
+        .build());
+
+    // 4) e-mail com o código vai para o outbox (enviado após o commit)
+    alunoRepo.findById(alunoId).ifPresent(a -> notifications.resgate(
+        a.getEmail(), a.getNome(), b.getTitulo(), b.getCusto(), redemption.getCode()));
+
+    return new Result(b, redemption);
+  }
+
+  /**
+   * Consome o código num único UPDATE condicional: dois caixas validando o
+   * mesmo código ao mesmo tempo -> só um recebe CONSUMED. Código com checksum
+   * errado é recusado antes de qualquer consulta.
+   */
+  @Transactional
+  public Consumed consume(Long empresaId, String rawCode) {
+    String code = codes.normalize(rawCode);
+    if (!codes.plausible(code)) return Consumed.of(ConsumeStatus.INVALID);
+
+    Timestamp now = Timestamp.from(Instant.now());
+    var rows = jdbc.query(
+        "update benefit_redemption set used = true, used_at = ? "
+            + "where code = ? and empresa_id = ? and used = false and expired_at is null and expires_at > ? "
+            + "returning id, aluno_id, benefit_id",
+        (rs, i) -> new Consumed(ConsumeStatus.CONSUMED, rs.getLong("id"), rs.getLong("aluno_id"), rs.getLong("benefit_id")),
+        now, code, empresaId, now);
+    if (!rows.isEmpty()) return rows.get(0);
+
+    // não consumiu: descobre o motivo (só no caminho de erro)
+    return redemptionRepo.findByCode(code)
+        .filter(r -> r.getEmpresaId().equals(empresaId))
+        .map(r -> Consumed.of(r.isUsed() ? ConsumeStatus.ALREADY_USED : ConsumeStatus.EXPIRED))
+        .orElse(Consumed.of(ConsumeStatus.NOT_FOUND));
+  }
+}
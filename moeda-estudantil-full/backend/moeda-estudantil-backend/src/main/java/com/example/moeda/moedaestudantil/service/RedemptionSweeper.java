@@ -0,0 +1,175 @@
+package com.example.moeda.moedaestudantil.service;
+
+import com.example.moeda.moedaestudantil.domain.LedgerKind;
+import com.example.moeda.moedaestudantil.domain.UserType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Expira códigos de resgate não usados, estorna as moedas e arquiva resgates antigos.
+ *
+ * Expiração: por empresa, em lotes de {@code chunk} linhas, cada lote numa
+ * transação: UPDATE ... RETURNING (índice used, expiresAt, FOR UPDATE SKIP LOCKED)
+ * marca expired_at e o estorno EMPRESA -> ALUNO vai pelo WalletService.transferBatch.
+ * Se a empresa não tiver saldo o lote inteiro volta atrás e é tentado na próxima rodada.
+ *
+ * Arquivo: resgates usados/expirados há mais de {@code archiveAfter} saem da
+ * tabela quente para benefit_redemption_history, particionada por mês de created_at.
+ */
+@Service
+public class RedemptionSweeper {
+
+  private static final String EXPIRE_SQL = """
+      update benefit_redemption r set expired_at = ?
+      where r.id in (
+        select id from benefit_redemption
+        where used = false and expired_at is null and expires_at <= ? and empresa_id = ?
+        order by expires_at
+        limit ?
+        for update skip locked)
+      returning r.aluno_id,
+        coalesce(r.custo, (select b.custo from benefit b where b.id = r.benefit_id), 0) as custo
+      """;
+
+  private static final String ARCHIVABLE =
+      "(used = true or expired_at is not null) and coalesce(used_at, expired_at, expires_at) < ?";
+
+  private static final String ARCHIVE_SQL = """
+      with moved as (
+        delete from benefit_redemption where id in (
+          select id from benefit_redemption where %s
+          order by id
+          limit ?
+          for update skip locked)
+        returning id, aluno_id, empresa_id, benefit_id, code, created_at, expires_at, used, used_at, expired_at, custo)
+      insert into benefit_redemption_history
+        (id, aluno_id, empresa_id, benefit_id, code, created_at, expires_at, used, used_at, expired_at, custo)
+      select id, aluno_id, empresa_id, benefit_id, code, created_at, expires_at, used, used_at, expired_at, custo
+      from moved
+      """.formatted(ARCHIVABLE);
+
+  private final JdbcTemplate jdbc;
+  private final WalletService wallet;
+  private final TransactionTemplate tx;
+  private final int chunk;
+  private final Duration archiveAfter;
+
+  public RedemptionSweeper(JdbcTemplate jdbc,
+                           WalletService wallet,
+                           PlatformTransactionManager txManager,
+                           @Value("${app.redemption.sweep-chunk:500}") int chunk,
+                           @Value("${app.redemption.archive-after:P30D}") Duration archiveAfter) {
+    this.jdbc = jdbc;
+    this.wallet = wallet;
+    this.tx = new TransactionTemplate(txManager);
+    this.chunk = chunk;
+    this.archiveAfter = archiveAfter;
+  }
+
+  @Scheduled(fixedDelayString = "${app.redemption.sweep-interval:PT1M}", initialDelayString = "${app.redemption.sweep-initial-delay:PT30S}")
+  public void scheduledSweep() {
+    try {
+      int n = expireAndRefund();
+      if (n > 0) System.out.println("[RedemptionSweeper] " + n + " código(s) expirado(s) e estornado(s)");
+    } catch (Exception e) {
+      System.err.println("[RedemptionSweeper] Falha ao expirar códigos");
+      e.printStackTrace();
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${app.redemption.archive-interval:PT1H}", initialDelayString = "${app.redemption.archive-initial-delay:PT5M}")
+  public void scheduledArchive() {
+    try {
+      int n = archive();
+      if (n > 0) System.out.println("[RedemptionSweeper] " + n + " resgate(s) arquivado(s)");
+    } catch (Exception e) {
+      System.err.println("[RedemptionSweeper] Falha ao arquivar resgates");
+      e.printStackTrace();
+    }
+  }
+
+  public Map<String, Object> sweepNow() {
+    Map<String, Object> out = new LinkedHashMap<>();
+    out.put("expired", expireAndRefund());
+    out.put("archived", archive());
+    return out;
+  }
+
+  public int expireAndRefund() {
+    Instant now = Instant.now();
+    List<Long> empresas = jdbc.queryForList(
+        "select distinct empresa_id from benefit_redemption where used = false and expired_at is null and expires_at <= ?",
+        Long.class, Timestamp.from(now));
+
+    int total = 0;
+    for (Long empresaId : empresas) {
+      try {
+        int n;
+        do {
+          Integer done = tx.execute(s -> expireChunk(empresaId, now));
+          n = done == null ? 0 : done;
+          total += n;
+        } while (n == chunk);
+      } catch (IllegalStateException | IllegalArgumentException e) {
+        // ex.: "Saldo insuficiente" na carteira da empresa; o lote foi desfeito
+        System.err.println("[RedemptionSweeper] Estorno da empresa " + empresaId + " adiado: " + e.getMessage());
+      }
+    }
+    return total;
+  }
+
+  private int expireChunk(Long empresaId, Instant now) {
+    Timestamp ts = Timestamp.from(now);
+    List<WalletService.Credit> credits = jdbc.query(EXPIRE_SQL,
+        (rs, i) -> new WalletService.Credit(rs.getLong("aluno_id"), rs.getInt("custo")),
+        ts, ts, empresaId, chunk);
+    var refunds = credits.stream().filter(c -> c.amount() > 0).toList();
+    if (!refunds.isEmpty()) {
+      wallet.transferBatch(UserType.EMPRESA, empresaId, UserType.ALUNO, refunds,
+          "Estorno: código de resgate expirado", LedgerKind.REFUND);
+    }
+    return credits.size();
+  }
+
+  public int archive() {
+    Timestamp cutoff = Timestamp.from(Instant.now().minus(archiveAfter));
+    ensurePartitions(cutoff);
+    int total = 0;
+    int n;
+    do {
+      Integer moved = tx.execute(s -> jdbc.update(ARCHIVE_SQL, cutoff, chunk));
+      n = moved == null ? 0 : moved;
+      total += n;
+    } while (n == chunk);
+    return total;
+  }
+
+  // uma partição por mês (UTC) de created_at, criada antes de mover as linhas
+  private void ensurePartitions(Timestamp cutoff) {
+    List<Date> months = jdbc.queryForList(
+        "select distinct date_trunc('month', created_at at time zone 'UTC')::date from benefit_redemption where " + ARCHIVABLE,
+        Date.class, cutoff);
+    for (Date m : months) {
+      LocalDate from = m.toLocalDate();
+      LocalDate to = from.plusMonths(1);
+      String name = "benefit_redemption_history_" + from.getYear() + "_" + String.format("%02d", from.getMonthValue());
+      jdbc.execute("create table if not exists " + name + " partition of benefit_redemption_history "
+          + "for values from ('" + from.atStartOfDay(ZoneOffset.UTC).toInstant() + "') "
+          + "to ('" + to.atStartOfDay(ZoneOffset.UTC).toInstant() + "')");
+    }
+  }
+}
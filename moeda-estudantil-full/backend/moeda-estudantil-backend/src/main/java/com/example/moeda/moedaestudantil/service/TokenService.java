@@ -0,0 +1,146 @@
+package com.example.moeda.moedaestudantil.service;
+
+import com.example.moeda.moedaestudantil.domain.UserType;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tokens de acesso assinados com HMAC-SHA256, verificados sem ir ao banco.
+ *
+ * Formato: base64url("TIPO.id.expira") + "." + base64url(hmac). Tokens já
+ * verificados ficam num LRU pequeno, então a requisição seguinte do mesmo
+ * usuário só faz um lookup e compara a expiração.
+ */
+@Service
+public class TokenService {
+
+  public record Claims(UserType type, Long id, Instant expiresAt) {}
+
+  private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder B64D = Base64.getUrlDecoder();
+
+  private final Mac prototype;
+  private final Duration ttl;
+  private final Cache<String, Claims> verified;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder verifications = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+
+  public TokenService(@Value("${app.auth.secret:}") String secret,
+                      @Value("${app.auth.ttl:PT12H}") Duration ttl,
+                      @Value("${app.auth.cache-size:10000}") long cacheSize) {
+    byte[] key;
+    if (secret == null || secret.isBlank()) {
+      key = new byte[32];
+      new SecureRandom().nextBytes(key);
+      System.err.println("[AUTH] app.auth.secret não definido: usando chave aleatória (tokens expiram ao reiniciar)");
+    } else {
+      key = secret.getBytes(StandardCharsets.UTF_8);
+      if (key.length < 32) throw new IllegalStateException("app.auth.secret precisa de pelo menos 32 bytes");
+    }
+    try {
+      this.prototype = Mac.getInstance("HmacSHA256");
+      this.prototype.init(new SecretKeySpec(key, "HmacSHA256"));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("HmacSHA256 indisponível", e);
+    }
+    this.ttl = ttl;
+    this.verified = Caffeine.newBuilder()
+        .maximumSize(cacheSize)
+        .expireAfterWrite(ttl)
+        .build();
+  }
+
+  public String issue(UserType type, Long id) {
+    return issue(type, id, Instant.now().plus(ttl));
+  }
+
+  public String issue(UserType type, Long id, Instant expiresAt) {
+    byte[] payload = (type.name() + "." + id + "." + expiresAt.getEpochSecond())
+        .getBytes(StandardCharsets.US_ASCII);
+    return B64.encodeToString(payload) + "." + B64.encodeToString(sign(payload));
+  }
+
+  public Duration ttl() {
+    return ttl;
+  }
+
+  /** Devolve as claims do token, ou null se for inválido/expirado. */
+  public Claims verify(String token) {
+    if (token == null || token.isEmpty()) return null;
+
+    Claims c = verified.getIfPresent(token);
+    if (c != null) {
+      if (c.expiresAt().isAfter(Instant.now())) {
+        hits.increment();
+        return c;
+      }
+      verified.invalidate(token);
+      rejected.increment();
+      return null;
+    }
+
+    verifications.increment();
+    c = parse(token);
+    if (c == null || !c.expiresAt().isAfter(Instant.now())) {
+      rejected.increment();
+      return null;
+    }
+    verified.put(token, c);
+    return c;
+  }
+
+  public Map<String, Object> stats() {
+    Map<String, Object> out = new LinkedHashMap<>();
+    out.put("cached", verified.estimatedSize());
+    out.put("cacheHits", hits.sum());
+    out.put("verifications", verifications.sum());
+    out.put("rejected", rejected.sum());
+    return out;
+  }
+
+  private Claims parse(String token) {
+    int dot = token.indexOf('.');
+    if (dot <= 0 || dot != token.lastIndexOf('.')) return null;
+    try {
+      byte[] payload = B64D.decode(token.substring(0, dot));
+      byte[] sig = B64D.decode(token.substring(dot + 1));
+      if (!MessageDigest.isEqual(sign(payload), sig)) return null;
+
+      String[] parts = new String(payload, StandardCharsets.US_ASCII).split("\\.");
+      if (parts.length != 3) return null;
+      return new Claims(UserType.valueOf(parts[0]),
+          Long.valueOf(parts[1]),
+          Instant.ofEpochSecond(Long.parseLong(parts[2])));
+    } catch (IllegalArgumentException e) {
+      // base64 inválido, tipo desconhecido ou número malformado
+      return null;
+    }
+  }
+
+  // Mac não é thread-safe; clonar o protótipo já inicializado é barato
+  private byte[] sign(byte[] payload) {
+    try {
+      Mac mac = (Mac) prototype.clone();
+      return mac.doFinal(payload);
+    } catch (CloneNotSupportedException e) {
+      throw new IllegalStateException("Mac não suporta clone", e);
+    }
+  }
+}
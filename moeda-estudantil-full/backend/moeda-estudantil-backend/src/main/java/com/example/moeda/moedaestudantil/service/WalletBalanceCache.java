@@ -0,0 +1,69 @@
+package com.example.moeda.moedaestudantil.service;
+
+import com.example.moeda.moedaestudantil.domain.UserType;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Saldos em memória por (tipo, id), para o GET /wallet não ir ao banco.
+ *
+ * Quem altera saldo chama {@link #changed} dentro da transação; a entrada é
+ * removida depois do commit e a próxima leitura busca o valor novo. Uma leitura
+ * em andamento (valor antigo) termina antes da remoção, então não sobra saldo
+ * velho no cache. O TTL só limita o estrago de alguma escrita fora do WalletService.
+ */
+@Service
+public class WalletBalanceCache {
+
+  private record Key(UserType type, Long id) {}
+
+  private final Cache<Key, BigDecimal> cache;
+
+  public WalletBalanceCache(@Value("${app.cache.wallets.max-entries:50000}") long maxEntries,
+                            @Value("${app.cache.wallets.ttl:PT10M}") Duration ttl) {
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxEntries)
+        .expireAfterWrite(ttl)
+        .recordStats()
+        .build();
+  }
+
+  public BigDecimal get(UserType type, Long id, Supplier<BigDecimal> loader) {
+    return cache.get(new Key(type, id), k -> loader.get());
+  }
+
+  public void changed(UserType type, Long id) {
+    var key = new Key(type, id);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          cache.invalidate(key);
+        }
+      });
+    } else {
+      cache.invalidate(key);
+    }
+  }
+
+  public Map<String, Object> stats() {
+    var s = cache.stats();
+    Map<String, Object> out = new LinkedHashMap<>();
+    out.put("entries", cache.estimatedSize());
+    out.put("hits", s.hitCount());
+    out.put("misses", s.missCount());
+    out.put("evictions", s.evictionCount());
+    out.put("hitRate", s.hitRate());
+    return out;
+  }
+}
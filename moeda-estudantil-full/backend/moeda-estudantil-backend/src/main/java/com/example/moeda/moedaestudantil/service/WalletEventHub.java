@@ -0,0 +1,238 @@
+package com.example.moeda.moedaestudantil.service;
+
+import com.example.moeda.moedaestudantil.domain.LedgerEntry;
+import com.example.moeda.moedaestudantil.domain.UserType;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fan-out em processo dos eventos de carteira para as conexões SSE abertas.
+ *
+ * Conexão parada não ocupa thread: o SseEmitter fica no modo assíncrono do
+ * servlet e só custa o objeto Subscriber e o socket. Depois do commit de uma
+ * transferência, cada carteira envolvida recebe um "balance" (delta do saldo) e
+ * um "ledger" (entradas novas); o envio é feito no eventsExecutor, uma fila por
+ * conexão. Cliente lento que acumula mais de app.events.max-pending eventos é
+ * desconectado: o EventSource reconecta sozinho e a página recarrega o estado.
+ *
+ * Só vale para esta instância; com várias réplicas cada uma avisa os seus clientes.
+ */
+@Service
+public class WalletEventHub {
+
+  private record Key(UserType type, Long id) {}
+
+  private static final class Subscriber {
+    final Key key;
+    final SseEmitter emitter;
+    final ConcurrentLinkedQueue<Set<DataWithMediaType>> queue = new ConcurrentLinkedQueue<>();
+    final AtomicInteger pending = new AtomicInteger();
+    final AtomicBoolean draining = new AtomicBoolean();
+    final AtomicBoolean closed = new AtomicBoolean();
+
+    Subscriber(Key key, SseEmitter emitter) {
+      this.key = key;
+      this.emitter = emitter;
+    }
+  }
+
+  private static final Set<DataWithMediaType> PING = SseEmitter.event().comment("ping").build();
+
+  private final ConcurrentHashMap<Key, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+  private final AtomicInteger connections = new AtomicInteger();
+  private final ThreadPoolTaskExecutor executor;
+  private final int maxConnections;
+  private final int maxPending;
+  private final long timeoutMs;
+
+  private final LongAdder published = new LongAdder();
+  private final LongAdder sent = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+
+  public WalletEventHub(@Qualifier("eventsExecutor") ThreadPoolTaskExecutor executor,
+                        @Value("${app.events.max-connections:20000}") int maxConnections,
+                        @Value("${app.events.max-pending:64}") int maxPending,
+                        @Value("${app.events.timeout:PT30M}") Duration timeout) {
+    this.executor = executor;
+    this.maxConnections = maxConnections;
+    this.maxPending = maxPending;
+    this.timeoutMs = timeout.toMillis();
+  }
+
+  public SseEmitter subscribe(UserType type, Long id) {
+    if (connections.incrementAndGet() > maxConnections) {
+      connections.decrementAndGet();
+      rejected.increment();
+      throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Muitas conexões abertas, tente novamente");
+    }
+    var sub = new Subscriber(new Key(type, id), new SseEmitter(timeoutMs));
+    // compute: a inclusão não corre com a remoção do último assinante da mesma carteira
+    subscribers.compute(sub.key, (k, set) -> {
+      if (set == null) set = ConcurrentHashMap.newKeySet();
+      set.add(sub);
+      return set;
+    });
+    sub.emitter.onCompletion(() -> remove(sub));
+    sub.emitter.onTimeout(() -> remove(sub));
+    sub.emitter.onError(e -> remove(sub));
+    // primeiro evento: confirma a conexão e define o intervalo de reconexão do EventSource
+    enqueue(sub, SseEmitter.event().name("ready").reconnectTime(5000).data("ok").build());
+    return sub.emitter;
+  }
+
+  /**
+   * Chamado pelo WalletService dentro da transação; os eventos só saem depois
+   * do commit (rollback não avisa ninguém).
+   */
+  public void committed(List<LedgerEntry> entries) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          publish(entries);
+        }
+      });
+    } else {
+      publish(entries);
+    }
+  }
+
+  // Pings mantêm proxies e o EventSource com a conexão viva e descobrem sockets mortos
+  @Scheduled(fixedDelayString = "${app.events.heartbeat:PT25S}")
+  public void heartbeat() {
+    try {
+      for (Set<Subscriber> set : subscribers.values()) {
+        for (Subscriber sub : set) {
+          if (sub.pending.get() == 0) enqueue(sub, PING);
+          else kick(sub);
+        }
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+
+  public Map<String, Object> stats() {
+    var pool = executor.getThreadPoolExecutor();
+    Map<String, Object> out = new LinkedHashMap<>();
+    out.put("connections", connections.get());
+    out.put("wallets", subscribers.size());
+    out.put("published", published.sum());
+    out.put("sent", sent.sum());
+    out.put("droppedSlow", dropped.sum());
+    out.put("rejected", rejected.sum());
+    out.put("senderActive", pool.getActiveCount());
+    out.put("senderQueued", pool.getQueue().size());
+    return out;
+  }
+
+  private void publish(List<LedgerEntry> entries) {
+    // caso comum: ninguém conectado, nada a montar
+    if (subscribers.isEmpty()) return;
+
+    // por carteira: soma dos deltas e as entradas novas (um batch vira 2 eventos, não 2N)
+    Map<Key, Long> deltas = new LinkedHashMap<>();
+    Map<Key, List<LedgerEntry>> rows = new LinkedHashMap<>();
+    for (LedgerEntry e : entries) {
+      var from = new Key(e.getFromType(), e.getFromId());
+      var to = new Key(e.getToType(), e.getToId());
+      deltas.merge(from, -e.getAmount().longValue(), Long::sum);
+      deltas.merge(to, e.getAmount().longValue(), Long::sum);
+      rows.computeIfAbsent(from, k -> new ArrayList<>()).add(e);
+      rows.computeIfAbsent(to, k -> new ArrayList<>()).add(e);
+    }
+
+    deltas.forEach((key, delta) -> {
+      Set<Subscriber> set = subscribers.get(key);
+      if (set == null || set.isEmpty()) return;
+      var balance = SseEmitter.event().name("balance")
+          .data(Map.of("delta", delta), MediaType.APPLICATION_JSON).build();
+      var ledger = SseEmitter.event().name("ledger")
+          .data(rows.get(key), MediaType.APPLICATION_JSON).build();
+      for (Subscriber sub : set) {
+        enqueue(sub, balance);
+        enqueue(sub, ledger);
+      }
+      published.increment();
+    });
+  }
+
+  private void enqueue(Subscriber sub, Set<DataWithMediaType> event) {
+    if (sub.closed.get()) return;
+    if (sub.pending.incrementAndGet() > maxPending) {
+      // cliente não está lendo: em vez de acumular memória, fecha e deixa reconectar
+      dropped.increment();
+      remove(sub);
+      sub.emitter.complete();
+      return;
+    }
+    sub.queue.add(event);
+    kick(sub);
+  }
+
+  private void kick(Subscriber sub) {
+    if (!sub.draining.compareAndSet(false, true)) return;
+    try {
+      executor.execute(() -> drain(sub));
+    } catch (TaskRejectedException e) {
+      // pool lotado: os eventos ficam na fila da conexão até o próximo evento ou ping
+      sub.draining.set(false);
+    }
+  }
+
+  private void drain(Subscriber sub) {
+    while (true) {
+      Set<DataWithMediaType> event = sub.queue.poll();
+      if (event == null) {
+        sub.draining.set(false);
+        // alguém enfileirou entre o poll e o set(false)?
+        if (sub.queue.isEmpty() || !sub.draining.compareAndSet(false, true)) return;
+        continue;
+      }
+      sub.pending.decrementAndGet();
+      if (sub.closed.get()) continue;
+      try {
+        sub.emitter.send(event);
+        sent.increment();
+      } catch (IOException | IllegalStateException e) {
+        // socket fechado pelo cliente ou emitter já completado
+        remove(sub);
+      }
+    }
+  }
+
+  private void remove(Subscriber sub) {
+    if (!sub.closed.compareAndSet(false, true)) return;
+    connections.decrementAndGet();
+    sub.queue.clear();
+    subscribers.computeIfPresent(sub.key, (k, set) -> {
+      set.remove(sub);
+      return set.isEmpty() ? null : set;
+    });
+  }
+}
@@ -1,23 +1,110 @@
 package com.example.moeda.moedaestudantil.service;
 import com.example.moeda.moedaestudantil.domain.*; import com.example.moeda.moedaestudantil.repo.*;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service; import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 @Service
 public class WalletService {
+  // Ordem global das carteiras para os locks de linha: A→B e B→A travam na mesma sequência (sem deadlock)
+  private static final Comparator<WalletKey> LOCK_ORDER = Comparator.comparing(WalletKey::type).thenComparing(WalletKey::id);
+  private record WalletKey(UserType type, Long id) {}
+  public record Credit(Long toId, int amount) {}
+
   private final WalletRepository walletRepo;
   private final LedgerRepository ledgerRepo;
-  public WalletService(WalletRepository walletRepo, LedgerRepository ledgerRepo) { this.walletRepo = walletRepo; this.ledgerRepo = ledgerRepo; }
-  public Wallet getOrCreate(UserType type, Long userId) {
-    return walletRepo.findByUserTypeAndUserId(type, userId).orElseGet(() -> walletRepo.save(Wallet.builder().userType(type).userId(userId).saldo(BigDecimal.ZERO).build()));
+  private final JdbcTemplate jdbc;
+  private final WalletBalanceCache balances;
+  private final WalletEventHub events;
+  public WalletService(WalletRepository walletRepo, LedgerRepository ledgerRepo, JdbcTemplate jdbc, WalletBalanceCache balances, WalletEventHub events) { this.walletRepo = walletRepo; this.ledgerRepo = ledgerRepo; this.jdbc = jdbc; this.balances = balances; this.events = events; }
+  // Leitura do saldo sem efeito colateral: carteira inexistente = 0, nada é inserido
+  public BigDecimal balance(UserType type, Long userId) {
+    return balances.get(type, userId, () -> walletRepo.findSaldo(type, userId).orElse(BigDecimal.ZERO));
   }
+  /**
+   * Débito e crédito são UPDATEs condicionais no banco (saldo = saldo ± valor),
+   * então duas transferências paralelas nunca leem o mesmo saldo antigo.
+   * O débito só acontece se saldo >= valor; caso contrário nada é alterado.
+   */
   @Transactional
   public void transfer(UserType fromType, Long fromId, UserType toType, Long toId, int amount, String reason, LedgerKind kind) {
     if (amount <= 0) throw new IllegalArgumentException("Valor inválido");
-    var from = getOrCreate(fromType, fromId);
-    if (from.getSaldo().compareTo(BigDecimal.valueOf(amount)) < 0) throw new IllegalStateException("Saldo insuficiente");
-    from.setSaldo(from.getSaldo().subtract(BigDecimal.valueOf(amount))); walletRepo.save(from);
-    var to = getOrCreate(toType, toId);
-    to.setSaldo(to.getSaldo().add(BigDecimal.valueOf(amount))); walletRepo.save(to);
-    ledgerRepo.save(LedgerEntry.builder().kind(kind).fromType(fromType).fromId(fromId).toType(toType).toId(toId).amount(amount).reason(reason).build());
+    var from = new WalletKey(fromType, fromId);
+    var to = new WalletKey(toType, toId);
+    if (from.equals(to)) throw new IllegalArgumentException("Origem e destino iguais");
+    var value = BigDecimal.valueOf(amount);
+
+    // os inserts também seguem LOCK_ORDER: o insert na chave única (user_type, user_id)
+    // trava até o commit, e duas transferências A->B / B->A em ordens opostas se travariam
+    boolean fromFirst = LOCK_ORDER.compare(from, to) < 0;
+    var first = fromFirst ? from : to;
+    var second = fromFirst ? to : from;
+    walletRepo.insertIfAbsent(first.type().name(), first.id());
+    walletRepo.insertIfAbsent(second.type().name(), second.id());
+
+    if (fromFirst) {
+      debit(from, value);
+      walletRepo.credit(toType, toId, value);
+    } else {
+      walletRepo.credit(toType, toId, value);
+      debit(from, value);
+    }
+
+    var entry = ledgerRepo.save(LedgerEntry.builder().kind(kind).fromType(fromType).fromId(fromId).toType(toType).toId(toId).amount(amount).reason(reason).build());
+    balances.changed(fromType, fromId);
+    balances.changed(toType, toId);
+    events.committed(List.of(entry));
+  }
+  /**
+   * Uma origem para N destinos, tudo ou nada: um único débito do total,
+   * créditos e criação de carteiras em batch JDBC e os LedgerEntry em insert
+   * batch do Hibernate (hibernate.jdbc.batch_size).
+   */
+  @Transactional
+  public int transferBatch(UserType fromType, Long fromId, UserType toType, List<Credit> credits, String reason, LedgerKind kind) {
+    if (credits == null || credits.isEmpty()) throw new IllegalArgumentException("Nenhum destinatário");
+    var from = new WalletKey(fromType, fromId);
+    long total = 0;
+    for (Credit c : credits) {
+      if (c.amount() <= 0) throw new IllegalArgumentException("Valor inválido");
+      if (from.equals(new WalletKey(toType, c.toId()))) throw new IllegalArgumentException("Origem e destino iguais");
+      total += c.amount();
+    }
+
+    var sorted = new ArrayList<>(credits);
+    sorted.sort(Comparator.comparing(Credit::toId));
+
+    // mesma ordem de locks do transfer(), nos inserts e nos updates: destinos "antes" da origem, origem, destinos "depois"
+    var before = new ArrayList<Credit>();
+    var after = new ArrayList<Credit>();
+    for (Credit c : sorted) (LOCK_ORDER.compare(new WalletKey(toType, c.toId()), from) < 0 ? before : after).add(c);
+    insertBatch(toType, before);
+    walletRepo.insertIfAbsent(fromType.name(), fromId);
+    insertBatch(toType, after);
+
+    creditBatch(toType, before);
+    debit(from, BigDecimal.valueOf(total));
+    creditBatch(toType, after);
+
+    var entries = ledgerRepo.saveAll(sorted.stream().map(c -> LedgerEntry.builder().kind(kind).fromType(fromType).fromId(fromId).toType(toType).toId(c.toId()).amount(c.amount()).reason(reason).build()).toList());
+    balances.changed(fromType, fromId);
+    sorted.forEach(c -> balances.changed(toType, c.toId()));
+    events.committed(entries);
+    return sorted.size();
+  }
+  private void insertBatch(UserType toType, List<Credit> credits) {
+    if (credits.isEmpty()) return;
+    jdbc.batchUpdate("insert into wallet (id, user_type, user_id, saldo) values (nextval('wallet_seq'), ?, ?, 0) on conflict (user_type, user_id) do nothing",
+        credits.stream().map(c -> new Object[] { toType.name(), c.toId() }).toList());
+  }
+  private void creditBatch(UserType toType, List<Credit> credits) {
+    if (credits.isEmpty()) return;
+    jdbc.batchUpdate("update wallet set saldo = saldo + ? where user_type = ? and user_id = ?",
+        credits.stream().map(c -> new Object[] { BigDecimal.valueOf(c.amount()), toType.name(), c.toId() }).toList());
+  }
+  private void debit(WalletKey from, BigDecimal value) {
+    if (walletRepo.debit(from.type(), from.id(), value) == 0) throw new IllegalStateException("Saldo insuficiente");
   }
 }
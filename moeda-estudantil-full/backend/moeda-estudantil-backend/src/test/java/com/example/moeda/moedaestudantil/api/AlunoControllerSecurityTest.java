@@ -0,0 +1,102 @@
+package com.example.moeda.moedaestudantil.api;
+
+import com.example.moeda.moedaestudantil.config.SecurityConfig;
+import com.example.moeda.moedaestudantil.domain.UserType;
+import com.example.moeda.moedaestudantil.service.AlunoService;
+import com.example.moeda.moedaestudantil.service.BenefitCostIndex;
+import com.example.moeda.moedaestudantil.service.DashboardService;
+import com.example.moeda.moedaestudantil.service.IdempotencyService;
+import com.example.moeda.moedaestudantil.service.LedgerService;
+import com.example.moeda.moedaestudantil.service.RedemptionService;
+import com.example.moeda.moedaestudantil.service.TokenService;
+import com.example.moeda.moedaestudantil.service.WalletEventHub;
+import com.example.moeda.moedaestudantil.service.WalletService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/** Regra do SecurityConfig: o {id} da rota precisa ser o do usuário (e papel) do token. */
+@WebMvcTest(AlunoController.class)
+@Import({ SecurityConfig.class, TokenService.class })
+class AlunoControllerSecurityTest {
+
+  @Autowired
+  MockMvc mvc;
+
+  @Autowired
+  TokenService tokens;
+
+  @MockBean AlunoService alunoService;
+  @MockBean WalletService walletService;
+  @MockBean LedgerService ledger;
+  @MockBean RedemptionService redemptionService;
+  @MockBean IdempotencyService idempotency;
+  @MockBean DashboardService dashboard;
+  @MockBean WalletEventHub events;
+  @MockBean BenefitCostIndex costs;
+
+  @BeforeEach
+  void stubs() {
+    when(walletService.balance(any(), anyLong())).thenReturn(BigDecimal.TEN);
+  }
+
+  private String bearer(UserType type, long id) {
+    return "Bearer " + tokens.issue(type, id);
+  }
+
+  @Test
+  void ownerReadsOwnWallet() throws Exception {
+    mvc.perform(get("/api/alunos/5/wallet").header("Authorization", bearer(UserType.ALUNO, 5)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.saldo").value(10));
+  }
+
+  @Test
+  void withoutTokenIs401() throws Exception {
+    mvc.perform(get("/api/alunos/5/wallet")).andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  void invalidOrExpiredTokenIs401() throws Exception {
+    mvc.perform(get("/api/alunos/5/wallet").header("Authorization", "Bearer abc.def"))
+        .andExpect(status().isUnauthorized());
+    String expired = tokens.issue(UserType.ALUNO, 5L, Instant.now().minusSeconds(5));
+    mvc.perform(get("/api/alunos/5/wallet").header("Authorization", "Bearer " + expired))
+        .andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  void otherStudentsIdIs403() throws Exception {
+    mvc.perform(get("/api/alunos/6/wallet").header("Authorization", bearer(UserType.ALUNO, 5)))
+        .andExpect(status().isForbidden());
+    mvc.perform(get("/api/alunos/6").header("Authorization", bearer(UserType.ALUNO, 5)))
+        .andExpect(status().isForbidden());
+  }
+
+  @Test
+  void sameIdWithAnotherRoleIs403() throws Exception {
+    mvc.perform(get("/api/alunos/5/wallet").header("Authorization", bearer(UserType.PROFESSOR, 5)))
+        .andExpect(status().isForbidden());
+  }
+
+  @Test
+  void queryTokenOnlyAcceptedOnEvents() throws Exception {
+    String raw = tokens.issue(UserType.ALUNO, 5L);
+    mvc.perform(get("/api/alunos/5/wallet").param("access_token", raw))
+        .andExpect(status().isUnauthorized());
+  }
+}
@@ -0,0 +1,66 @@
+package com.example.moeda.moedaestudantil.api;
+
+import com.example.moeda.moedaestudantil.config.SecurityConfig;
+import com.example.moeda.moedaestudantil.dto.AuthDtos.ResetPasswordConfirm;
+import com.example.moeda.moedaestudantil.service.AuthService;
+import com.example.moeda.moedaestudantil.service.TokenService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/** Rotas anônimas de /api/auth: só login, cadastro e o reset por código enviado por e-mail. */
+@WebMvcTest(AuthController.class)
+@Import({ SecurityConfig.class, TokenService.class })
+class AuthControllerSecurityTest {
+
+  @Autowired
+  MockMvc mvc;
+
+  @MockBean AuthService service;
+
+  @Test
+  void resetRequestIsAnonymous() throws Exception {
+    mvc.perform(post("/api/auth/reset-password/request")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"email\":\"fulano@x.com\"}"))
+        .andExpect(status().isOk());
+    verify(service).requestPasswordReset(any(), any());
+  }
+
+  @Test
+  void resetNeedsTheEmailedCode() throws Exception {
+    mvc.perform(post("/api/auth/reset-password")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"codigo\":\"abc\",\"novaSenha\":\"nova\"}"))
+        .andExpect(status().isOk());
+    verify(service).resetPassword(argThat((ResetPasswordConfirm d) -> "abc".equals(d.codigo)), any());
+  }
+
+  // o formato antigo (e-mail + senha nova, sem código) não chega ao serviço
+  @Test
+  void resetWithEmailOnlyIsRejected() throws Exception {
+    mvc.perform(post("/api/auth/reset-password")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"email\":\"vitima@x.com\",\"novaSenha\":\"nova\"}"))
+        .andExpect(status().isBadRequest());
+    verify(service, never()).resetPassword(any(), any());
+  }
+
+  @Test
+  void otherAuthRoutesRequireToken() throws Exception {
+    mvc.perform(get("/api/auth/reset-password")).andExpect(status().isUnauthorized());
+    mvc.perform(post("/api/auth/qualquer-coisa")).andExpect(status().isUnauthorized());
+  }
+}
@@ -0,0 +1,69 @@
+package com.example.moeda.moedaestudantil.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BenefitCatalogCacheTest {
+
+  private final BenefitCatalogCache cache = new BenefitCatalogCache(100, Duration.ofMinutes(10));
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @AfterEach
+  void clearSynchronization() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  private byte[] load(String json) {
+    loads.incrementAndGet();
+    return json.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void servesTheSameBytesUntilInvalidated() {
+    byte[] first = cache.active(() -> load("[1]"));
+    byte[] second = cache.active(() -> load("[2]"));
+
+    assertThat(second).isSameAs(first);
+    assertThat(loads.get()).isEqualTo(1);
+    assertThat(cache.stats()).containsEntry("hits", 1L).containsEntry("misses", 1L);
+
+    cache.invalidate(7L);
+    assertThat(new String(cache.active(() -> load("[2]")), StandardCharsets.UTF_8)).isEqualTo("[2]");
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  void invalidateDropsOnlyThatCompany() {
+    cache.byEmpresa(1L, () -> load("[a]"));
+    cache.byEmpresa(2L, () -> load("[b]"));
+
+    cache.invalidate(1L);
+    cache.byEmpresa(1L, () -> load("[a2]"));
+    cache.byEmpresa(2L, () -> load("[b2]"));
+
+    assertThat(loads.get()).isEqualTo(3); // só a empresa 1 recarregou
+  }
+
+  @Test
+  void insideATransactionEvictionWaitsForCommit() {
+    cache.active(() -> load("[velho]"));
+
+    TransactionSynchronizationManager.initSynchronization();
+    cache.invalidate(1L);
+    // antes do commit a remoção não aconteceu: quem lê ainda recebe o valor em cache
+    assertThat(new String(cache.active(() -> load("[novo]")), StandardCharsets.UTF_8)).isEqualTo("[velho]");
+
+    for (TransactionSynchronization s : TransactionSynchronizationManager.getSynchronizations()) s.afterCommit();
+    assertThat(new String(cache.active(() -> load("[novo]")), StandardCharsets.UTF_8)).isEqualTo("[novo]");
+  }
+}
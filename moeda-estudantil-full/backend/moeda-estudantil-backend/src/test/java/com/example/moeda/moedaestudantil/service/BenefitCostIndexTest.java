@@ -0,0 +1,179 @@
+package com.example.moeda.moedaestudantil.service;
+
+import com.example.moeda.moedaestudantil.domain.Benefit;
+import com.example.moeda.moedaestudantil.dto.BenefitDtos.AffordablePage;
+import com.example.moeda.moedaestudantil.dto.BenefitDtos.View;
+import com.example.moeda.moedaestudantil.repo.BenefitRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * "O que cabe no saldo" contra uma varredura ingênua: ativos com custo <=
+ * parte inteira do saldo, ordem (custo, id) crescente ou o inverso, paginado.
+ */
+class BenefitCostIndexTest {
+
+  private final BenefitRepository repo = mock(BenefitRepository.class);
+  private final BenefitCostIndex index = new BenefitCostIndex(repo);
+
+  // referência: só os ativos, pela versão mais recente
+  private final Map<Long, Benefit> active = new HashMap<>();
+
+  private static Benefit benefit(long id, int custo, boolean ativo) {
+    var b = Benefit.builder().id(id).empresaId(1L).titulo("B" + id).custo(custo).build();
+    b.setAtivo(ativo);
+    return b;
+  }
+
+  private void load(List<Benefit> all) {
+    when(repo.findByAtivoTrue()).thenReturn(all);
+    index.rebuild();
+    active.clear();
+    all.forEach(b -> active.put(b.getId(), b));
+  }
+
+  private void update(Benefit b) {
+    index.indexAfterCommit(b);
+    if (b.isAtivo()) active.put(b.getId(), b);
+    else active.remove(b.getId());
+  }
+
+  private static List<Long> ids(AffordablePage p) {
+    return p.items.stream().map(View::getId).toList();
+  }
+
+  @Test
+  void tiesOnCostAreOrderedById() {
+    load(List.of(benefit(5, 10, true), benefit(2, 10, true), benefit(9, 3, true), benefit(7, 10, true)));
+
+    assertThat(ids(index.affordable(new BigDecimal("10"), null, 0, 10))).containsExactly(9L, 2L, 5L, 7L);
+    assertThat(ids(index.affordable(new BigDecimal("10"), "custo_desc", 0, 10))).containsExactly(7L, 5L, 2L, 9L);
+    // inserção no meio de um empate cai na posição do id
+    update(benefit(4, 10, true));
+    assertThat(ids(index.affordable(new BigDecimal("10.99"), "custo", 0, 10))).containsExactly(9L, 2L, 4L, 5L, 7L);
+  }
+
+  @Test
+  void inPlaceUpdateMovesTheDocument() {
+    load(List.of(benefit(1, 5, true), benefit(2, 8, true), benefit(3, 12, true)));
+
+    update(benefit(1, 20, true));
+    assertThat(ids(index.affordable(new BigDecimal("12"), null, 0, 10))).containsExactly(2L, 3L);
+    assertThat(ids(index.affordable(new BigDecimal("20"), null, 0, 10))).containsExactly(2L, 3L, 1L);
+
+    update(benefit(3, 1, true));
+    assertThat(ids(index.affordable(new BigDecimal("20"), null, 0, 10))).containsExactly(3L, 2L, 1L);
+    assertThat(index.stats()).containsEntry("docs", 3);
+  }
+
+  @Test
+  void deactivationRemovesAndReactivationRestores() {
+    load(List.of(benefit(1, 5, true), benefit(2, 5, true)));
+
+    update(benefit(1, 5, false));
+    assertThat(ids(index.affordable(new BigDecimal("100"), null, 0, 10))).containsExactly(2L);
+    assertThat(index.affordable(new BigDecimal("100"), null, 0, 10).total).isEqualTo(1);
+    // desativar o que já não está no índice não muda nada
+    update(benefit(42, 1, false));
+    assertThat(index.stats()).containsEntry("docs", 1);
+
+    update(benefit(1, 5, true));
+    assertThat(ids(index.affordable(new BigDecimal("100"), null, 0, 10))).containsExactly(1L, 2L);
+  }
+
+  @Test
+  void zeroNegativeAndNullBalancesAffordNothing() {
+    load(List.of(benefit(1, 1, true), benefit(2, 2, true)));
+
+    for (BigDecimal saldo : new BigDecimal[] { BigDecimal.ZERO, new BigDecimal("-5"), new BigDecimal("0.99"), null }) {
+      var p = index.affordable(saldo, null, 0, 10);
+      assertThat(p.items).as("saldo %s", saldo).isEmpty();
+      assertThat(p.total).isZero();
+    }
+    assertThat(ids(index.affordable(new BigDecimal("1.5"), null, 0, 10))).containsExactly(1L);
+    // saldo acima de Integer.MAX_VALUE não estoura
+    assertThat(index.affordable(new BigDecimal("1e12"), null, 0, 10).total).isEqualTo(2);
+  }
+
+  @Test
+  void descendingPagesWalkFromTheMostExpensiveThatFits() {
+    List<Benefit> all = new ArrayList<>();
+    for (int i = 1; i <= 25; i++) all.add(benefit(i, 1 + i % 7, true));
+    load(all);
+
+    List<Long> paged = new ArrayList<>();
+    for (int page = 0; page < 5; page++) paged.addAll(ids(index.affordable(new BigDecimal("5"), "custo_desc", page, 4)));
+    assertThat(paged).containsExactlyElementsOf(expected(5, true));
+    assertThat(index.affordable(new BigDecimal("5"), "custo_desc", 99, 4).items).isEmpty();
+  }
+
+  @Test
+  void randomUpdatesMatchBruteForce() {
+    var rnd = new Random(11);
+    List<Benefit> all = new ArrayList<>();
+    for (int i = 1; i <= 300; i++) all.add(benefit(i, 1 + rnd.nextInt(60), true));
+    load(all);
+
+    for (int op = 0; op < 3_000; op++) {
+      update(benefit(1 + rnd.nextInt(400), 1 + rnd.nextInt(60), rnd.nextInt(5) != 0));
+      if (op % 100 != 0) continue;
+      for (int q = 0; q < 20; q++) {
+        int saldo = rnd.nextInt(70) - 5;
+        boolean desc = rnd.nextBoolean();
+        int size = 1 + rnd.nextInt(30);
+        List<Long> want = expected(saldo, desc);
+        for (int page = 0; page <= want.size() / size; page++) {
+          var got = index.affordable(BigDecimal.valueOf(saldo), desc ? "custo_desc" : "custo", page, size);
+          int from = Math.min(want.size(), page * size);
+          assertThat(ids(got)).as("saldo=%d desc=%s page=%d size=%d", saldo, desc, page, size)
+              .containsExactlyElementsOf(want.subList(from, Math.min(want.size(), from + size)));
+          assertThat(got.total).isEqualTo(want.size());
+        }
+      }
+    }
+  }
+
+  @Test
+  void beforeTheFirstLoadQueriesTheDatabase() {
+    when(repo.findByAtivoTrueAndCustoLessThanEqual(anyInt(), any(Pageable.class)))
+        .thenReturn(List.of(benefit(1, 3, true)));
+    when(repo.countByAtivoTrueAndCustoLessThanEqual(anyInt())).thenReturn(1L);
+
+    var p = index.affordable(new BigDecimal("3"), null, 0, 10);
+    assertThat(ids(p)).containsExactly(1L);
+    verify(repo).findByAtivoTrueAndCustoLessThanEqual(anyInt(), any(Pageable.class));
+    assertThat(index.stats()).containsEntry("loaded", false).containsEntry("dbFallbacks", 1L);
+  }
+
+  @Test
+  void invalidSortIsRejected() {
+    load(List.of(benefit(1, 1, true)));
+    assertThatThrownBy(() -> index.affordable(BigDecimal.TEN, "titulo", 0, 10))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private List<Long> expected(int saldo, boolean desc) {
+    Comparator<Benefit> cmp = Comparator.comparing(Benefit::getCusto).thenComparing(Benefit::getId);
+    return active.values().stream()
+        .filter(b -> b.getCusto() <= Math.max(0, saldo))
+        .sorted(desc ? cmp.reversed() : cmp)
+        .map(Benefit::getId)
+        .toList();
+  }
+}
@@ -0,0 +1,90 @@
+package com.example.moeda.moedaestudantil.service;
+
+import com.example.moeda.moedaestudantil.repo.BenefitImageRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Coleta de arquivos órfãos do store: só apaga o que nenhuma linha referencia
+ * e que é mais velho que a carência (uploads em andamento ficam).
+ */
+class BenefitImagePipelineTest {
+
+  @TempDir
+  Path dir;
+
+  private final BenefitImageRepository images = mock(BenefitImageRepository.class);
+
+  private BenefitImageStore store;
+  private BenefitImagePipeline pipeline;
+
+  private BenefitImageStore.Stored put(String content, Duration age) throws Exception {
+    var stored = store.put(new ByteArrayInputStream(content.getBytes()));
+    Files.setLastModifiedTime(store.resolve(stored.key()), FileTime.from(Instant.now().minus(age)));
+    return stored;
+  }
+
+  private void setUp(List<String> referenced) {
+    store = new BenefitImageStore(dir.toString());
+    pipeline = new BenefitImagePipeline(images, store, mock(ThreadPoolTaskExecutor.class), Duration.ofHours(1));
+    when(images.findReferencedKeys(anyCollection())).thenAnswer(inv -> {
+      Collection<String> keys = inv.getArgument(0);
+      return keys.stream().filter(referenced::contains).toList();
+    });
+  }
+
+  @Test
+  void deletesOnlyOldUnreferencedFiles() throws Exception {
+    var referenced = new ArrayList<String>();
+    setUp(referenced);
+    var oldOrphan = put("antigo-sem-linha", Duration.ofHours(2));
+    var oldUsed = put("antigo-com-linha", Duration.ofHours(2));
+    var freshOrphan = put("upload-em-andamento", Duration.ofMinutes(5));
+    referenced.add(oldUsed.key());
+
+    assertThat(pipeline.collectOrphans()).isEqualTo(1);
+    assertThat(Files.exists(store.resolve(oldOrphan.key()))).isFalse();
+    assertThat(Files.exists(store.resolve(oldUsed.key()))).isTrue();
+    assertThat(Files.exists(store.resolve(freshOrphan.key()))).isTrue();
+  }
+
+  // reenviar um conteúdo que já existe renova a carência do arquivo
+  @Test
+  void repeatedUploadRenewsTheGracePeriod() throws Exception {
+    setUp(List.of());
+    var old = put("mesmo-conteudo", Duration.ofHours(2));
+    var again = store.put(new ByteArrayInputStream("mesmo-conteudo".getBytes()));
+
+    assertThat(again.key()).isEqualTo(old.key());
+    assertThat(pipeline.collectOrphans()).isZero();
+    assertThat(Files.exists(store.resolve(old.key()))).isTrue();
+  }
+
+  @Test
+  void deleteRechecksTheAge() throws Exception {
+    setUp(List.of());
+    var stored = put("renovado-depois-da-listagem", Duration.ofHours(2));
+    Instant before = Instant.now().minus(Duration.ofHours(1));
+    assertThat(store.keysOlderThan(before)).containsExactly(stored.key());
+
+    Files.setLastModifiedTime(store.resolve(stored.key()), FileTime.from(Instant.now()));
+    assertThat(store.deleteIfOlderThan(stored.key(), before)).isFalse();
+    assertThat(Files.exists(store.resolve(stored.key()))).isTrue();
+  }
+}
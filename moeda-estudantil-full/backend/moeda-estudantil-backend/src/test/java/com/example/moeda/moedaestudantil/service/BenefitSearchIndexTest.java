@@ -0,0 +1,255 @@
+package com.example.moeda.moedaestudantil.service;
+
+import com.example.moeda.moedaestudantil.domain.Benefit;
+import com.example.moeda.moedaestudantil.dto.BenefitDtos.SearchPage;
+import com.example.moeda.moedaestudantil.dto.BenefitDtos.View;
+import com.example.moeda.moedaestudantil.repo.BenefitRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Índice de busca contra uma varredura ingênua do mesmo catálogo: mesmos
+ * documentos, mesma ordem (desempate pela ordem de inserção no índice) e
+ * mesmo total, para todo sort, filtro e página.
+ */
+class BenefitSearchIndexTest {
+
+  private static final String[] SORTS = { null, "relevancia", "custo", "custo_desc", "titulo", "recentes" };
+
+  // prefixos de 5 letras repetidos (cader..., cafe...) forçam empates no titleKey
+  private static final String[] WORDS = {
+      "Caderno", "Cadernos", "Caderneta", "Café", "Cafeteira", "Café-da-Manhã", "cafe", "Livro", "Livraria",
+      "Ingresso", "Ingressos", "Cinema", "Camiseta", "Ação", "Açaí", "acai", "10% off", "#promo", "Zebra", "x"
+  };
+  private static final String[] QUERIES = {
+      "", "cafe", "Café", "CAFÉ", "cade", "caderno", "cadernos", "liv", "c", "x", "ingresso cinema", "de",
+      "acao", "açai", "10", "promo", "zzz", "cafe cader", "  Cinema  "
+  };
+
+  private final BenefitRepository repo = mock(BenefitRepository.class);
+  private final BenefitSearchIndex index = new BenefitSearchIndex(repo);
+
+  // catálogo de referência, na ordem de inserção no índice (= desempate)
+  private final Map<Long, Benefit> docs = new LinkedHashMap<>();
+
+  private static Benefit benefit(long id, long empresa, String titulo, String descricao, int custo) {
+    var b = Benefit.builder().id(id).empresaId(empresa).titulo(titulo).descricao(descricao).custo(custo).build();
+    b.setAtivo(true);
+    return b;
+  }
+
+  private void load(List<Benefit> active) {
+    when(repo.findByAtivoTrue()).thenReturn(active);
+    index.rebuild();
+    docs.clear();
+    active.stream().sorted(Comparator.comparing(Benefit::getId)).forEach(b -> docs.put(b.getId(), b));
+  }
+
+  // update incremental: a versão nova vai para o fim da ordem; inativo sai
+  private void update(Benefit b) {
+    index.indexAfterCommit(b);
+    docs.remove(b.getId());
+    if (b.isAtivo()) docs.put(b.getId(), b);
+  }
+
+  private static List<Long> ids(SearchPage p) {
+    return p.items.stream().map(View::getId).toList();
+  }
+
+  @Test
+  void accentsAreFoldedAndWordsMatchAsPrefix() {
+    load(List.of(
+        benefit(1, 1, "Café da Manhã", "pão e café", 10),
+        benefit(2, 1, "Cadernos universitários", null, 20),
+        benefit(3, 1, "Açaí", "tigela", 15),
+        benefit(4, 1, "Cinema", "ingresso para o café-bar", 30)));
+
+    assertThat(ids(index.search("cafe", null, null, "custo", 0, 10))).containsExactly(1L, 4L);
+    assertThat(ids(index.search("CAFÉ", null, null, "custo", 0, 10))).containsExactly(1L, 4L);
+    assertThat(ids(index.search("cade", null, null, null, 0, 10))).containsExactly(2L);
+    assertThat(ids(index.search("acai", null, null, null, 0, 10))).containsExactly(3L);
+    assertThat(ids(index.search("universitarios cadern", null, null, null, 0, 10))).containsExactly(2L);
+    // AND entre as palavras
+    assertThat(ids(index.search("cafe cinema", null, null, null, 0, 10))).containsExactly(4L);
+    // uma letra só casa termo exato, stopword é ignorada
+    assertThat(ids(index.search("c", null, null, null, 0, 10))).isEmpty();
+    assertThat(index.search("de", null, null, null, 0, 10).total).isEqualTo(4);
+    // relevância: palavra no título vem antes de palavra só na descrição
+    assertThat(ids(index.search("cafe", null, null, "relevancia", 0, 10))).containsExactly(1L, 4L);
+  }
+
+  @Test
+  void everySortMatchesBruteForce() {
+    var rnd = new Random(42);
+    load(randomCatalog(rnd, 300));
+    compareAll(rnd);
+  }
+
+  @Test
+  void updatesAndRemovalsMatchBruteForce() {
+    var rnd = new Random(7);
+    load(randomCatalog(rnd, 200));
+    for (int round = 0; round < 5; round++) {
+      for (int i = 0; i < 60; i++) {
+        long id = 1 + rnd.nextInt(260); // inclui ids novos
+        var b = randomBenefit(rnd, id);
+        if (rnd.nextInt(4) == 0) b.setAtivo(false);
+        update(b);
+      }
+      compareAll(rnd);
+    }
+  }
+
+  @Test
+  void removedAndEditedDocumentsLeaveTheResults() {
+    load(List.of(
+        benefit(1, 1, "Caderno", null, 10),
+        benefit(2, 1, "Caderneta", null, 20)));
+
+    var off = benefit(1, 1, "Caderno", null, 10);
+    off.setAtivo(false);
+    update(off);
+    assertThat(ids(index.search("cader", null, null, null, 0, 10))).containsExactly(2L);
+
+    // título novo: o termo antigo não acha mais, o novo acha
+    update(benefit(2, 1, "Livro", null, 20));
+    assertThat(ids(index.search("cader", null, null, null, 0, 10))).isEmpty();
+    assertThat(ids(index.search("livro", null, null, null, 0, 10))).containsExactly(2L);
+
+    // reativado volta, como o mais recente
+    update(benefit(1, 1, "Caderno", null, 10));
+    assertThat(ids(index.search("", null, null, "recentes", 0, 10))).containsExactly(1L, 2L);
+    assertThat(index.stats()).containsEntry("docs", 2);
+  }
+
+  // títulos que só diferem depois da 5ª letra, espalhados em várias páginas
+  @Test
+  void titlePagingAcrossTitleKeyTies() {
+    List<Benefit> all = new ArrayList<>();
+    String[] titles = { "Cadernos", "Caderno", "Caderneta", "Cadernal", "Caderno B", "Caderno A", "Cadern",
+        "Cader", "Cade", "Caderno-azul", "Caderno azul", "Cadernão", "Cadernoz", "Cadernó", "Caderno 10", "Caderno 2" };
+    for (int i = 0; i < titles.length; i++) all.add(benefit(100 - i, 1, titles[i], null, 5));
+    load(all);
+
+    List<Long> paged = new ArrayList<>();
+    for (int page = 0; page < 6; page++) paged.addAll(ids(index.search("", null, null, "titulo", page, 3)));
+    assertThat(paged).containsExactlyElementsOf(expected("", null, null, "titulo"));
+  }
+
+  @Test
+  void invalidArguments() {
+    load(List.of(benefit(1, 1, "Caderno", null, 10)));
+    assertThatThrownBy(() -> index.search("", null, null, "preco", 0, 10))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> index.search("", null, null, null, BenefitSearchIndex.MAX_WINDOW, 10))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void titleKeyNeverContradictsTitleOrder() {
+    var rnd = new Random(3);
+    String alphabet = "abcz09 -_!~áé";
+    for (int i = 0; i < 20_000; i++) {
+      String a = BenefitSearchIndex.fold(randomString(rnd, alphabet));
+      String b = BenefitSearchIndex.fold(randomString(rnd, alphabet));
+      if (BenefitSearchIndex.titleKey(a) < BenefitSearchIndex.titleKey(b)) {
+        assertThat(a.compareTo(b)).as("%s < %s", a, b).isLessThan(0);
+      }
+    }
+  }
+
+  // ====== referência ======
+
+  private void compareAll(Random rnd) {
+    for (String q : QUERIES) {
+      for (String sort : SORTS) {
+        Integer maxCusto = rnd.nextInt(3) == 0 ? 1 + rnd.nextInt(40) : null;
+        Long empresa = rnd.nextInt(3) == 0 ? (long) (1 + rnd.nextInt(3)) : null;
+        List<Long> all = expected(q, maxCusto, empresa, sort);
+        int size = 1 + rnd.nextInt(12);
+        for (int page = 0; page <= all.size() / size; page++) {
+          var got = index.search(q, maxCusto, empresa, sort, page, size);
+          int from = Math.min(all.size(), page * size);
+          assertThat(ids(got))
+              .as("q=%s sort=%s maxCusto=%s empresa=%s page=%d size=%d", q, sort, maxCusto, empresa, page, size)
+              .containsExactlyElementsOf(all.subList(from, Math.min(all.size(), from + size)));
+          assertThat(got.total).isEqualTo(all.size());
+        }
+      }
+    }
+  }
+
+  private List<Long> expected(String q, Integer maxCusto, Long empresa, String sort) {
+    List<String> words = BenefitSearchIndex.tokens(q);
+    List<Long> order = new ArrayList<>(docs.keySet());
+    List<Benefit> hits = new ArrayList<>();
+    for (Benefit b : docs.values()) {
+      List<String> title = BenefitSearchIndex.tokens(b.getTitulo());
+      List<String> all = new ArrayList<>(title);
+      all.addAll(BenefitSearchIndex.tokens(b.getDescricao()));
+      boolean ok = words.stream().allMatch(w -> all.stream().anyMatch(t -> matches(t, w)))
+          && (maxCusto == null || b.getCusto() <= maxCusto)
+          && (empresa == null || b.getEmpresaId().equals(empresa));
+      if (ok) hits.add(b);
+    }
+
+    Comparator<Benefit> byOrd = Comparator.comparingInt(b -> order.indexOf(b.getId()));
+    Comparator<Benefit> cmp = switch (sort == null ? "relevancia" : sort) {
+      case "custo" -> Comparator.<Benefit>comparingInt(Benefit::getCusto).thenComparing(byOrd);
+      case "custo_desc" -> Comparator.<Benefit>comparingInt(b -> -b.getCusto()).thenComparing(byOrd);
+      case "titulo" -> Comparator.<Benefit, String>comparing(b -> BenefitSearchIndex.fold(b.getTitulo())).thenComparing(byOrd);
+      case "recentes" -> byOrd.reversed();
+      default -> Comparator.<Benefit>comparingInt(b -> -titleHits(words, b))
+          .thenComparingInt(Benefit::getCusto).thenComparing(byOrd);
+    };
+    return hits.stream().sorted(cmp).map(Benefit::getId).toList();
+  }
+
+  private static int titleHits(List<String> words, Benefit b) {
+    List<String> title = BenefitSearchIndex.tokens(b.getTitulo());
+    return (int) words.stream().filter(w -> title.stream().anyMatch(t -> matches(t, w))).count();
+  }
+
+  // uma letra casa só o termo exato; mais letras casam como prefixo
+  private static boolean matches(String term, String word) {
+    return word.length() < 2 ? term.equals(word) : term.startsWith(word);
+  }
+
+  private static List<Benefit> randomCatalog(Random rnd, int n) {
+    List<Benefit> out = new ArrayList<>();
+    for (int i = 1; i <= n; i++) out.add(randomBenefit(rnd, i));
+    return out;
+  }
+
+  private static Benefit randomBenefit(Random rnd, long id) {
+    return benefit(id, 1 + rnd.nextInt(3), phrase(rnd, 1 + rnd.nextInt(3)),
+        rnd.nextBoolean() ? phrase(rnd, 1 + rnd.nextInt(4)) : null, 1 + rnd.nextInt(40));
+  }
+
+  private static String phrase(Random rnd, int words) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < words; i++) {
+      if (i > 0) sb.append(rnd.nextBoolean() ? " " : " de ");
+      sb.append(WORDS[rnd.nextInt(WORDS.length)]);
+    }
+    return sb.toString();
+  }
+
+  private static String randomString(Random rnd, String alphabet) {
+    int n = rnd.nextInt(8);
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < n; i++) sb.append(alphabet.charAt(rnd.nextInt(alphabet.length())));
+    return sb.toString();
+  }
+}
@@ -0,0 +1,70 @@
+package com.example.moeda.moedaestudantil.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+  @Test
+  void opensAfterConsecutiveFailures() {
+    var cb = new CircuitBreaker(3, Duration.ofMinutes(1));
+    cb.onFailure();
+    cb.onFailure();
+    assertThat(cb.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    assertThat(cb.allow()).isTrue();
+
+    cb.onFailure();
+    assertThat(cb.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    assertThat(cb.allow()).isFalse();
+  }
+
+  @Test
+  void successResetsFailureCount() {
+    var cb = new CircuitBreaker(3, Duration.ofMinutes(1));
+    cb.onFailure();
+    cb.onFailure();
+    cb.onSuccess();
+    cb.onFailure();
+    cb.onFailure();
+    assertThat(cb.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+  }
+
+  @Test
+  void halfOpenLetsOneProbeThrough() {
+    var cb = new CircuitBreaker(1, Duration.ZERO);
+    cb.onFailure();
+
+    // openFor já passou: a primeira chamada é o teste, as outras esperam o resultado
+    assertThat(cb.allow()).isTrue();
+    assertThat(cb.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    assertThat(cb.allow()).isFalse();
+
+    cb.onSuccess();
+    assertThat(cb.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    assertThat(cb.allow()).isTrue();
+  }
+
+  @Test
+  void failedProbeReopens() {
+    var cb = new CircuitBreaker(5, Duration.ofMillis(50));
+    for (int i = 0; i < 5; i++) cb.onFailure();
+    assertThat(cb.allow()).isFalse();
+
+    sleep(60);
+    assertThat(cb.allow()).isTrue();
+    cb.onFailure(); // uma falha no HALF_OPEN basta, mesmo abaixo do limite
+    assertThat(cb.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    assertThat(cb.allow()).isFalse();
+  }
+
+  private static void sleep(long ms) {
+    try {
+      Thread.sleep(ms);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package com.example.moeda.moedaestudantil.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** EmailService contra um servidor HTTP local no lugar do EmailJS. */
+class EmailServiceTest {
+
+  private HttpServer server;
+  private final AtomicInteger hits = new AtomicInteger();
+  private volatile int status = 200;
+  private volatile long delayMs;
+
+  @BeforeEach
+  void start() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.createContext("/send", ex -> {
+      hits.incrementAndGet();
+      ex.getRequestBody().readAllBytes();
+      try {
+        if (delayMs > 0) Thread.sleep(delayMs);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      ex.sendResponseHeaders(status, -1);
+      ex.close();
+    });
+    server.start();
+  }
+
+  @AfterEach
+  void stop() {
+    server.stop(0);
+  }
+
+  private EmailService service(Duration requestTimeout, int breakerFailures) {
+    return new EmailService("svc", "tpl-redeem", "tpl-reset", "pk",
+        "http://127.0.0.1:" + server.getAddress().getPort() + "/send",
+        Duration.ofSeconds(2), requestTimeout, 8, breakerFailures, Duration.ofMinutes(1));
+  }
+
+  @Test
+  void sendsAndCountsSuccess() {
+    var email = service(Duration.ofSeconds(2), 3);
+    email.sendPasswordResetEmail("a@x.com", "Aluno", "nova");
+
+    assertThat(hits.get()).isEqualTo(1);
+    assertThat(email.stats()).containsEntry("calls", 1L).containsEntry("failures", 0L);
+  }
+
+  @Test
+  void slowProviderHitsRequestTimeout() {
+    delayMs = 1_000;
+    var email = service(Duration.ofMillis(200), 3);
+
+    long start = System.nanoTime();
+    assertThatThrownBy(() -> email.sendPasswordResetEmail("a@x.com", "Aluno", "nova"))
+        .isInstanceOf(IllegalStateException.class);
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(900));
+    assertThat(email.stats()).containsEntry("failures", 1L);
+  }
+
+  @Test
+  void breakerOpensAfterErrorsAndStopsCallingProvider() {
+    status = 500;
+    var email = service(Duration.ofSeconds(2), 3);
+    for (int i = 0; i < 3; i++) {
+      assertThatThrownBy(() -> email.sendPasswordResetEmail("a@x.com", "Aluno", "nova"))
+          .hasMessageContaining("HTTP 500");
+    }
+    assertThat(email.stats()).containsEntry("circuit", "OPEN");
+
+    assertThatThrownBy(() -> email.sendPasswordResetEmail("a@x.com", "Aluno", "nova"))
+        .hasMessageContaining("circuito aberto");
+    assertThat(hits.get()).isEqualTo(3);
+    assertThat(email.stats()).containsEntry("rejected", 1L);
+  }
+}
@@ -0,0 +1,179 @@
+package com.example.moeda.moedaestudantil.service;
+
+import com.example.moeda.moedaestudantil.domain.LedgerKind;
+import com.example.moeda.moedaestudantil.domain.UserType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Idempotency-Key sobre uma transferência de verdade: repetição devolve a
+ * resposta guardada sem debitar de novo, outro corpo com a mesma chave é 422,
+ * falha não grava nada (a repetição executa) e requisições simultâneas com a
+ * mesma chave geram uma única entrada no ledger.
+ */
+@SpringBootTest(properties = {
+    "app.mail.fake=true",
+    "app.reconcile.initial-delay=PT1H",
+    "app.auth.bcrypt-strength=4"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class IdempotencyServiceTest {
+
+  @Container
+  @ServiceConnection
+  static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+  private static final int THREADS = 16;
+
+  @Autowired
+  IdempotencyService idempotency;
+
+  @Autowired
+  WalletService wallet;
+
+  @Autowired
+  ObjectMapper mapper;
+
+  @Autowired
+  JdbcTemplate jdbc;
+
+  private long professor;
+  private long aluno;
+  private String scope;
+  private String reason;
+
+  @BeforeEach
+  void setUp() {
+    // ids fora da faixa do DataLoader; escopo e motivo próprios de cada execução
+    long base = 900_000L + ThreadLocalRandom.current().nextInt(1_000) * 100L;
+    professor = base;
+    aluno = base + 1;
+    scope = "PROFESSOR:" + professor + ":grant:" + UUID.randomUUID();
+    reason = "idempotency-" + UUID.randomUUID();
+    jdbc.update("insert into wallet (id, user_type, user_id, saldo) values (nextval('wallet_seq'), 'PROFESSOR', ?, 100) "
+        + "on conflict (user_type, user_id) do update set saldo = excluded.saldo", professor);
+    jdbc.update("insert into wallet (id, user_type, user_id, saldo) values (nextval('wallet_seq'), 'ALUNO', ?, 0) "
+        + "on conflict (user_type, user_id) do update set saldo = 0", aluno);
+  }
+
+  private Supplier<ResponseEntity<?>> grant(int amount) {
+    return () -> {
+      wallet.transfer(UserType.PROFESSOR, professor, UserType.ALUNO, aluno, amount, reason, LedgerKind.GRANT);
+      return ResponseEntity.ok(Map.of("granted", amount, "saldo", wallet.balance(UserType.ALUNO, aluno)));
+    };
+  }
+
+  @Test
+  void replayReturnsStoredBodyWithoutSecondTransfer() throws Exception {
+    var request = Map.of("alunoId", aluno, "amount", 10);
+    var first = idempotency.execute(scope, "k1", request, grant(10));
+    var second = idempotency.execute(scope, "k1", request, grant(10));
+
+    assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(second.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(second.getHeaders().getFirst("Idempotent-Replayed")).isEqualTo("true");
+    assertThat(mapper.readTree(body(second))).isEqualTo(mapper.readTree(body(first)));
+    assertThat(mapper.readTree(body(second)).get("granted").asInt()).isEqualTo(10);
+
+    assertThat(ledgerEntries()).isEqualTo(1);
+    assertThat(saldo(UserType.ALUNO, aluno)).isEqualByComparingTo("10");
+  }
+
+  @Test
+  void sameKeyWithAnotherBodyIs422() {
+    idempotency.execute(scope, "k2", Map.of("alunoId", aluno, "amount", 10), grant(10));
+
+    assertThatThrownBy(() -> idempotency.execute(scope, "k2", Map.of("alunoId", aluno, "amount", 20), grant(20)))
+        .isInstanceOfSatisfying(ResponseStatusException.class,
+            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY));
+    assertThat(ledgerEntries()).isEqualTo(1);
+  }
+
+  @Test
+  void failedActionStoresNothingAndRetryRuns() {
+    var request = Map.of("alunoId", aluno, "amount", 500);
+    assertThatThrownBy(() -> idempotency.execute(scope, "k3", request, grant(500)))
+        .hasMessage("Saldo insuficiente");
+    assertThat(jdbc.queryForObject("select count(*) from idempotency_record where scope = ?", Long.class, scope)).isZero();
+    assertThat(ledgerEntries()).isZero();
+
+    // com saldo, a mesma chave executa de verdade
+    jdbc.update("update wallet set saldo = 1000 where user_type = 'PROFESSOR' and user_id = ?", professor);
+    var retry = idempotency.execute(scope, "k3", request, grant(500));
+    assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(retry.getHeaders().containsKey("Idempotent-Replayed")).isFalse();
+    assertThat(ledgerEntries()).isEqualTo(1);
+  }
+
+  @Test
+  void concurrentRequestsWithOneKeyTransferOnce() throws Exception {
+    var request = Map.of("alunoId", aluno, "amount", 7);
+    var bodies = new ConcurrentLinkedQueue<String>();
+    var unexpected = new ConcurrentLinkedQueue<Throwable>();
+    var start = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+
+    for (int t = 0; t < THREADS; t++) {
+      pool.execute(() -> {
+        try {
+          start.await();
+          var resp = idempotency.execute(scope, "k4", request, grant(7));
+          assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+          bodies.add(mapper.readTree(body(resp)).toString());
+        } catch (Throwable e) {
+          unexpected.add(e);
+        }
+      });
+    }
+
+    start.countDown();
+    pool.shutdown();
+    assertThat(pool.awaitTermination(1, TimeUnit.MINUTES)).as("threads terminaram").isTrue();
+    assertThat(unexpected).as("erros inesperados").isEmpty();
+
+    assertThat(ledgerEntries()).isEqualTo(1);
+    assertThat(saldo(UserType.ALUNO, aluno)).isEqualByComparingTo("7");
+    assertThat(List.copyOf(bodies)).hasSize(THREADS).containsOnly(bodies.peek());
+  }
+
+  // execute devolve o JSON serializado (bytes), tanto na primeira vez quanto na repetição
+  private String body(ResponseEntity<?> resp) throws Exception {
+    Object b = resp.getBody();
+    return b instanceof byte[] bytes ? new String(bytes, StandardCharsets.UTF_8) : mapper.writeValueAsString(b);
+  }
+
+  private long ledgerEntries() {
+    return jdbc.queryForObject("select count(*) from ledger_entry where reason = ?", Long.class, reason);
+  }
+
+  private BigDecimal saldo(UserType type, long id) {
+    return jdbc.queryForObject("select saldo from wallet where user_type = ? and user_id = ?", BigDecimal.class, type.name(), id);
+  }
+}
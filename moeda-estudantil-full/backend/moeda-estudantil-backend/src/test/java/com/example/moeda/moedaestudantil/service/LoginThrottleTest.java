@@ -0,0 +1,31 @@
+package com.example.moeda.moedaestudantil.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoginThrottleTest {
+
+  private final LoginThrottle throttle = new LoginThrottle(Duration.ofMinutes(5), 5, 30, 1_000, 3);
+
+  @Test
+  void accountOpsCountEveryCallPerIp() {
+    for (int i = 0; i < 3; i++) assertThat(throttle.tryAccountOp("10.0.0.1")).isTrue();
+    assertThat(throttle.tryAccountOp("10.0.0.1")).isFalse();
+    // outro IP tem o seu próprio contador
+    assertThat(throttle.tryAccountOp("10.0.0.2")).isTrue();
+  }
+
+  // cadastro/reset não gastam as tentativas de login (e vice-versa)
+  @Test
+  void accountOpsAndLoginFailuresAreSeparate() {
+    for (int i = 0; i < 3; i++) throttle.tryAccountOp("10.0.0.3");
+    assertThat(throttle.blocked("fulano@x.com", "10.0.0.3")).isFalse();
+
+    for (int i = 0; i < 5; i++) throttle.failure("fulano@x.com", "10.0.0.4");
+    assertThat(throttle.blocked("fulano@x.com", "10.0.0.4")).isTrue();
+    assertThat(throttle.tryAccountOp("10.0.0.4")).isTrue();
+  }
+}
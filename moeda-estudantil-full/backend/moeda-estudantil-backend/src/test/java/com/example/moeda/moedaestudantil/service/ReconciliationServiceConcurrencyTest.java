@@ -0,0 +1,115 @@
+package com.example.moeda.moedaestudantil.service;
+
+import com.example.moeda.moedaestudantil.domain.LedgerKind;
+import com.example.moeda.moedaestudantil.domain.UserType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reconciliações simultâneas (agendada x manual, várias instâncias) enquanto
+ * transferências acontecem: o advisory lock serializa as execuções, então
+ * nenhuma entrada do ledger é somada duas vezes, cada carteira tem um único
+ * checkpoint e, no fim, nenhuma diferença entre saldo e ledger.
+ */
+@SpringBootTest(properties = {
+    "app.mail.fake=true",
+    "app.reconcile.initial-delay=PT1H",
+    "app.auth.bcrypt-strength=4"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class ReconciliationServiceConcurrencyTest {
+
+  @Container
+  @ServiceConnection
+  static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+  private static final int THREADS = 16;
+  private static final int OPS_PER_THREAD = 20;
+
+  @Autowired
+  ReconciliationService reconciliation;
+
+  @Autowired
+  WalletService wallet;
+
+  @Autowired
+  JdbcTemplate jdbc;
+
+  @Test
+  void concurrentRunsAreSerializedAndNeverDoubleCount() throws Exception {
+    // ids fora da faixa do DataLoader; alunos começam zerados e só recebem via ledger
+    long base = 900_000L + ThreadLocalRandom.current().nextInt(1_000) * 100L;
+    long professor = base, a = base + 1, b = base + 2;
+    jdbc.update("insert into wallet (id, user_type, user_id, saldo) values (nextval('wallet_seq'), 'PROFESSOR', ?, 1000000) "
+        + "on conflict (user_type, user_id) do update set saldo = excluded.saldo", professor);
+    for (long id : new long[] { a, b }) {
+      jdbc.update("insert into wallet (id, user_type, user_id, saldo) values (nextval('wallet_seq'), 'ALUNO', ?, 0) "
+          + "on conflict (user_type, user_id) do update set saldo = 0", id);
+      jdbc.update("delete from wallet_checkpoint where user_type = 'ALUNO' and user_id = ?", id);
+      jdbc.update("delete from ledger_entry where (to_type = 'ALUNO' and to_id = ?) or (from_type = 'ALUNO' and from_id = ?)", id, id);
+    }
+
+    var unexpected = new ConcurrentLinkedQueue<Throwable>();
+    var start = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    for (int t = 0; t < THREADS; t++) {
+      final int thread = t;
+      pool.execute(() -> {
+        var rnd = ThreadLocalRandom.current();
+        try {
+          start.await();
+          for (int op = 0; op < OPS_PER_THREAD; op++) {
+            if (thread % 2 == 0) {
+              reconciliation.run();
+              continue;
+            }
+            wallet.transfer(UserType.PROFESSOR, professor, UserType.ALUNO, rnd.nextBoolean() ? a : b,
+                1 + rnd.nextInt(20), "reconcile-test", LedgerKind.GRANT);
+            try {
+              wallet.transfer(UserType.ALUNO, a, UserType.ALUNO, b, 1, "reconcile-test", LedgerKind.TRANSFER);
+            } catch (IllegalStateException e) {
+              // a ainda sem saldo para a -> b: aceitável
+              if (!"Saldo insuficiente".equals(e.getMessage())) throw e;
+            }
+          }
+        } catch (Throwable e) {
+          unexpected.add(e);
+        }
+      });
+    }
+
+    start.countDown();
+    pool.shutdown();
+    assertThat(pool.awaitTermination(2, TimeUnit.MINUTES)).as("threads terminaram").isTrue();
+    assertThat(unexpected).as("erros inesperados (checkpoint duplicado, deadlock...)").isEmpty();
+
+    // com tudo comitado, uma última execução não pode achar diferença nas carteiras dos alunos
+    reconciliation.run();
+    for (long id : new long[] { a, b }) {
+      assertThat(jdbc.queryForObject("select count(*) from wallet_checkpoint where user_type = 'ALUNO' and user_id = ?",
+          Long.class, id)).as("checkpoints da carteira %d", id).isEqualTo(1L);
+      assertThat(jdbc.queryForObject("select drift from wallet_checkpoint where user_type = 'ALUNO' and user_id = ?",
+          BigDecimal.class, id)).as("diferença na carteira %d", id).isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    // execuções serializadas: watermarks distintos, sem duas execuções sobre o mesmo intervalo
+    assertThat(jdbc.queryForObject("select count(*) - count(distinct watermark) from reconciliation_run", Long.class))
+        .isZero();
+  }
+}
@@ -0,0 +1,94 @@
+package com.example.moeda.moedaestudantil.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RedemptionCodeServiceTest {
+
+  private static final String SECRET = "segredo-de-teste";
+
+  private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+
+  @Test
+  void encodedCodesArePlausible() {
+    var codes = new RedemptionCodeService(jdbc, SECRET);
+    // até 2^55 - 1 o código cabe nos 16 chars da coluna
+    for (long n : new long[] { 0, 1, 31, 32, 1_000, 123_456_789L, (1L << 55) - 1 }) {
+      String code = codes.encode(n);
+      assertThat(code).hasSizeBetween(11, 16).matches("[A-HJ-NP-Z2-9]+");
+      assertThat(codes.plausible(code)).as(code).isTrue();
+    }
+  }
+
+  @Test
+  void typosAndForgedChecksumsAreRejected() {
+    var codes = new RedemptionCodeService(jdbc, SECRET);
+    String code = codes.encode(4242);
+
+    // troca um caractere do número: o checksum não bate mais
+    char c = code.charAt(2);
+    String typo = code.substring(0, 2) + (c == 'B' ? 'C' : 'B') + code.substring(3);
+    assertThat(codes.plausible(typo)).isFalse();
+
+    // mesmo número com outra chave
+    var other = new RedemptionCodeService(jdbc, "outra-chave");
+    assertThat(codes.plausible(other.encode(4242))).isFalse();
+
+    assertThat(codes.plausible("ABC")).isFalse();
+    assertThat(codes.plausible("ABCDEF0OI12")).isFalse(); // fora do alfabeto
+  }
+
+  @Test
+  void legacyEightCharCodesStillPass() {
+    var codes = new RedemptionCodeService(jdbc, SECRET);
+    assertThat(codes.plausible("ABCDEFGH")).isTrue();
+    assertThat(codes.plausible("ABCDEFG0")).isFalse();
+  }
+
+  @Test
+  void normalizeAcceptsWhatStudentsType() {
+    var codes = new RedemptionCodeService(jdbc, SECRET);
+    String code = codes.encode(99);
+    String typed = " " + code.substring(0, 4).toLowerCase() + "-" + code.substring(4) + " ";
+    assertThat(codes.plausible(codes.normalize(typed))).isTrue();
+  }
+
+  @Test
+  void newCodesUseOneNextvalPerBlockAndNeverRepeat() {
+    when(jdbc.queryForObject("select nextval('redemption_code_seq')", Long.class)).thenReturn(1L, 51L, 101L);
+    var codes = new RedemptionCodeService(jdbc, SECRET);
+
+    Set<String> seen = new HashSet<>();
+    for (int i = 0; i < 120; i++) {
+      String code = codes.newCode();
+      assertThat(codes.plausible(code)).isTrue();
+      assertThat(seen.add(code)).as("código repetido: " + code).isTrue();
+    }
+    verify(jdbc, times(3)).queryForObject("select nextval('redemption_code_seq')", Long.class);
+    // a sequence é criada uma vez, na inicialização (fora da transação de um resgate)
+    verify(jdbc, times(1)).execute(contains("create sequence if not exists redemption_code_seq"));
+  }
+
+  @Test
+  void withoutSecretInstancesShareTheStoredKey() {
+    String stored = Base64.getEncoder().encodeToString(new byte[32]);
+    when(jdbc.queryForObject(anyString(), eq(String.class))).thenReturn(stored);
+
+    var a = new RedemptionCodeService(jdbc, "");
+    var b = new RedemptionCodeService(jdbc, null);
+    assertThat(b.plausible(a.encode(777))).isTrue();
+  }
+}
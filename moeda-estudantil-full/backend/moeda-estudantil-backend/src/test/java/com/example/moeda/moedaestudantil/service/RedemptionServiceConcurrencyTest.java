@@ -0,0 +1,177 @@
+package com.example.moeda.moedaestudantil.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Resgate pela PK do benefício: resgates simultâneos do mesmo aluno nunca
+ * gastam mais que o saldo (cada código tem o seu débito no ledger), benefício
+ * desativado não é resgatável e o custo do resgate não cresce com o catálogo.
+ */
+@SpringBootTest(properties = {
+    "app.mail.fake=true",
+    "app.reconcile.initial-delay=PT1H",
+    "app.auth.bcrypt-strength=4"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class RedemptionServiceConcurrencyTest {
+
+  @Container
+  @ServiceConnection
+  static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+  private static final int THREADS = 32;
+  private static final int OPS_PER_THREAD = 5;
+  private static final int SALDO_INICIAL = 100;
+  private static final int CUSTO = 7;
+
+  @Autowired
+  RedemptionService redemptions;
+
+  @Autowired
+  JdbcTemplate jdbc;
+
+  private long alunoId;
+  private long empresaId;
+  private long benefitId;
+
+  @BeforeEach
+  void setUp() {
+    // ids fora da faixa do DataLoader
+    long base = 900_000L + ThreadLocalRandom.current().nextInt(1_000) * 100L;
+    alunoId = base;
+    empresaId = base + 1;
+    jdbc.update("insert into wallet (id, user_type, user_id, saldo) values (nextval('wallet_seq'), 'ALUNO', ?, ?) "
+        + "on conflict (user_type, user_id) do update set saldo = excluded.saldo", alunoId, SALDO_INICIAL);
+    jdbc.update("insert into wallet (id, user_type, user_id, saldo) values (nextval('wallet_seq'), 'EMPRESA', ?, 0) "
+        + "on conflict (user_type, user_id) do update set saldo = 0", empresaId);
+    jdbc.update("delete from benefit_redemption where aluno_id = ?", alunoId);
+    benefitId = insertBenefit("Resgate concorrente", CUSTO, true);
+  }
+
+  @Test
+  void concurrentRedeemsNeverOverspend() throws Exception {
+    var unexpected = new ConcurrentLinkedQueue<Throwable>();
+    var insufficient = new AtomicInteger();
+    var ok = new AtomicInteger();
+    var start = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+
+    for (int t = 0; t < THREADS; t++) {
+      pool.execute(() -> {
+        try {
+          start.await();
+          for (int op = 0; op < OPS_PER_THREAD; op++) {
+            try {
+              redemptions.redeem(alunoId, benefitId);
+              ok.incrementAndGet();
+            } catch (IllegalStateException e) {
+              if (!"Saldo insuficiente".equals(e.getMessage())) throw e;
+              insufficient.incrementAndGet();
+            }
+          }
+        } catch (Throwable e) {
+          unexpected.add(e);
+        }
+      });
+    }
+
+    start.countDown();
+    pool.shutdown();
+    assertThat(pool.awaitTermination(2, TimeUnit.MINUTES)).as("threads terminaram").isTrue();
+    assertThat(unexpected).as("erros inesperados (deadlock, lock otimista...)").isEmpty();
+
+    // 100 / 7 = 14 resgates cabem no saldo; todos os outros recusados
+    int cabem = SALDO_INICIAL / CUSTO;
+    assertThat(ok.get()).isEqualTo(cabem);
+    assertThat(insufficient.get()).isEqualTo(THREADS * OPS_PER_THREAD - cabem);
+
+    assertThat(saldo("ALUNO", alunoId)).isEqualByComparingTo(BigDecimal.valueOf(SALDO_INICIAL - (long) cabem * CUSTO));
+    assertThat(saldo("EMPRESA", empresaId)).isEqualByComparingTo(BigDecimal.valueOf((long) cabem * CUSTO));
+    assertThat(jdbc.queryForObject("select count(distinct code) from benefit_redemption where aluno_id = ? and benefit_id = ?",
+        Long.class, alunoId, benefitId)).isEqualTo(cabem);
+    assertThat(jdbc.queryForObject("select count(*) from ledger_entry where kind = 'REDEEM' and from_type = 'ALUNO' and from_id = ?",
+        Long.class, alunoId)).isEqualTo(cabem);
+  }
+
+  @Test
+  void inactiveBenefitIsNotRedeemed() {
+    long inativo = insertBenefit("Desativado", CUSTO, false);
+    assertThatThrownBy(() -> redemptions.redeem(alunoId, inativo))
+        .hasMessage("Benefício não encontrado");
+
+    assertThat(saldo("ALUNO", alunoId)).isEqualByComparingTo(BigDecimal.valueOf(SALDO_INICIAL));
+    assertThat(jdbc.queryForObject("select count(*) from benefit_redemption where aluno_id = ?", Long.class, alunoId)).isZero();
+  }
+
+  // Mesmo resgate com o catálogo pequeno e com +100k benefícios; o tempo vai para o log para comparação
+  @Test
+  void redeemCostDoesNotGrowWithCatalog() {
+    jdbc.update("update wallet set saldo = 1000000 where user_type = 'ALUNO' and user_id = ?", alunoId);
+    int n = 200;
+    long small = medianRedeemNanos(n);
+
+    jdbc.update("""
+        insert into benefit (id, empresa_id, titulo, custo, ativo, version)
+        select nextval('benefit_seq'), ?, 'Catálogo ' || g, 1 + g % 500, true, 0
+        from generate_series(1, 100000) g
+        """, empresaId);
+    jdbc.execute("analyze benefit");
+    long large = medianRedeemNanos(n);
+
+    System.out.printf("[RedemptionServiceConcurrencyTest] mediana do resgate: catálogo pequeno = %d us, +100k benefícios = %d us%n",
+        small / 1_000, large / 1_000);
+    // a busca do benefício do resgate vai pela PK, não percorre o catálogo
+    String plan = String.join("\n", jdbc.queryForList(
+        "explain select * from benefit where id = ? and ativo = true", String.class, benefitId));
+    jdbc.update("delete from benefit where empresa_id = ? and titulo like 'Catálogo %'", empresaId);
+
+    assertThat(plan).contains("benefit_pkey").doesNotContain("Seq Scan");
+    // folga de 3x para o ruído da máquina; uma varredura do catálogo passaria disso com 100k linhas
+    assertThat(large).as("mediana com 100k (%d us) x catálogo pequeno (%d us)", large / 1_000, small / 1_000)
+        .isLessThanOrEqualTo(3 * small);
+    assertThat(jdbc.queryForObject("select count(*) from benefit_redemption where aluno_id = ?", Long.class, alunoId))
+        .isEqualTo(2L * n);
+  }
+
+  private long medianRedeemNanos(int n) {
+    long[] nanos = new long[n];
+    for (int i = 0; i < n; i++) {
+      long t0 = System.nanoTime();
+      redemptions.redeem(alunoId, benefitId);
+      nanos[i] = System.nanoTime() - t0;
+    }
+    Arrays.sort(nanos);
+    return nanos[n / 2];
+  }
+
+  private long insertBenefit(String titulo, int custo, boolean ativo) {
+    return jdbc.queryForObject(
+        "insert into benefit (id, empresa_id, titulo, custo, ativo, version) values (nextval('benefit_seq'), ?, ?, ?, ?, 0) returning id",
+        Long.class, empresaId, titulo, custo, ativo);
+  }
+
+  private BigDecimal saldo(String type, long id) {
+    return jdbc.queryForObject("select saldo from wallet where user_type = ? and user_id = ?", BigDecimal.class, type, id);
+  }
+}
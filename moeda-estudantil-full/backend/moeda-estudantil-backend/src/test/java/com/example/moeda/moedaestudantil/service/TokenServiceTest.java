@@ -0,0 +1,73 @@
+package com.example.moeda.moedaestudantil.service;
+
+import com.example.moeda.moedaestudantil.domain.UserType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenServiceTest {
+
+  private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+  private final TokenService tokens = new TokenService(SECRET, Duration.ofHours(1), 100);
+
+  @Test
+  void issuedTokenVerifies() {
+    String t = tokens.issue(UserType.ALUNO, 42L);
+    var c = tokens.verify(t);
+
+    assertThat(c).isNotNull();
+    assertThat(c.type()).isEqualTo(UserType.ALUNO);
+    assertThat(c.id()).isEqualTo(42L);
+    assertThat(c.expiresAt()).isAfter(Instant.now());
+    // segunda verificação sai do cache
+    assertThat(tokens.verify(t)).isEqualTo(c);
+    assertThat(tokens.stats()).containsEntry("verifications", 1L).containsEntry("cacheHits", 1L);
+  }
+
+  @Test
+  void expiredTokenIsRejected() {
+    String t = tokens.issue(UserType.PROFESSOR, 7L, Instant.now().minusSeconds(1));
+    assertThat(tokens.verify(t)).isNull();
+  }
+
+  @Test
+  void tamperedPayloadIsRejected() {
+    String t = tokens.issue(UserType.ALUNO, 42L);
+    String sig = t.substring(t.indexOf('.') + 1);
+    String forged = Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(("EMPRESA.42." + Instant.now().plusSeconds(3600).getEpochSecond()).getBytes());
+
+    assertThat(tokens.verify(forged + "." + sig)).isNull();
+  }
+
+  @Test
+  void tamperedSignatureIsRejected() {
+    String t = tokens.issue(UserType.ALUNO, 42L);
+    // troca o 1º caractere da assinatura: o último carrega bits de preenchimento que o decoder ignora
+    int at = t.lastIndexOf('.') + 1;
+    String bad = t.substring(0, at) + (t.charAt(at) == 'A' ? 'B' : 'A') + t.substring(at + 1);
+
+    assertThat(tokens.verify(bad)).isNull();
+    assertThat(tokens.verify("lixo")).isNull();
+    assertThat(tokens.verify("")).isNull();
+    assertThat(tokens.verify(null)).isNull();
+  }
+
+  @Test
+  void tokenFromAnotherKeyIsRejected() {
+    var other = new TokenService("fedcba9876543210fedcba9876543210", Duration.ofHours(1), 100);
+    assertThat(tokens.verify(other.issue(UserType.ALUNO, 42L))).isNull();
+  }
+
+  @Test
+  void shortSecretFailsFast() {
+    assertThatThrownBy(() -> new TokenService("curta", Duration.ofHours(1), 100))
+        .isInstanceOf(IllegalStateException.class);
+  }
+}
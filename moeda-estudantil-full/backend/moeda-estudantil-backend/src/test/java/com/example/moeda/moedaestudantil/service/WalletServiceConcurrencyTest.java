@@ -0,0 +1,186 @@
+package com.example.moeda.moedaestudantil.service;
+
+import com.example.moeda.moedaestudantil.domain.LedgerKind;
+import com.example.moeda.moedaestudantil.domain.UserType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 64 threads transferindo entre as mesmas carteiras, nos dois sentidos e em
+ * batch: nenhuma atualização perdida (saldo = inicial + ledger), nenhum saldo
+ * negativo e nenhum deadlock (só "Saldo insuficiente" é erro aceitável).
+ * Também: transferBatch é tudo ou nada e equivale a N transfer().
+ */
+@SpringBootTest(properties = {
+    "app.mail.fake=true",
+    "app.reconcile.initial-delay=PT1H",
+    "app.auth.bcrypt-strength=4"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class WalletServiceConcurrencyTest {
+
+  @Container
+  @ServiceConnection
+  static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+  private static final int THREADS = 64;
+  private static final int OPS_PER_THREAD = 50;
+  private static final int WALLETS = 6;
+  private static final int SALDO_INICIAL = 1_000;
+
+  @Autowired
+  WalletService wallet;
+
+  @Autowired
+  JdbcTemplate jdbc;
+
+  private final List<Long> ids = new ArrayList<>();
+  private String reason;
+
+  @BeforeEach
+  void setUp() {
+    // ids fora da faixa do DataLoader; cada execução usa um motivo próprio no ledger
+    long base = 900_000L + ThreadLocalRandom.current().nextInt(1_000) * 100L;
+    reason = "concurrency-" + UUID.randomUUID();
+    ids.clear();
+    for (int i = 0; i < WALLETS; i++) {
+      long id = base + i;
+      ids.add(id);
+      jdbc.update("insert into wallet (id, user_type, user_id, saldo) values (nextval('wallet_seq'), 'ALUNO', ?, ?) "
+          + "on conflict (user_type, user_id) do update set saldo = excluded.saldo", id, SALDO_INICIAL);
+    }
+  }
+
+  @Test
+  void concurrentTransfersKeepBalancesEqualToLedger() throws Exception {
+    var unexpected = new ConcurrentLinkedQueue<Throwable>();
+    var insufficient = new AtomicInteger();
+    var start = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+
+    for (int t = 0; t < THREADS; t++) {
+      final int thread = t;
+      pool.execute(() -> {
+        var rnd = ThreadLocalRandom.current();
+        try {
+          start.await();
+          for (int op = 0; op < OPS_PER_THREAD; op++) {
+            try {
+              if (thread % 4 == 3) {
+                // batch de uma origem para todas as outras (inclui ids menores e maiores que a origem)
+                long from = ids.get(rnd.nextInt(WALLETS));
+                List<WalletService.Credit> credits = new ArrayList<>();
+                for (Long to : ids) if (to != from) credits.add(new WalletService.Credit(to, 1 + rnd.nextInt(5)));
+                wallet.transferBatch(UserType.ALUNO, from, UserType.ALUNO, credits, reason, LedgerKind.GRANT);
+              } else {
+                // metade das threads vai A -> B, a outra metade B -> A, sobre o mesmo par
+                long a = ids.get(0), b = ids.get(1);
+                if (thread % 2 == 0) {
+                  wallet.transfer(UserType.ALUNO, a, UserType.ALUNO, b, 1 + rnd.nextInt(20), reason, LedgerKind.TRANSFER);
+                } else {
+                  wallet.transfer(UserType.ALUNO, b, UserType.ALUNO, a, 1 + rnd.nextInt(20), reason, LedgerKind.TRANSFER);
+                }
+              }
+            } catch (IllegalStateException e) {
+              if (!"Saldo insuficiente".equals(e.getMessage())) throw e;
+              insufficient.incrementAndGet();
+            }
+          }
+        } catch (Throwable e) {
+          unexpected.add(e);
+        }
+      });
+    }
+
+    start.countDown();
+    pool.shutdown();
+    assertThat(pool.awaitTermination(2, TimeUnit.MINUTES)).as("threads terminaram").isTrue();
+    assertThat(unexpected).as("erros inesperados (deadlock, lock timeout...)").isEmpty();
+
+    BigDecimal total = BigDecimal.ZERO;
+    for (Long id : ids) {
+      BigDecimal saldo = jdbc.queryForObject(
+          "select saldo from wallet where user_type = 'ALUNO' and user_id = ?", BigDecimal.class, id);
+      Map<String, Object> mov = jdbc.queryForMap("""
+          select coalesce(sum(case when to_id = ? then amount else 0 end), 0) as entradas,
+                 coalesce(sum(case when from_id = ? then amount else 0 end), 0) as saidas
+          from ledger_entry where reason = ? and (to_id = ? or from_id = ?)
+          """, id, id, reason, id, id);
+      BigDecimal esperado = BigDecimal.valueOf(SALDO_INICIAL)
+          .add(new BigDecimal(mov.get("entradas").toString()))
+          .subtract(new BigDecimal(mov.get("saidas").toString()));
+
+      assertThat(saldo).as("saldo da carteira %d", id).isEqualByComparingTo(esperado);
+      assertThat(saldo.signum()).as("saldo negativo na carteira %d", id).isGreaterThanOrEqualTo(0);
+      total = total.add(saldo);
+    }
+    // transferências só movem moedas: a soma das carteiras não muda
+    assertThat(total).isEqualByComparingTo(BigDecimal.valueOf((long) SALDO_INICIAL * WALLETS));
+  }
+
+  @Test
+  void batchIsAllOrNothing() {
+    long from = ids.get(0);
+    // 2 x 600 > saldo: o débito do total falha e nenhum crédito pode ficar
+    var credits = List.of(new WalletService.Credit(ids.get(1), 600), new WalletService.Credit(ids.get(2), 600));
+    assertThatThrownBy(() -> wallet.transferBatch(UserType.ALUNO, from, UserType.ALUNO, credits, reason, LedgerKind.GRANT))
+        .hasMessage("Saldo insuficiente");
+
+    for (Long id : ids) {
+      assertThat(jdbc.queryForObject("select saldo from wallet where user_type = 'ALUNO' and user_id = ?", BigDecimal.class, id))
+          .isEqualByComparingTo(BigDecimal.valueOf(SALDO_INICIAL));
+    }
+    assertThat(jdbc.queryForObject("select count(*) from ledger_entry where reason = ?", Long.class, reason)).isZero();
+  }
+
+  // 1 batch de N destinos x N transfer(): mesmo resultado, e o batch não é mais lento.
+  // O batch roda primeiro (paga o aquecimento), o que só joga contra ele
+  @Test
+  void batchMatchesSingleTransfersAndIsNoSlower() {
+    long from = ids.get(0);
+    int n = 200;
+    List<WalletService.Credit> credits = new ArrayList<>();
+    for (int i = 0; i < n; i++) credits.add(new WalletService.Credit(ids.get(1 + i % (WALLETS - 1)), 1));
+
+    long t0 = System.nanoTime();
+    wallet.transferBatch(UserType.ALUNO, from, UserType.ALUNO, credits, reason, LedgerKind.GRANT);
+    long batch = System.nanoTime() - t0;
+
+    t0 = System.nanoTime();
+    for (var c : credits) wallet.transfer(UserType.ALUNO, from, UserType.ALUNO, c.toId(), c.amount(), reason, LedgerKind.GRANT);
+    long single = System.nanoTime() - t0;
+    System.out.printf("[WalletServiceConcurrencyTest] %d créditos: %d x transfer = %d ms, 1 x transferBatch = %d ms%n",
+        n, n, single / 1_000_000, batch / 1_000_000);
+
+    // N transações (N commits) contra uma só
+    assertThat(batch).as("transferBatch (%d ms) x %d transfer (%d ms)", batch / 1_000_000, n, single / 1_000_000)
+        .isLessThanOrEqualTo(single);
+
+    assertThat(jdbc.queryForObject("select saldo from wallet where user_type = 'ALUNO' and user_id = ?", BigDecimal.class, from))
+        .isEqualByComparingTo(BigDecimal.valueOf(SALDO_INICIAL - 2L * n));
+    assertThat(jdbc.queryForObject("select count(*) from ledger_entry where reason = ?", Long.class, reason)).isEqualTo(2L * n);
+  }
+}
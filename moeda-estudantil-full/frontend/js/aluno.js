@@ -31,14 +31,18 @@ if (popupOkBtn && popupResgate) {
 
 /* ========= PERFIL ========= */
 
-async function loadPerfil() {
+// `pre`: dados já vindos do /dashboard; sem ele, busca sozinho
+async function loadPerfil(pre) {
   try {
-    const r = await fetch(`${API_BASE_URL}/alunos/${id}`);
-    if (!r.ok) {
-      console.error('Falha ao buscar perfil', r.status, await r.text().catch(() => ''));
-      return;
+    let a = pre;
+    if (!a) {
+      const r = await fetch(`${API_BASE_URL}/alunos/${id}`);
+      if (!r.ok) {
+        console.error('Falha ao buscar perfil', r.status, await r.text().catch(() => ''));
+        return;
+      }
+      a = await r.json();
     }
-    const a = await r.json();
     $('nome').value  = a?.nome  ?? '';
     $('curso').value = a?.curso ?? '';
     $('email').value = a?.email ?? '';
@@ -90,15 +94,18 @@ async function excluir() {
 
 /* ========= SALDO / HISTÓRICO ========= */
 
-async function loadSaldo() {
+async function loadSaldo(pre) {
   try {
-    const r = await fetch(`${API_BASE_URL}/alunos/${id}/wallet`);
-    if (!r.ok) {
-      console.error('Falha ao buscar saldo', r.status, await r.text().catch(() => ''));
-      $('saldo').textContent = '—';
-      return;
+    let d = pre;
+    if (!d) {
+      const r = await fetch(`${API_BASE_URL}/alunos/${id}/wallet`);
+      if (!r.ok) {
+        console.error('Falha ao buscar saldo', r.status, await r.text().catch(() => ''));
+        $('saldo').textContent = '—';
+        return;
+      }
+      d = await r.json();
     }
-    const d = await r.json();
     $('saldo').textContent = Number(d?.saldo ?? 0).toFixed(2);
   } catch (e) {
     console.error(e);
@@ -106,19 +113,20 @@ async function loadSaldo() {
   }
 }
 
-async function loadHist() {
+async function loadHist(pre) {
   try {
-    const r = await fetch(`${API_BASE_URL}/alunos/${id}/ledger`);
     const ul = $('hist');
-
-    if (!r.ok) {
-      console.error('Falha ao buscar histórico', r.status, await r.text().catch(() => ''));
-      ul.innerHTML = '<li>Erro ao carregar histórico.</li>';
-      return;
+    let page = pre;
+    if (!page) {
+      const r = await fetch(`${API_BASE_URL}/alunos/${id}/ledger`);
+      if (!r.ok) {
+        console.error('Falha ao buscar histórico', r.status, await r.text().catch(() => ''));
+        ul.innerHTML = '<li>Erro ao carregar histórico.</li>';
+        return;
+      }
+      page = await r.json(); // { items, nextCursor }
     }
-
-    const items = await r.json();
-    const arr = Array.isArray(items) ? items : [];
+    const arr = Array.isArray(page.items) ? page.items : [];
 
     ul.innerHTML = '';
     arr.forEach(i => {
@@ -134,16 +142,18 @@ async function loadHist() {
 
 /* ========= BENEFÍCIOS ========= */
 
-async function loadBeneficios() {
+async function loadBeneficios(pre) {
   try {
-    const r = await fetch(`${API_BASE_URL}/beneficios`);
-    if (!r.ok) {
-      console.error('Falha ao listar benefícios', r.status, await r.text().catch(() => ''));
-      $('beneficios').innerHTML = '<li>Erro ao carregar benefícios.</li>';
-      return;
+    let items = pre;
+    if (!items) {
+      const r = await fetch(`${API_BASE_URL}/beneficios`);
+      if (!r.ok) {
+        console.error('Falha ao listar benefícios', r.status, await r.text().catch(() => ''));
+        $('beneficios').innerHTML = '<li>Erro ao carregar benefícios.</li>';
+        return;
+      }
+      items = await r.json();
     }
-
-    const items = await r.json();
     const arr = Array.isArray(items) ? items : [];
     const ul = $('beneficios');
     ul.innerHTML = '';
@@ -163,7 +173,7 @@ async function loadBeneficios() {
       li.innerHTML = `
         <div class="benefit-thumb">
           <img
-            src="${API_BASE_URL}/beneficios/${b.id}/image"
+            src="${API_BASE_URL}/beneficios/${b.id}/image?size=thumb${b.fotoHash ? `&v=${b.fotoHash}` : ''}"
             alt="${b.titulo}"
             class="benefit-img"
             onerror="this.style.display='none'"
@@ -298,8 +308,10 @@ async function loadBeneficios() {
 
         if (li) li.remove();
 
-        await loadSaldo();
-        await loadHist();
+        if (!aoVivo.ativo) {
+          await loadSaldo();
+          await loadHist();
+        }
       } catch (err) {
         console.error(err);
         showPopup('Erro', 'Erro ao resgatar benefício.');
@@ -312,6 +324,50 @@ async function loadBeneficios() {
   }
 }
 
+/* ========= BUSCA / "CABE NO SALDO" =========
+ * Feitas no servidor: /beneficios/search (sem acento, por prefixo) e
+ * /alunos/{id}/beneficios/affordable (já filtrado pelo saldo, mais baratos primeiro).
+ * Campo vazio e caixa desmarcada voltam para o catálogo completo. */
+
+const buscaInput = $('busca-beneficios');
+const soAcessiveis = $('so-acessiveis');
+let buscaTimer;
+let buscaSeq = 0; // resposta de uma busca antiga não sobrescreve a mais nova
+
+async function filtrarBeneficios() {
+  const seq = ++buscaSeq;
+  const q = buscaInput?.value.trim() || '';
+  const acessiveis = !!soAcessiveis?.checked;
+  if (!q && !acessiveis) {
+    loadBeneficios();
+    return;
+  }
+  try {
+    let url;
+    if (!q) {
+      url = `${API_BASE_URL}/alunos/${id}/beneficios/affordable?size=100`;
+    } else {
+      url = `${API_BASE_URL}/beneficios/search?q=${encodeURIComponent(q)}&size=50`;
+      const saldo = Number($('saldo').textContent);
+      if (acessiveis && Number.isFinite(saldo)) url += `&maxCusto=${Math.floor(saldo)}`;
+    }
+    const r = await fetch(url);
+    if (!r.ok) throw new Error(`busca ${r.status}`);
+    const page = await r.json(); // { items, total, page, size }
+    if (seq === buscaSeq) loadBeneficios(page.items);
+  } catch (e) {
+    console.error('Erro na busca de benefícios', e);
+  }
+}
+
+if (buscaInput) {
+  buscaInput.oninput = () => {
+    clearTimeout(buscaTimer);
+    buscaTimer = setTimeout(filtrarBeneficios, 250);
+  };
+}
+if (soAcessiveis) soAcessiveis.onchange = filtrarBeneficios;
+
 /* ========= MODAL DO HISTÓRICO ========= */
 
 const historicoModal = document.getElementById('historicoModal');
@@ -363,7 +419,52 @@ if (beneficiosList && btnBenefLeft && btnBenefRight) {
   };
 }
 
-loadPerfil();
-loadSaldo();
-loadHist();
-loadBeneficios();
+/* ========= DASHBOARD =========
+ * Uma requisição traz perfil, saldo, histórico e benefícios;
+ * se falhar (ex.: backend antigo), cai para as quatro chamadas separadas. */
+
+async function loadDashboard() {
+  try {
+    const r = await fetch(`${API_BASE_URL}/alunos/${id}/dashboard`);
+    if (!r.ok) throw new Error(`dashboard ${r.status}`);
+    const d = await r.json(); // { perfil, saldo, ledger, beneficios }
+    loadPerfil(d.perfil);
+    loadSaldo({ saldo: d.saldo });
+    loadHist(d.ledger);
+    loadBeneficios(d.beneficios);
+  } catch (e) {
+    console.warn('Dashboard indisponível, carregando por partes', e);
+    loadPerfil();
+    loadSaldo();
+    loadHist();
+    loadBeneficios();
+  }
+}
+
+/* ========= AO VIVO (SSE) ========= */
+
+function somarSaldo(delta) {
+  const atual = Number($('saldo').textContent);
+  if (Number.isFinite(atual)) $('saldo').textContent = (atual + delta).toFixed(2);
+  else loadSaldo();
+}
+
+function prependHist(entries) {
+  const ul = $('hist');
+  entries.forEach(i => {
+    const li = document.createElement('li');
+    li.textContent = `${i.ts} • ${i.kind} • ${i.amount} • ${i.reason || ''}`;
+    ul.prepend(li);
+  });
+}
+
+let aoVivo = { ativo: false };
+
+loadDashboard().then(() => {
+  aoVivo = ouvirCarteira(`/alunos/${id}`, {
+    // eventos perdidos enquanto a conexão caiu: relê saldo (vem do cache) e histórico
+    onReady: () => { loadSaldo(); loadHist(); },
+    onBalance: somarSaldo,
+    onLedger: prependHist
+  });
+});
@@ -5,3 +5,46 @@ const API_BASE_URL = "http://127.0.0.1:8080/api";
 // basta comentar a linha de cima e descomentar/ajustar esta:
 //
 // const API_BASE_URL = "https://seu-backend.onrender.com/api";
+
+// Envia o token do login em todas as chamadas à API e volta para o login
+// quando ele expira (401).
+(function () {
+  const originalFetch = window.fetch.bind(window);
+  window.fetch = async (input, init = {}) => {
+    const url = typeof input === 'string' ? input : input.url;
+    const user = JSON.parse(localStorage.getItem('user') || 'null');
+    if (!url.startsWith(API_BASE_URL) || !user || !user.token) {
+      return originalFetch(input, init);
+    }
+    const headers = new Headers(init.headers || {});
+    headers.set('Authorization', `Bearer ${user.token}`);
+    const resp = await originalFetch(input, { ...init, headers });
+    if (resp.status === 401 && !url.startsWith(`${API_BASE_URL}/auth/`)) {
+      localStorage.removeItem('user');
+      location.href = 'login.html';
+    }
+    return resp;
+  };
+})();
+
+// Saldo e histórico ao vivo (SSE). O EventSource não envia cabeçalhos, por isso
+// o token vai na query. Reconecta sozinho; a cada reconexão chama onReady para a
+// página recarregar o que pode ter perdido enquanto estava desconectada.
+// Devolve { ativo }: com a conexão de pé a página não precisa reler saldo/histórico.
+function ouvirCarteira(path, { onReady, onBalance, onLedger }) {
+  const estado = { ativo: false };
+  const user = JSON.parse(localStorage.getItem('user') || 'null');
+  if (!window.EventSource || !user || !user.token) return estado;
+
+  const es = new EventSource(`${API_BASE_URL}${path}/events?access_token=${encodeURIComponent(user.token)}`);
+  let conectou = false;
+  es.addEventListener('ready', () => {
+    estado.ativo = true;
+    if (conectou) onReady?.();
+    conectou = true;
+  });
+  es.addEventListener('balance', (e) => onBalance?.(Number(JSON.parse(e.data).delta)));
+  es.addEventListener('ledger', (e) => onLedger?.(JSON.parse(e.data)));
+  es.onerror = () => { estado.ativo = false; };
+  return estado;
+}
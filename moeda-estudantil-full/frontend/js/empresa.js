@@ -32,11 +32,15 @@ async function apiFetch(path, options = {}) {
 }
 
 /* ========== SALDO ========== */
-async function carregarSaldo() {
+// `pre`: dados já vindos do /dashboard; sem ele, busca sozinho
+async function carregarSaldo(pre) {
   try {
-    const r = await apiFetch(`/empresas/${empresaId}/wallet`);
-    if (!r.ok) throw new Error(`Falha ao buscar saldo (${r.status})`);
-    const d = await r.json();
+    let d = pre;
+    if (!d) {
+      const r = await apiFetch(`/empresas/${empresaId}/wallet`);
+      if (!r.ok) throw new Error(`Falha ao buscar saldo (${r.status})`);
+      d = await r.json();
+    }
     console.log('[saldo]', d);
     $('saldo').textContent = Number(d.saldo ?? 0).toFixed(2);
   } catch (e) {
@@ -46,17 +50,20 @@ async function carregarSaldo() {
 }
 
 /* ========== HISTÓRICO ========== */
-async function carregarHistorico() {
+async function carregarHistorico(pre) {
   try {
-    const r = await apiFetch(`/empresas/${empresaId}/ledger`);
-    if (!r.ok) throw new Error(`Falha ao buscar histórico (${r.status})`);
-    const items = await r.json();
-    console.log('[ledger]', items);
+    let page = pre;
+    if (!page) {
+      const r = await apiFetch(`/empresas/${empresaId}/ledger`);
+      if (!r.ok) throw new Error(`Falha ao buscar histórico (${r.status})`);
+      page = await r.json(); // { items, nextCursor }
+    }
+    console.log('[ledger]', page);
 
     const ul = $('hist');
     ul.innerHTML = '';
 
-    const arr = Array.isArray(items) ? items : [];
+    const arr = Array.isArray(page.items) ? page.items : [];
     arr.forEach(i => {
       const li = document.createElement('li');
       li.textContent = `${i.ts} • ${i.kind} • ${i.amount} • ${i.reason || ''}`;
@@ -69,11 +76,14 @@ async function carregarHistorico() {
 }
 
 /* ========== LISTAR BENEFÍCIOS ========== */
-async function listarBeneficios() {
+async function listarBeneficios(pre) {
   try {
-    const r = await apiFetch(`/empresas/${empresaId}/beneficios`);
-    if (!r.ok) throw new Error(`Falha ao listar benefícios (${r.status})`);
-    const items = await r.json();
+    let items = pre;
+    if (!items) {
+      const r = await apiFetch(`/empresas/${empresaId}/beneficios`);
+      if (!r.ok) throw new Error(`Falha ao listar benefícios (${r.status})`);
+      items = await r.json();
+    }
     console.log('[beneficios]', items);
 
     const list = $('lista-beneficios');
@@ -97,7 +107,8 @@ async function listarBeneficios() {
       const img = document.createElement('img');
       img.className = 'benefit-img';
 
-      const imgUrl = `${API_BASE_URL}/beneficios/${b.id}/image`;
+      // ?v=hash → URL imutável, o navegador não precisa nem revalidar
+      const imgUrl = `${API_BASE_URL}/beneficios/${b.id}/image?size=thumb${b.fotoHash ? `&v=${b.fotoHash}` : ''}`;
       console.log('[benefit img]', b.id, '→', imgUrl);
       img.src = imgUrl;
       img.alt = b.titulo || 'Imagem do benefício';
@@ -221,8 +232,10 @@ async function enviarMoedas(e) {
     if (!r.ok) throw new Error(`Falha ao enviar moedas (${r.status}): ${txt}`);
 
     alert('Moedas enviadas com sucesso!');
-    await carregarSaldo();
-    await carregarHistorico();
+    if (!aoVivo.ativo) {
+      await carregarSaldo();
+      await carregarHistorico();
+    }
   } catch (e2) {
     console.error('[grant] erro:', e2);
     alert(e2.message || 'Erro ao enviar moedas');
@@ -237,6 +250,41 @@ $('sair').onclick = () => {
   location.href = 'login.html';
 };
 
-carregarSaldo().catch(console.warn);
-carregarHistorico().catch(console.warn);
-listarBeneficios().catch(console.warn);
+/* ========== DASHBOARD ==========
+ * Uma requisição traz saldo, histórico e benefícios;
+ * se falhar, cai para as três chamadas separadas. */
+async function carregarDashboard() {
+  try {
+    const r = await apiFetch(`/empresas/${empresaId}/dashboard`);
+    if (!r.ok) throw new Error(`Falha ao buscar dashboard (${r.status})`);
+    const d = await r.json(); // { perfil, saldo, ledger, beneficios }
+    console.log('[dashboard]', d);
+    carregarSaldo({ saldo: d.saldo });
+    carregarHistorico(d.ledger);
+    listarBeneficios(d.beneficios);
+  } catch (e) {
+    console.warn('[dashboard] indisponível, carregando por partes:', e);
+    carregarSaldo().catch(console.warn);
+    carregarHistorico().catch(console.warn);
+    listarBeneficios().catch(console.warn);
+  }
+}
+
+/* ========== AO VIVO (SSE) ========== */
+// resgates dos alunos creditam a empresa: saldo e histórico sem recarregar a página
+let aoVivo = { ativo: false };
+
+carregarDashboard().then(() => {
+  aoVivo = ouvirCarteira(`/empresas/${empresaId}`, {
+    onReady: () => { carregarSaldo(); carregarHistorico(); },
+    onBalance: (delta) => {
+      const atual = Number($('saldo').textContent);
+      if (Number.isFinite(atual)) $('saldo').textContent = (atual + delta).toFixed(2);
+    },
+    onLedger: (entries) => entries.forEach(i => {
+      const li = document.createElement('li');
+      li.textContent = `${i.ts} • ${i.kind} • ${i.amount} • ${i.reason || ''}`;
+      $('hist').prepend(li);
+    })
+  });
+});
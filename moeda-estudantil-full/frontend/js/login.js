@@ -46,7 +46,6 @@ function closeToast(toast) {
 // LOGIN
 // =========================================
 async function login(){
-  const role  = document.getElementById('role').value;
   const email = document.getElementById('email').value.trim();
   const senha = document.getElementById('senha').value.trim();
 
@@ -64,7 +63,7 @@ async function login(){
     const resp = await fetch(`${API_BASE_URL}/auth/login`,{
       method:'POST',
       headers:{ 'Content-Type':'application/json' },
-      body: JSON.stringify({ role, email, senha })
+      body: JSON.stringify({ email, senha })
     });
 
     if(!resp.ok){
@@ -102,6 +101,7 @@ const btnEsqueciSenha   = document.getElementById('btnEsqueciSenha');
 const forgotModal       = document.getElementById('forgotModal');
 const btnCancelarReset  = document.getElementById('btnCancelarReset');
 const btnConfirmarReset = document.getElementById('btnConfirmarReset');
+const btnEnviarCodigo   = document.getElementById('btnEnviarCodigo');
 
 if (btnEsqueciSenha && forgotModal) {
   btnEsqueciSenha.addEventListener('click', () => {
@@ -117,15 +117,47 @@ if (btnCancelarReset && forgotModal) {
   });
 }
 
+// 1º passo: pede o código (a resposta é a mesma exista ou não o e-mail)
+if (btnEnviarCodigo) {
+  btnEnviarCodigo.addEventListener('click', async () => {
+    const email = document.getElementById('forgotEmail').value.trim();
+
+    if (!email) {
+      showToast('warning', 'Informe o e-mail cadastrado.');
+      return;
+    }
+
+    try {
+      const resp = await fetch(`${API_BASE_URL}/auth/reset-password/request`, {
+        method: 'POST',
+        headers: { 'Content-Type': 'application/json' },
+        body: JSON.stringify({ email })
+      });
+
+      if (!resp.ok) {
+        const text = await resp.text();
+        console.error(text);
+        showToast('error', 'Não foi possível enviar o código. Tente novamente em alguns minutos.');
+        return;
+      }
+
+      showToast('success', 'Se o e-mail estiver cadastrado, você receberá um código em instantes.');
+    } catch (err) {
+      console.error(err);
+      showToast('error', 'Erro ao conectar com o servidor. Tente novamente mais tarde.');
+    }
+  });
+}
+
+// 2º passo: código recebido por e-mail + nova senha
 if (btnConfirmarReset) {
   btnConfirmarReset.addEventListener('click', async () => {
-    const role          = document.getElementById('forgotRole').value;
-    const email         = document.getElementById('forgotEmail').value.trim();
+    const codigo        = document.getElementById('resetCode').value.trim();
     const novaSenha     = document.getElementById('newPassword').value;
     const confirmaSenha = document.getElementById('confirmPassword').value;
 
-    if (!email || !novaSenha || !confirmaSenha) {
-      showToast('warning', 'Preencha todos os campos.');
+    if (!codigo || !novaSenha || !confirmaSenha) {
+      showToast('warning', 'Preencha o código e a nova senha.');
       return;
     }
 
@@ -138,13 +170,13 @@ if (btnConfirmarReset) {
       const resp = await fetch(`${API_BASE_URL}/auth/reset-password`, {
         method: 'POST',
         headers: { 'Content-Type': 'application/json' },
-        body: JSON.stringify({ role, email, novaSenha })
+        body: JSON.stringify({ codigo, novaSenha })
       });
 
       if (!resp.ok) {
         const text = await resp.text();
         console.error(text);
-        showToast('error', 'Não foi possível redefinir a senha. Verifique o e-mail e o tipo de usuário.');
+        showToast('error', 'Não foi possível redefinir a senha. Verifique o código (vale uma vez e expira).');
         return;
       }
 
@@ -46,29 +46,38 @@ async function enviar() {
     }
 
     alert('Moedas enviadas!');
-    await loadSaldo();
-    await loadHist();
+    if (!aoVivo.ativo) {
+      await loadSaldo();
+      await loadHist();
+    }
   } catch (e) {
     console.error('Erro no fetch/grant:', e);
     alert(e?.message || 'Erro ao enviar moedas');
   }
 }
 
-async function loadSaldo() {
-  const r = await apiFetch(`/professores/${professorId}/wallet`);
-  if (!r.ok) throw new Error('Falha ao buscar saldo');
-  const d = await r.json();
+// `pre`: dados já vindos do /dashboard; sem ele, busca sozinho
+async function loadSaldo(pre) {
+  let d = pre;
+  if (!d) {
+    const r = await apiFetch(`/professores/${professorId}/wallet`);
+    if (!r.ok) throw new Error('Falha ao buscar saldo');
+    d = await r.json();
+  }
   $('saldo').textContent = Number(d.saldo ?? 0).toFixed(2);
 }
 
-async function loadHist() {
-  const r = await apiFetch(`/professores/${professorId}/ledger`);
-  if (!r.ok) throw new Error('Falha ao buscar histórico');
-  const items = await r.json();
+async function loadHist(pre) {
+  let page = pre;
+  if (!page) {
+    const r = await apiFetch(`/professores/${professorId}/ledger`);
+    if (!r.ok) throw new Error('Falha ao buscar histórico');
+    page = await r.json(); // { items, nextCursor }
+  }
   const ul = $('hist');
   ul.innerHTML = '';
 
-  (Array.isArray(items) ? items : []).forEach(i => {
+  (Array.isArray(page.items) ? page.items : []).forEach(i => {
     const li = document.createElement('li');
     li.textContent = `${i.ts} • ${i.kind} • ${i.amount} • ${i.reason || ''}`;
     ul.appendChild(li);
@@ -81,5 +90,35 @@ $('sair').onclick = () => {
   location.href = 'login.html';
 };
 
-loadSaldo().catch(console.warn);
-loadHist().catch(console.warn);
+// uma requisição para saldo + histórico; se falhar, cai para as chamadas separadas
+async function loadDashboard() {
+  try {
+    const r = await apiFetch(`/professores/${professorId}/dashboard`);
+    if (!r.ok) throw new Error(`dashboard ${r.status}`);
+    const d = await r.json(); // { perfil, saldo, ledger }
+    await loadSaldo({ saldo: d.saldo });
+    await loadHist(d.ledger);
+  } catch (e) {
+    console.warn('Dashboard indisponível, carregando por partes', e);
+    loadSaldo().catch(console.warn);
+    loadHist().catch(console.warn);
+  }
+}
+
+// saldo e histórico ao vivo (SSE): créditos da empresa aparecem sem recarregar
+let aoVivo = { ativo: false };
+
+loadDashboard().then(() => {
+  aoVivo = ouvirCarteira(`/professores/${professorId}`, {
+    onReady: () => { loadSaldo().catch(console.warn); loadHist().catch(console.warn); },
+    onBalance: (delta) => {
+      const atual = Number($('saldo').textContent);
+      if (Number.isFinite(atual)) $('saldo').textContent = (atual + delta).toFixed(2);
+    },
+    onLedger: (entries) => entries.forEach(i => {
+      const li = document.createElement('li');
+      li.textContent = `${i.ts} • ${i.kind} • ${i.amount} • ${i.reason || ''}`;
+      $('hist').prepend(li);
+    })
+  });
+});